@@ -0,0 +1,39 @@
+package com.todolist.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 待办完成状态列补齐
+ *
+ * 完成状态有 is_completed 和兼容列 completed 两列，读取时优先取 is_completed，为空时退回 completed。
+ * 条件查询只比较 is_completed，以便使用 (user_id, is_completed, ...) 复合索引，为空的行既不算已完成也不算未完成。
+ * 启动时在处理任何请求之前按 coalesce(is_completed, completed, false) 补齐两列；之后的写入路径都会同时写两列。
+ * 没有以 is_completed 开头的索引，每次启动扫描一遍待办表，补齐之后只是一次不修改任何行的更新，多实例同时执行也是安全的
+ *
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+@Component
+public class CompletedColumnInitializer implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompletedColumnInitializer.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        int todos = jdbcTemplate.update(
+            "update todos set is_completed = coalesce(completed, false), completed = coalesce(completed, false) " +
+            "where is_completed is null");
+        if (todos > 0) {
+            logger.info("已补齐待办的完成状态: {} 条", todos);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.todolist.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 主键号段表校准
+ *
+ * 实体主键由自增列改为号段分配（MySQL 不支持序列，Hibernate 用 xxx_seq 表模拟），
+ * 新建的号段表从 1 开始，会与已有数据的主键冲突。
+ * 启动时在处理任何请求之前，把每个号段表的 next_val 推到已有最大ID之后，保证旧ID不变、新ID不重复。
+ * 只会向上调整，多实例同时启动或重复执行都是安全的
+ *
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+@Component
+public class IdSequenceInitializer implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdSequenceInitializer.class);
+
+    /**
+     * 与实体上 @SequenceGenerator 的 allocationSize 保持一致
+     * pooled 优化器把取到的值当作号段上界，实际分配 [next_val - 49, next_val]
+     */
+    private static final int ALLOCATION_SIZE = 50;
+
+    /**
+     * 号段表与对应数据表
+     */
+    private static final Map<String, String> SEQUENCE_TABLES = new LinkedHashMap<>();
+
+    static {
+        SEQUENCE_TABLES.put("users_seq", "users");
+        SEQUENCE_TABLES.put("topics_seq", "topics");
+        SEQUENCE_TABLES.put("tasks_seq", "tasks");
+        SEQUENCE_TABLES.put("todos_seq", "todos");
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (Map.Entry<String, String> entry : SEQUENCE_TABLES.entrySet()) {
+            String sequenceTable = entry.getKey();
+            String dataTable = entry.getValue();
+            Long maxId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from " + dataTable, Long.class);
+            long floor = (maxId != null ? maxId : 0L) + ALLOCATION_SIZE + 1;
+            int updated = jdbcTemplate.update(
+                "update " + sequenceTable + " set next_val = greatest(next_val, ?)", floor);
+            if (updated == 0) {
+                jdbcTemplate.update("insert into " + sequenceTable + " (next_val) values (?)", floor);
+            }
+            logger.debug("主键号段表 {} 已校准，当前最大ID {}", sequenceTable, maxId);
+        }
+    }
+}
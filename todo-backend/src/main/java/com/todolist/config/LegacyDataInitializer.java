@@ -0,0 +1,44 @@
+package com.todolist.config;
+
+import com.todolist.repository.TopicRepository;
+import com.todolist.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * 历史数据修复
+ * 
+ * 早期版本创建主题和用户时没有写入 created_at，
+ * 启动时为这些记录补齐时间戳，保证游标分页的排序键 (created_at, id) 完整
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+@Component
+public class LegacyDataInitializer implements ApplicationRunner {
+    
+    private static final Logger logger = LoggerFactory.getLogger(LegacyDataInitializer.class);
+    
+    @Autowired
+    private TopicRepository topicRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Override
+    public void run(ApplicationArguments args) {
+        LocalDateTime now = LocalDateTime.now();
+        int topics = topicRepository.backfillMissingCreatedAt(now);
+        int users = userRepository.backfillMissingCreatedAt(now);
+        if (topics > 0 || users > 0) {
+            logger.info("已补齐缺失的创建时间: 主题 {} 条, 用户 {} 条", topics, users);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.todolist.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 任务、待办所属用户列补齐
+ *
+ * tasks.user_id 和 todos.user_id 是所属主题 user_id 的冗余副本，供条件查询的 (user_id, ...) 复合索引使用，
+ * 新记录在创建时写入。加列之前创建的记录该列为空，查不到；启动时在处理任何请求之前按主题补齐。
+ * 只更新为空的行（走索引前缀 user_id is null），补齐之后再次启动只是两次空查询，多实例同时执行也是安全的
+ *
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+@Component
+public class OwnerColumnInitializer implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(OwnerColumnInitializer.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        int tasks = jdbcTemplate.update(
+            "update tasks k join topics p on p.id = k.topic_id set k.user_id = p.user_id where k.user_id is null");
+        int todos = jdbcTemplate.update(
+            "update todos d join tasks k on k.id = d.task_id set d.user_id = k.user_id where d.user_id is null");
+        if (tasks > 0 || todos > 0) {
+            logger.info("已补齐任务、待办的所属用户: 任务 {} 条, 待办 {} 条", tasks, todos);
+        }
+    }
+}
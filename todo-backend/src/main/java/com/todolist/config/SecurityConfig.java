@@ -1,6 +1,7 @@
 package com.todolist.config;
 
 import com.todolist.filter.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -29,10 +30,14 @@ public class SecurityConfig {
             .csrf(csrf -> csrf.disable())
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(authz -> authz
+                // 流式响应结束后的异步分派不再携带 JWT，原请求已经过认证
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 // 允许无认证访问的路径
                 .requestMatchers("/api/users/login", "/api/users/register").permitAll()
                 .requestMatchers("/api/users/check-auth").permitAll()
                 .requestMatchers("/swagger-ui/**", "/api-docs/**", "/v3/api-docs/**").permitAll()
+                // 全量重算等后台作业只允许 admin.usernames 中配置的用户访问
+                .requestMatchers("/api/admin/**").hasRole("ADMIN")
                 // 测试接口需要认证（可选：如果想让测试接口也无需认证，可以添加下面这行）
                 // .requestMatchers("/api/test/**").permitAll()
                 // 其他所有请求都需要认证
@@ -47,7 +52,7 @@ public class SecurityConfig {
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOriginPatterns(Arrays.asList("http://localhost:*", "http://127.0.0.1:*","http://112.74.41.106:5173"));
-        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
+        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
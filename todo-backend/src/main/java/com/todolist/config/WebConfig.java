@@ -1,7 +1,10 @@
 package com.todolist.config;
 
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
@@ -11,9 +14,28 @@ public class WebConfig implements WebMvcConfigurer {
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/api/**")
                 .allowedOrigins("http://localhost:5173", "http://localhost:3000", "http://127.0.0.1:5173","http://112.74.41.106:5173")
-                .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
+                .allowedMethods("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS")
                 .allowedHeaders("*")
                 .allowCredentials(true)
                 .maxAge(3600);
     }
-}
\ No newline at end of file
+    
+    /**
+     * 请求级 EntityManager（Open EntityManager in View）
+     * 定义该 Bean 后 Spring Boot 不再为所有路径注册默认的拦截器，由 addInterceptors 注册并排除长连接
+     */
+    @Bean
+    public OpenEntityManagerInViewInterceptor openEntityManagerInViewInterceptor() {
+        return new OpenEntityManagerInViewInterceptor();
+    }
+    
+    /**
+     * SSE 事件流的请求在连接期间一直不结束，绑定的 EntityManager 会一直占用一个数据库连接，
+     * 几十个订阅就会耗尽连接池，因此事件流不使用请求级 EntityManager
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addWebRequestInterceptor(openEntityManagerInViewInterceptor())
+                .excludePathPatterns("/api/events/**");
+    }
+}
@@ -0,0 +1,46 @@
+package com.todolist.controller;
+
+import com.todolist.dto.RollupRecomputeResult;
+import com.todolist.service.ProgressRollupService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 运维管理控制器
+ *
+ * 提供数据维护类的后台作业入口，例如汇总计数的全量重算。
+ * 只有 admin.usernames 中配置的用户拥有管理员角色，默认没有用户可以访问
+ *
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+@RestController
+@RequestMapping("/api/admin")
+@Tag(name = "运维管理", description = "数据维护相关的后台作业")
+public class AdminController {
+
+    @Autowired
+    private ProgressRollupService progressRollupService;
+
+    /**
+     * 根据待办事项全量重算任务和主题的进度汇总计数
+     *
+     * @return RollupRecomputeResult 重算结果统计
+     */
+    @PostMapping("/rollups/recompute")
+    @Operation(summary = "重算进度汇总计数", description = "按主键区间并行、分批重算所有任务和主题的 todoCount / completedCount / progressSum，用于修复计数漂移")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "重算完成"),
+            @ApiResponse(responseCode = "403", description = "当前用户不是管理员"),
+            @ApiResponse(responseCode = "409", description = "已有重算任务在执行"),
+            @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    public RollupRecomputeResult recomputeRollups() {
+        return progressRollupService.recomputeAll();
+    }
+}
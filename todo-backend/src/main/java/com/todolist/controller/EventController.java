@@ -0,0 +1,59 @@
+package com.todolist.controller;
+
+import com.todolist.entity.User;
+import com.todolist.service.ChangeEventService;
+import com.todolist.service.UserService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * 变更事件控制器
+ * 
+ * 以 Server-Sent Events 向当前用户推送主题、任务和待办的变更通知，
+ * 同一用户在多个标签页或设备上打开时，无需轮询即可得知其他地方的修改
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+@RestController
+@RequestMapping("/api/events")
+@Tag(name = "变更事件", description = "通过 SSE 推送当前用户数据的变更通知")
+public class EventController {
+    
+    @Autowired
+    private ChangeEventService changeEventService;
+    
+    @Autowired
+    private UserService userService;
+    
+    /**
+     * 订阅当前用户的变更事件
+     * 
+     * @param request HTTP请求，用于识别当前用户
+     * @param response HTTP响应，用于关闭反向代理的响应缓冲
+     * @return SseEmitter 事件流：connected 事件表示连接建立，change 事件的数据为变更通知数组
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "订阅变更事件", description = "建立 SSE 连接，当前用户的主题、任务、待办被修改后推送 change 事件，数据为 [{type, id, version, deleted}]；连接断开重连后应调用 /api/sync 补齐期间的变化")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "事件流已建立"),
+            @ApiResponse(responseCode = "401", description = "未登录"),
+            @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    public SseEmitter subscribe(HttpServletRequest request, HttpServletResponse response) {
+        User user = userService.getCurrentUser(request);
+        response.setHeader("X-Accel-Buffering", "no");
+        return changeEventService.subscribe(user.getId());
+    }
+}
@@ -0,0 +1,117 @@
+package com.todolist.controller;
+
+import com.todolist.entity.User;
+import com.todolist.service.ExportService;
+import com.todolist.service.ExportService.ExportFormat;
+import com.todolist.service.UserService;
+import com.todolist.service.TodoWriteBehindBuffer;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 数据导出控制器
+ * 
+ * 负责处理数据导出相关的HTTP请求，导出当前登录用户的全部数据
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+@RestController
+@RequestMapping("/api/export")
+@Tag(name = "数据导出", description = "流式导出专题、任务和待办事项")
+public class ExportController {
+    
+    private static final MediaType MARKDOWN = new MediaType("text", "markdown", StandardCharsets.UTF_8);
+    
+    @Autowired
+    private ExportService exportService;
+    
+    @Autowired
+    private TodoWriteBehindBuffer todoWriteBehindBuffer;
+    
+    @Autowired
+    private UserService userService;
+    
+    /**
+     * 导出当前用户的全部数据
+     * 
+     * @param format 导出格式：json 或 ndjson
+     * @param request HTTP请求，用于识别当前用户
+     * @return ResponseEntity<StreamingResponseBody> 以附件形式流式输出的导出文件
+     */
+    @GetMapping
+    @Operation(summary = "导出全部数据", description = "按 example-data.json 的结构流式导出当前用户的专题、任务和待办；ndjson 格式每行一个专题")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "开始输出导出文件"),
+            @ApiResponse(responseCode = "400", description = "不支持的导出格式"),
+            @ApiResponse(responseCode = "401", description = "未登录"),
+            @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    public ResponseEntity<StreamingResponseBody> export(
+            @Parameter(description = "导出格式：json（默认）或 ndjson", example = "json")
+            @RequestParam(defaultValue = "json") String format,
+            HttpServletRequest request) {
+        ExportFormat exportFormat = ExportFormat.fromParam(format);
+        User user = userService.getCurrentUser(request);
+        ContentDisposition disposition = ContentDisposition.attachment()
+            .filename(user.getUsername() + "_todolist." + exportFormat.getExtension(), StandardCharsets.UTF_8)
+            .build();
+        todoWriteBehindBuffer.flush();
+        StreamingResponseBody body = out -> exportService.export(user, exportFormat, out);
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+            .contentType(exportFormat.getMediaType())
+            .body(body);
+    }
+    
+    /**
+     * 导出 Markdown 文件
+     * 
+     * @param topicId 专题ID，为空时导出全部专题
+     * @param request HTTP请求，用于识别当前用户
+     * @return ResponseEntity<StreamingResponseBody> 以附件形式流式输出的 Markdown 文件
+     */
+    @GetMapping("/markdown")
+    @Operation(summary = "导出Markdown文件", description = "按 MARKDOWN_FORMAT.md 流式导出单个专题或全部专题，导出的文件可直接重新导入")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "开始输出导出文件"),
+            @ApiResponse(responseCode = "401", description = "未登录"),
+            @ApiResponse(responseCode = "404", description = "专题不存在"),
+            @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    public ResponseEntity<StreamingResponseBody> exportMarkdown(
+            @Parameter(description = "专题ID，不传时导出全部专题", example = "1")
+            @RequestParam(required = false) Long topicId,
+            HttpServletRequest request) {
+        User user = userService.getCurrentUser(request);
+        if (topicId != null) {
+            exportService.requireOwnTopic(topicId, user);
+        }
+        String filename = user.getUsername() + (topicId != null ? "_topic_" + topicId : "") + "_todolist.md";
+        ContentDisposition disposition = ContentDisposition.attachment()
+            .filename(filename, StandardCharsets.UTF_8)
+            .build();
+        todoWriteBehindBuffer.flush();
+        StreamingResponseBody body = out -> exportService.exportMarkdown(user, topicId, out);
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+            .contentType(MARKDOWN)
+            .body(body);
+    }
+}
@@ -0,0 +1,119 @@
+package com.todolist.controller;
+
+import com.todolist.dto.ImportResult;
+import com.todolist.dto.TopicDTO;
+import com.todolist.entity.User;
+import com.todolist.exception.BusinessException;
+import com.todolist.exception.ErrorCodes;
+import com.todolist.service.ImportMergeService;
+import com.todolist.service.MarkdownImportService;
+import com.todolist.service.UserService;
+import com.todolist.service.TodoWriteBehindBuffer;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 数据导入控制器
+ * 
+ * 负责处理数据导入相关的HTTP请求，导入的数据归属于当前登录用户
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+@RestController
+@RequestMapping("/api/import")
+@Tag(name = "数据导入", description = "从文件批量导入专题、任务和待办事项")
+public class ImportController {
+    
+    @Autowired
+    private MarkdownImportService markdownImportService;
+    
+    @Autowired
+    private ImportMergeService importMergeService;
+    
+    @Autowired
+    private TodoWriteBehindBuffer todoWriteBehindBuffer;
+    
+    @Autowired
+    private UserService userService;
+    
+    /**
+     * 导入 Markdown 文件
+     * 
+     * @param file Markdown 文件（MARKDOWN_FORMAT.md 规范）
+     * @param mode 导入模式：create 全部新建，merge 按名称合并到现有数据
+     * @param request HTTP请求，用于识别当前用户
+     * @return ImportResult 新建的专题、任务、待办数量及耗时
+     * @throws IOException 读取上传文件失败时抛出
+     */
+    @PostMapping(value = "/markdown", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "导入Markdown文件", description = "服务端逐行解析 # 专题 / ## 任务 / - 待办 结构并在一个事务内分批写入，任何一行出错整体回滚；mode=merge 时按 DATA_MERGE.md 规则合并到现有数据")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "导入成功"),
+            @ApiResponse(responseCode = "400", description = "文件为空或格式错误"),
+            @ApiResponse(responseCode = "401", description = "未登录"),
+            @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    public ImportResult importMarkdown(
+            @Parameter(description = "Markdown 文件（.md / .txt，UTF-8 编码）", required = true)
+            @RequestParam("file") MultipartFile file,
+            @Parameter(description = "导入模式：create（默认）或 merge", example = "create")
+            @RequestParam(defaultValue = "create") String mode,
+            HttpServletRequest request) throws IOException {
+        if (file.isEmpty()) {
+            throw new BusinessException(ErrorCodes.IMPORT_EMPTY_FILE, "上传的文件为空", 400);
+        }
+        boolean merge = "merge".equalsIgnoreCase(mode);
+        if (!merge && !"create".equalsIgnoreCase(mode)) {
+            throw new BusinessException(ErrorCodes.IMPORT_VALIDATION_FAILED, "不支持的导入模式: " + mode, 400);
+        }
+        User user = userService.getCurrentUser(request);
+        if (merge) {
+            todoWriteBehindBuffer.flush();
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
+            return merge
+                ? importMergeService.mergeMarkdown(reader, user)
+                : markdownImportService.importMarkdown(reader, user);
+        }
+    }
+    
+    /**
+     * 合并导入 JSON 数据
+     * 
+     * @param topics 专题列表（example-data.json 中 topics 下的格式，包含任务和待办）
+     * @param request HTTP请求，用于识别当前用户
+     * @return ImportResult 新增和合并的数量及耗时
+     */
+    @PostMapping("/merge")
+    @Operation(summary = "合并导入JSON数据", description = "按 DATA_MERGE.md 规则合并：专题、任务按名称匹配，待办按标题匹配，保留较大进度并覆盖备注，未匹配的新增")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "合并成功"),
+            @ApiResponse(responseCode = "400", description = "数据为空或不合法"),
+            @ApiResponse(responseCode = "401", description = "未登录"),
+            @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    public ImportResult mergeTopics(
+            @Parameter(description = "要合并的专题列表", required = true)
+            @RequestBody List<TopicDTO> topics,
+            HttpServletRequest request) {
+        User user = userService.getCurrentUser(request);
+        todoWriteBehindBuffer.flush();
+        return importMergeService.mergeTopics(topics, user);
+    }
+}
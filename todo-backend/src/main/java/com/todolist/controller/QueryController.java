@@ -0,0 +1,131 @@
+package com.todolist.controller;
+
+import com.todolist.dto.QueryPage;
+import com.todolist.dto.TaskDTO;
+import com.todolist.dto.TodoDTO;
+import com.todolist.entity.User;
+import com.todolist.service.QueryService;
+import com.todolist.service.UserService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import java.time.LocalDateTime;
+
+/**
+ * 条件查询控制器
+ * 
+ * 跨主题按条件筛选、排序当前用户的待办和任务，每个组合都由复合索引支撑；
+ * 不能完全使用索引的组合在响应的 warnings 中说明，strict=true 时直接拒绝
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+@RestController
+@RequestMapping("/api/query")
+@Tag(name = "条件查询", description = "按条件筛选和排序当前用户的待办和任务")
+public class QueryController {
+    
+    @Autowired
+    private QueryService queryService;
+    
+    @Autowired
+    private UserService userService;
+    
+    /**
+     * 按条件查询当前用户的待办
+     * 
+     * @param completed 是否已完成
+     * @param progressMin 最低进度（含）
+     * @param progressMax 最高进度（含）
+     * @param updatedAfter 修改时间下限（含）
+     * @param updatedBefore 修改时间上限（不含）
+     * @param sort 排序字段
+     * @param order 排序方向
+     * @param cursor 上一页返回的 nextCursor
+     * @param limit 每页条数
+     * @param strict 是否拒绝不能完全使用索引的查询
+     * @param request HTTP请求，用于识别当前用户
+     * @return QueryPage<TodoDTO> 当前页数据、下一页游标、使用的索引和警告
+     */
+    @GetMapping("/todos")
+    @Operation(summary = "条件查询待办", description = "按完成状态、进度区间、修改时间区间筛选当前用户全部主题下的待办，按修改时间或进度排序，游标分页。响应中的 index 为使用的索引，warnings 非空表示条件或排序不能由该索引完全覆盖")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "查询成功"),
+            @ApiResponse(responseCode = "400", description = "条件、排序或游标无效，或 strict=true 时查询不能完全使用索引"),
+            @ApiResponse(responseCode = "401", description = "未登录")
+    })
+    public QueryPage<TodoDTO> queryTodos(
+            @Parameter(description = "是否已完成") @RequestParam(required = false) Boolean completed,
+            @Parameter(description = "最低进度（含），0-100", example = "0") @RequestParam(required = false) Integer progressMin,
+            @Parameter(description = "最高进度（含），0-100", example = "49") @RequestParam(required = false) Integer progressMax,
+            @Parameter(description = "修改时间下限（含），ISO 格式", example = "2025-09-01T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedAfter,
+            @Parameter(description = "修改时间上限（不含），ISO 格式")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedBefore,
+            @Parameter(description = "排序字段：updatedAt（默认）、progress", example = "updatedAt") @RequestParam(required = false) String sort,
+            @Parameter(description = "排序方向：asc、desc（默认）", example = "desc") @RequestParam(required = false) String order,
+            @Parameter(description = "上一页返回的 nextCursor，不传时返回第一页") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页条数，默认50，最大200", example = "50") @RequestParam(required = false) Integer limit,
+            @Parameter(description = "为 true 时拒绝不能完全使用索引的查询") @RequestParam(defaultValue = "false") boolean strict,
+            HttpServletRequest request) {
+        User user = userService.getCurrentUser(request);
+        return queryService.queryTodos(user.getId(), completed, progressMin, progressMax, updatedAfter, updatedBefore,
+            sort, order, cursor, limit, strict);
+    }
+    
+    /**
+     * 按条件查询当前用户的任务
+     * 
+     * @param status 任务状态
+     * @param priority 任务优先级
+     * @param dueAfter 截止时间下限（含）
+     * @param dueBefore 截止时间上限（不含）
+     * @param updatedAfter 修改时间下限（含）
+     * @param updatedBefore 修改时间上限（不含）
+     * @param sort 排序字段
+     * @param order 排序方向
+     * @param cursor 上一页返回的 nextCursor
+     * @param limit 每页条数
+     * @param strict 是否拒绝不能完全使用索引的查询
+     * @param request HTTP请求，用于识别当前用户
+     * @return QueryPage<TaskDTO> 当前页数据、下一页游标、使用的索引和警告
+     */
+    @GetMapping("/tasks")
+    @Operation(summary = "条件查询任务", description = "按状态、优先级、截止时间区间、修改时间区间筛选当前用户全部主题下的任务，按修改时间或截止时间排序，游标分页；按截止时间排序时不返回没有截止时间的任务。响应中的 index 为使用的索引，warnings 非空表示条件或排序不能由该索引完全覆盖")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "查询成功"),
+            @ApiResponse(responseCode = "400", description = "条件、排序或游标无效，或 strict=true 时查询不能完全使用索引"),
+            @ApiResponse(responseCode = "401", description = "未登录")
+    })
+    public QueryPage<TaskDTO> queryTasks(
+            @Parameter(description = "任务状态", example = "进行中") @RequestParam(required = false) String status,
+            @Parameter(description = "任务优先级", example = "高") @RequestParam(required = false) String priority,
+            @Parameter(description = "截止时间下限（含），ISO 格式", example = "2025-09-08T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dueAfter,
+            @Parameter(description = "截止时间上限（不含），ISO 格式", example = "2025-09-15T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dueBefore,
+            @Parameter(description = "修改时间下限（含），ISO 格式")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedAfter,
+            @Parameter(description = "修改时间上限（不含），ISO 格式")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedBefore,
+            @Parameter(description = "排序字段：updatedAt（默认）、dueDate", example = "dueDate") @RequestParam(required = false) String sort,
+            @Parameter(description = "排序方向：asc、desc，默认 dueDate 升序、updatedAt 降序") @RequestParam(required = false) String order,
+            @Parameter(description = "上一页返回的 nextCursor，不传时返回第一页") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页条数，默认50，最大200", example = "50") @RequestParam(required = false) Integer limit,
+            @Parameter(description = "为 true 时拒绝不能完全使用索引的查询") @RequestParam(defaultValue = "false") boolean strict,
+            HttpServletRequest request) {
+        User user = userService.getCurrentUser(request);
+        return queryService.queryTasks(user.getId(), status, priority, dueAfter, dueBefore, updatedAfter, updatedBefore,
+            sort, order, cursor, limit, strict);
+    }
+}
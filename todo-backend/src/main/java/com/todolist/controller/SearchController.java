@@ -0,0 +1,65 @@
+package com.todolist.controller;
+
+import com.todolist.dto.SearchResult;
+import com.todolist.entity.User;
+import com.todolist.service.SearchIndexService;
+import com.todolist.service.UserService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 全文搜索控制器
+ * 
+ * 在当前用户的主题、任务和待办中按关键词搜索，由内存倒排索引直接返回排序后的结果和片段，
+ * 客户端不必加载全部数据再自行过滤
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+@RestController
+@RequestMapping("/api/search")
+@Tag(name = "全文搜索", description = "搜索当前用户的主题、任务和待办")
+public class SearchController {
+    
+    @Autowired
+    private SearchIndexService searchIndexService;
+    
+    @Autowired
+    private UserService userService;
+    
+    /**
+     * 搜索当前用户的主题、任务和待办
+     * 
+     * @param q 搜索关键词
+     * @param limit 返回的结果数
+     * @param request HTTP请求，用于识别当前用户
+     * @return SearchResult 匹配总数和按相关度排序的结果
+     */
+    @GetMapping
+    @Operation(summary = "全文搜索", description = "在主题名称和描述、任务标题和描述、待办标题、内容和备注中搜索，中文按单字和相邻两字匹配，多个关键词同时命中才返回，按相关度排序并附带命中片段")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "搜索成功"),
+            @ApiResponse(responseCode = "400", description = "搜索关键词为空"),
+            @ApiResponse(responseCode = "401", description = "未登录"),
+            @ApiResponse(responseCode = "503", description = "搜索未开启或索引正在构建")
+    })
+    public SearchResult search(
+            @Parameter(description = "搜索关键词", required = true, example = "学习")
+            @RequestParam String q,
+            @Parameter(description = "返回的结果数，1-100", example = "20")
+            @RequestParam(defaultValue = "20") int limit,
+            HttpServletRequest request) {
+        User user = userService.getCurrentUser(request);
+        return searchIndexService.search(user.getId(), q, limit);
+    }
+}
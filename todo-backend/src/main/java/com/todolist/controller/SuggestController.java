@@ -0,0 +1,69 @@
+package com.todolist.controller;
+
+import com.todolist.dto.Suggestion;
+import com.todolist.entity.User;
+import com.todolist.service.NameSuggestService;
+import com.todolist.service.UserService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import java.util.List;
+
+/**
+ * 名称补全控制器
+ * 
+ * 创建、编辑主题和任务时按已输入的前缀提示已有的名称，由内存中的名称有序表直接返回，
+ * 每次按键不需要查询数据库
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+@RestController
+@RequestMapping("/api/suggest")
+@Tag(name = "名称补全", description = "按前缀提示当前用户的主题和任务名称")
+public class SuggestController {
+    
+    @Autowired
+    private NameSuggestService nameSuggestService;
+    
+    @Autowired
+    private UserService userService;
+    
+    /**
+     * 名称以指定前缀开头的主题和任务
+     * 
+     * @param prefix 名称前缀
+     * @param type 只返回主题（topic）或任务（task）
+     * @param limit 返回的结果数
+     * @param request HTTP请求，用于识别当前用户
+     * @return List<Suggestion> 按名称排序的补全建议
+     */
+    @GetMapping
+    @Operation(summary = "名称补全", description = "返回名称以指定前缀开头的主题和任务，不区分大小写，按名称排序，较短的名称在前")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "获取成功"),
+            @ApiResponse(responseCode = "400", description = "前缀为空或类型无效"),
+            @ApiResponse(responseCode = "401", description = "未登录"),
+            @ApiResponse(responseCode = "503", description = "补全未开启或名称正在加载")
+    })
+    public List<Suggestion> suggest(
+            @Parameter(description = "名称前缀", required = true, example = "学习")
+            @RequestParam String prefix,
+            @Parameter(description = "只返回主题（topic）或任务（task），不传时两者都返回", example = "topic")
+            @RequestParam(required = false) String type,
+            @Parameter(description = "返回的结果数，1-50", example = "10")
+            @RequestParam(defaultValue = "10") int limit,
+            HttpServletRequest request) {
+        User user = userService.getCurrentUser(request);
+        return nameSuggestService.suggest(user.getId(), prefix, type, limit);
+    }
+}
@@ -0,0 +1,66 @@
+package com.todolist.controller;
+
+import com.todolist.dto.SyncResult;
+import com.todolist.entity.User;
+import com.todolist.service.SyncService;
+import com.todolist.service.UserService;
+import com.todolist.service.TodoWriteBehindBuffer;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 增量同步控制器
+ * 
+ * 客户端在本地缓存当前用户的主题、任务和待办，每次只拉取上次同步之后的变化，
+ * 不必在每次修改或进入页面时重新加载整个工作区
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+@RestController
+@RequestMapping("/api/sync")
+@Tag(name = "增量同步", description = "按同步序号拉取主题、任务和待办的变化")
+public class SyncController {
+    
+    @Autowired
+    private SyncService syncService;
+    
+    @Autowired
+    private TodoWriteBehindBuffer todoWriteBehindBuffer;
+    
+    @Autowired
+    private UserService userService;
+    
+    /**
+     * 获取当前用户自指定同步序号之后的变化
+     * 
+     * @param since 上次同步返回的 seq，首次同步传 0
+     * @param request HTTP请求，用于识别当前用户
+     * @return SyncResult 新建或修改的记录、删除的记录ID和新的同步序号
+     */
+    @GetMapping
+    @Operation(summary = "增量同步", description = "返回同步序号大于 since 的新建、修改和删除的主题、任务、待办；since 为 0 或已失效时返回全量数据并置 fullResync")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "成功获取变化"),
+            @ApiResponse(responseCode = "401", description = "未登录"),
+            @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    public SyncResult sync(
+            @Parameter(description = "上次同步返回的 seq，首次同步传 0", example = "0")
+            @RequestParam(defaultValue = "0") long since,
+            HttpServletRequest request) {
+        User user = userService.getCurrentUser(request);
+        todoWriteBehindBuffer.flush();
+        return syncService.sync(user.getId(), since);
+    }
+}
@@ -1,10 +1,14 @@
 package com.todolist.controller;
 
+import com.todolist.dto.BulkOperationResult;
+import com.todolist.dto.CursorPage;
 import com.todolist.dto.TaskDTO;
 import com.todolist.dto.TodoDTO;
 import com.todolist.entity.Task;
 import com.todolist.entity.Todo;
 import com.todolist.service.TaskService;
+import com.todolist.service.TodoWriteBehindBuffer;
+import com.todolist.util.ETags;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -13,8 +17,10 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -35,46 +41,98 @@ public class TaskController {
     @Autowired
     private TaskService taskService;
     
+    @Autowired
+    private TodoWriteBehindBuffer todoWriteBehindBuffer;
+    
     /**
      * 根据主题ID获取该主题下的所有任务
      * 
      * @param topicId 主题ID
+     * @param webRequest 当前请求，If-None-Match 与当前 ETag 相同时返回 304
      * @return List<TaskDTO> 该主题下的任务列表
      */
     @GetMapping("/topic/{topicId}")
     @Operation(summary = "获取主题下的所有任务", description = "根据主题ID获取该主题下的所有任务列表")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "成功获取任务列表"),
+            @ApiResponse(responseCode = "304", description = "内容未修改（If-None-Match 与当前 ETag 相同）"),
             @ApiResponse(responseCode = "404", description = "主题不存在"),
             @ApiResponse(responseCode = "500", description = "服务器内部错误")
     })
     public List<TaskDTO> getTasksByTopicId(
             @Parameter(description = "主题ID", required = true, example = "1")
-            @PathVariable Long topicId) {
-        List<Task> tasks = taskService.getTasksByTopicId(topicId);
-        return tasks.stream()
-            .map(this::convertToDTO)
-            .collect(Collectors.toList());
+            @PathVariable Long topicId,
+            WebRequest webRequest) {
+        if (ETags.checkNotModified(webRequest, taskService.getTasksETag(topicId, null, null))) {
+            return null;
+        }
+        return taskService.getTasksByTopicId(topicId);
+    }
+    
+    /**
+     * 获取主题下的任务（游标分页）
+     * 
+     * @param topicId 主题ID
+     * @param cursor 上一页返回的 nextCursor，为空时返回第一页
+     * @param limit 每页条数，默认50，最大200
+     * @param webRequest 当前请求，If-None-Match 与当前 ETag 相同时返回 304
+     * @return CursorPage<TaskDTO> 当前页数据及下一页游标
+     */
+    @GetMapping("/topic/{topicId}/page")
+    @Operation(summary = "获取主题下的任务（分页）", description = "按 (创建时间, ID) 键集分页获取主题下的任务，翻页深度不影响查询开销")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "成功获取任务分页"),
+            @ApiResponse(responseCode = "304", description = "内容未修改（If-None-Match 与当前 ETag 相同）"),
+            @ApiResponse(responseCode = "400", description = "分页游标无效"),
+            @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    public CursorPage<TaskDTO> getTasksPageByTopicId(
+            @Parameter(description = "主题ID", required = true, example = "1")
+            @PathVariable Long topicId,
+            @Parameter(description = "上一页返回的游标，为空时返回第一页")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页条数，默认50，最大200", example = "50")
+            @RequestParam(required = false) Integer limit,
+            WebRequest webRequest) {
+        if (ETags.checkNotModified(webRequest, taskService.getTasksETag(topicId, cursor, limit))) {
+            return null;
+        }
+        return taskService.getTasksPageByTopicId(topicId, cursor, limit);
     }
     
     /**
      * 根据ID获取特定任务
      * 
+     * 通过 include=todos 可在同一次请求中返回该任务的待办事项
+     * 
      * @param id 任务ID
+     * @param include 需要一并加载的关联数据
+     * @param webRequest 当前请求，If-None-Match 与当前 ETag 相同时返回 304
      * @return ResponseEntity<TaskDTO> 包含任务信息的响应实体，如果任务不存在则返回404
      */
     @GetMapping("/{id}")
-    @Operation(summary = "根据ID获取任务", description = "根据任务ID获取特定任务的详细信息")
+    @Operation(summary = "根据ID获取任务", description = "根据任务ID获取特定任务的详细信息，可通过include参数同时获取待办事项")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "成功获取任务信息"),
+            @ApiResponse(responseCode = "304", description = "内容未修改（If-None-Match 与当前 ETag 相同）"),
             @ApiResponse(responseCode = "404", description = "任务不存在"),
             @ApiResponse(responseCode = "500", description = "服务器内部错误")
     })
     public ResponseEntity<TaskDTO> getTaskById(
             @Parameter(description = "任务ID", required = true, example = "1")
-            @PathVariable Long id) {
-        Optional<Task> task = taskService.getTaskById(id);
-        return task.map(t -> ResponseEntity.ok(convertToDTO(t)))
+            @PathVariable Long id,
+            @Parameter(description = "需要一并加载的关联数据，可选值：todos", example = "todos")
+            @RequestParam(required = false) Set<String> include,
+            WebRequest webRequest) {
+        boolean includeTodos = include != null && include.contains("todos");
+        if (ETags.checkNotModified(webRequest, taskService.getTaskETag(id, includeTodos))) {
+            return null;
+        }
+        
+        Optional<Task> task = includeTodos
+            ? taskService.getTaskWithTodos(id)
+            : taskService.getTaskById(id);
+        return task.map(t -> ResponseEntity.ok(convertToDTO(t, includeTodos)))
                    .orElse(ResponseEntity.notFound().build());
     }
     
@@ -108,6 +166,7 @@ public class TaskController {
      * 
      * @param id 要更新的任务ID
      * @param taskDTO 新的任务信息
+     * @param ifMatch 期望的版本号，为空时不做版本校验
      * @return ResponseEntity<TaskDTO> 更新后的任务信息
      */
     @PutMapping("/{id}")
@@ -116,13 +175,16 @@ public class TaskController {
             @ApiResponse(responseCode = "200", description = "成功更新任务信息"),
             @ApiResponse(responseCode = "404", description = "任务不存在"),
             @ApiResponse(responseCode = "400", description = "请求参数错误"),
+            @ApiResponse(responseCode = "412", description = "If-Match 与当前版本不符"),
             @ApiResponse(responseCode = "500", description = "服务器内部错误")
     })
     public ResponseEntity<TaskDTO> updateTask(
             @Parameter(description = "任务ID", required = true, example = "1")
             @PathVariable Long id, 
             @Parameter(description = "新的任务信息", required = true)
-            @RequestBody TaskDTO taskDTO) {
+            @RequestBody TaskDTO taskDTO,
+            @Parameter(description = "期望的版本号，即 GET 返回的 ETag 或 DTO 中的 version（带引号，如 \"3\"），与当前版本不符时返回 412")
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
         Optional<Task> existingTask = taskService.getTaskById(id);
         if (existingTask.isPresent()) {
             Task task = existingTask.get();
@@ -131,36 +193,156 @@ public class TaskController {
             task.setStatus(taskDTO.getStatus());
             task.setPriority(taskDTO.getPriority());
             task.setDueDate(taskDTO.getDueDate());
-            Task updatedTask = taskService.updateTask(task);
+            Task updatedTask = taskService.updateTask(task, ETags.parseIfMatch(ifMatch));
             return ResponseEntity.ok(convertToDTO(updatedTask));
         }
         return ResponseEntity.notFound().build();
     }
     
+    /**
+     * 部分更新任务
+     * 
+     * @param id 任务ID
+     * @param taskDTO 要修改的字段，未提供（null）的字段保持不变
+     * @param ifMatch 期望的版本号，为空时不做版本校验
+     * @return ResponseEntity<Void> 更新成功返回204状态码，响应头包含新的 ETag
+     */
+    @PatchMapping("/{id}")
+    @Operation(summary = "部分更新任务", description = "只更新请求中提供的字段（title、description、status、priority、dueDate），执行一条只包含这些列的 UPDATE 语句")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "成功更新任务"),
+            @ApiResponse(responseCode = "400", description = "字段不合法或没有需要更新的字段"),
+            @ApiResponse(responseCode = "404", description = "任务不存在"),
+            @ApiResponse(responseCode = "412", description = "If-Match 与当前版本不符"),
+            @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    public ResponseEntity<Void> patchTask(
+            @Parameter(description = "任务ID", required = true, example = "1")
+            @PathVariable Long id,
+            @Parameter(description = "要修改的字段", required = true)
+            @RequestBody TaskDTO taskDTO,
+            @Parameter(description = "期望的版本号，即 GET 返回的 ETag 或 DTO 中的 version（带引号，如 \"3\"），与当前版本不符时返回 412")
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        Long version = taskService.patchTask(id, taskDTO, ETags.parseIfMatch(ifMatch));
+        return ResponseEntity.noContent().eTag(ETags.strong(version)).build();
+    }
+    
+    /**
+     * 完成任务下的全部待办
+     * 
+     * @param id 任务ID
+     * @return BulkOperationResult 实际被修改的待办数量
+     */
+    @PostMapping("/{id}/todos:complete-all")
+    @Operation(summary = "完成任务下的全部待办", description = "一条语句把任务下所有待办标记为已完成并把进度设为100，同步 isCompleted 和 completed")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "操作成功"),
+            @ApiResponse(responseCode = "404", description = "任务不存在"),
+            @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    public BulkOperationResult completeAllTodos(
+            @Parameter(description = "任务ID", required = true, example = "1")
+            @PathVariable Long id) {
+        todoWriteBehindBuffer.flush();
+        return taskService.completeAllTodos(id);
+    }
+    
+    /**
+     * 重置任务下的全部待办
+     * 
+     * @param id 任务ID
+     * @return BulkOperationResult 实际被修改的待办数量
+     */
+    @PostMapping("/{id}/todos:reset")
+    @Operation(summary = "重置任务下的全部待办", description = "一条语句把任务下所有待办重置为未完成、进度0，同步 isCompleted 和 completed")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "操作成功"),
+            @ApiResponse(responseCode = "404", description = "任务不存在"),
+            @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    public BulkOperationResult resetTodos(
+            @Parameter(description = "任务ID", required = true, example = "1")
+            @PathVariable Long id) {
+        todoWriteBehindBuffer.flush();
+        return taskService.resetTodos(id);
+    }
+    
+    /**
+     * 删除任务下已完成的待办
+     * 
+     * @param id 任务ID
+     * @return BulkOperationResult 被删除的待办数量
+     */
+    @PostMapping("/{id}/todos:delete-completed")
+    @Operation(summary = "删除任务下已完成的待办", description = "一条语句删除任务下所有已完成的待办")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "操作成功"),
+            @ApiResponse(responseCode = "404", description = "任务不存在"),
+            @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    public BulkOperationResult deleteCompletedTodos(
+            @Parameter(description = "任务ID", required = true, example = "1")
+            @PathVariable Long id) {
+        todoWriteBehindBuffer.flush();
+        return taskService.deleteCompletedTodos(id);
+    }
+    
     /**
      * 删除任务
      * 
      * @param id 要删除的任务ID
+     * @param ifMatch 期望的版本号，为空时不做版本校验
      * @return ResponseEntity<Void> 删除成功返回204状态码
      */
     @DeleteMapping("/{id}")
-    @Operation(summary = "删除任务", description = "根据任务ID删除任务及其所有相关待办事项")
+    @Operation(summary = "删除任务", description = "根据任务ID删除任务及其所有相关待办事项；只写入删除标记，保留期内可通过恢复接口找回")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "成功删除任务"),
             @ApiResponse(responseCode = "404", description = "任务不存在"),
+            @ApiResponse(responseCode = "412", description = "If-Match 与当前版本不符"),
             @ApiResponse(responseCode = "500", description = "服务器内部错误")
     })
     public ResponseEntity<Void> deleteTask(
             @Parameter(description = "任务ID", required = true, example = "1")
-            @PathVariable Long id) {
-        boolean deleted = taskService.deleteTask(id);
+            @PathVariable Long id,
+            @Parameter(description = "期望的版本号，即 GET 返回的 ETag 或 DTO 中的 version（带引号，如 \"3\"），与当前版本不符时返回 412")
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        boolean deleted = taskService.deleteTask(id, ETags.parseIfMatch(ifMatch));
         return deleted ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
     }
     
+    /**
+     * 恢复已删除的任务
+     * 
+     * @param id 任务ID
+     * @return ResponseEntity<Void> 恢复成功返回204状态码
+     */
+    @PostMapping("/{id}/restore")
+    @Operation(summary = "恢复任务", description = "恢复保留期内删除的任务；所属主题已删除时不能恢复")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "成功恢复任务"),
+            @ApiResponse(responseCode = "404", description = "任务不在回收站中或已超过保留期限"),
+            @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    public ResponseEntity<Void> restoreTask(
+            @Parameter(description = "任务ID", required = true, example = "1")
+            @PathVariable Long id) {
+        taskService.restoreTask(id);
+        return ResponseEntity.noContent().build();
+    }
+    
     /**
      * 将 Task 实体转换为 TaskDTO
      */
     private TaskDTO convertToDTO(Task task) {
+        return convertToDTO(task, false);
+    }
+    
+    /**
+     * 将 Task 实体转换为 TaskDTO，并按需包含待办事项
+     * 待办集合需要事先通过 fetch join 加载，避免在转换时懒加载
+     */
+    private TaskDTO convertToDTO(Task task, boolean includeTodos) {
         TaskDTO dto = new TaskDTO();
         dto.setId(task.getId());
         dto.setTitle(task.getTitle());
@@ -170,20 +352,22 @@ public class TaskController {
         dto.setDueDate(task.getDueDate());
         dto.setCreatedAt(task.getCreatedAt());
         dto.setUpdatedAt(task.getUpdatedAt());
+        dto.setVersion(task.getVersion());
+        dto.setTodoCount(task.getTodoCount());
+        dto.setCompletedCount(task.getCompletedCount());
+        dto.setProgressSum(task.getProgressSum());
         
         // 安全地获取主题ID
         if (task.getTopic() != null) {
             dto.setTopicId(task.getTopic().getId());
         }
         
-        // 如果需要包含待办事项列表，可以在这里添加
-        // 但建议在需要时才加载，避免性能问题
-        // if (task.getTodos() != null) {
-        //     List<TodoDTO> todoDTOs = task.getTodos().stream()
-        //         .map(this::convertTodoToDTO)
-        //         .collect(Collectors.toList());
-        //     dto.setTodos(todoDTOs);
-        // }
+        if (includeTodos && task.getTodos() != null) {
+            List<TodoDTO> todoDTOs = task.getTodos().stream()
+                .map(this::convertTodoToDTO)
+                .collect(Collectors.toList());
+            dto.setTodos(todoDTOs);
+        }
         
         return dto;
     }
@@ -204,16 +388,21 @@ public class TaskController {
     }
     
     /**
-     * 将 Todo 实体转换为 TodoDTO（如果需要）
+     * 将 Todo 实体转换为 TodoDTO
      */
     private TodoDTO convertTodoToDTO(Todo todo) {
         TodoDTO dto = new TodoDTO();
         dto.setId(todo.getId());
+        dto.setTitle(todo.getTitle());
         dto.setContent(todo.getContent());
         dto.setIsCompleted(todo.getIsCompleted());
+        dto.setCompleted(todo.getCompleted());
+        dto.setProgress(todo.getProgress());
+        dto.setNote(todo.getNote());
         dto.setCompletedAt(todo.getCompletedAt());
         dto.setCreatedAt(todo.getCreatedAt());
         dto.setUpdatedAt(todo.getUpdatedAt());
+        dto.setVersion(todo.getVersion());
         
         if (todo.getTask() != null) {
             dto.setTaskId(todo.getTask().getId());
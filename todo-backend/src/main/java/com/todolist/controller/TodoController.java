@@ -1,19 +1,27 @@
 package com.todolist.controller;
 
+import com.todolist.dto.CursorPage;
+import com.todolist.dto.ProgressIncrementRequest;
+import com.todolist.dto.TodoProgressDTO;
 import com.todolist.dto.TodoDTO;
 import com.todolist.entity.Todo;
 import com.todolist.service.TodoService;
+import com.todolist.service.TodoWriteBehindBuffer;
+import com.todolist.util.ETags;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
  * 待办事项控制器
@@ -33,44 +41,112 @@ public class TodoController {
     @Autowired
     private TodoService todoService;
     
+    @Autowired
+    private TodoWriteBehindBuffer todoWriteBehindBuffer;
+    
     /**
      * 根据任务ID获取该任务下的所有待办事项
      * 
      * @param taskId 任务ID
+     * @param webRequest 当前请求，If-None-Match 与当前 ETag 相同时返回 304
      * @return List<TodoDTO> 该任务下的待办事项列表
      */
     @GetMapping("/task/{taskId}")
     @Operation(summary = "获取任务下的所有待办事项", description = "根据任务ID获取该任务下的所有待办事项列表")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "成功获取待办事项列表"),
+            @ApiResponse(responseCode = "304", description = "内容未修改（If-None-Match 与当前 ETag 相同）"),
             @ApiResponse(responseCode = "404", description = "任务不存在"),
             @ApiResponse(responseCode = "500", description = "服务器内部错误")
     })
     public List<TodoDTO> getTodosByTaskId(
             @Parameter(description = "任务ID", required = true, example = "1")
-            @PathVariable Long taskId) {
-        List<Todo> todos = todoService.getTodosByTaskId(taskId);
-        return todos.stream()
-            .map(this::convertToDTO)
-            .collect(Collectors.toList());
+            @PathVariable Long taskId,
+            WebRequest webRequest) {
+        if (ETags.checkNotModified(webRequest, todoService.getTodosETag(taskId, null, null))) {
+            return null;
+        }
+        return todoService.getTodosByTaskId(taskId);
+    }
+    
+    /**
+     * 获取任务下的待办事项（游标分页）
+     * 
+     * @param taskId 任务ID
+     * @param cursor 上一页返回的 nextCursor，为空时返回第一页
+     * @param limit 每页条数，默认50，最大200
+     * @param webRequest 当前请求，If-None-Match 与当前 ETag 相同时返回 304
+     * @return CursorPage<TodoDTO> 当前页数据及下一页游标
+     */
+    @GetMapping("/task/{taskId}/page")
+    @Operation(summary = "获取任务下的待办事项（分页）", description = "按 (创建时间, ID) 键集分页获取任务下的待办事项，翻页深度不影响查询开销")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "成功获取待办事项分页"),
+            @ApiResponse(responseCode = "304", description = "内容未修改（If-None-Match 与当前 ETag 相同）"),
+            @ApiResponse(responseCode = "400", description = "分页游标无效"),
+            @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    public CursorPage<TodoDTO> getTodosPageByTaskId(
+            @Parameter(description = "任务ID", required = true, example = "1")
+            @PathVariable Long taskId,
+            @Parameter(description = "上一页返回的游标，为空时返回第一页")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页条数，默认50，最大200", example = "50")
+            @RequestParam(required = false) Integer limit,
+            WebRequest webRequest) {
+        if (ETags.checkNotModified(webRequest, todoService.getTodosETag(taskId, cursor, limit))) {
+            return null;
+        }
+        return todoService.getTodosPageByTaskId(taskId, cursor, limit);
+    }
+    
+    /**
+     * 批量获取多个任务下的待办事项
+     * 
+     * @param taskIds 任务ID列表，逗号分隔
+     * @param webRequest 当前请求，If-None-Match 与当前 ETag 相同时返回 304
+     * @return Map<Long, List<TodoDTO>> 按任务ID分组的待办事项列表
+     */
+    @GetMapping
+    @Operation(summary = "批量获取多个任务的待办事项", description = "根据逗号分隔的任务ID列表一次性获取待办事项，结果按任务ID分组")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "成功获取待办事项"),
+            @ApiResponse(responseCode = "304", description = "内容未修改（If-None-Match 与当前 ETag 相同）"),
+            @ApiResponse(responseCode = "400", description = "任务ID为空或数量超过上限"),
+            @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    public Map<Long, List<TodoDTO>> getTodosByTaskIds(
+            @Parameter(description = "任务ID列表，逗号分隔，最多500个", required = true, example = "1,2,3")
+            @RequestParam List<Long> taskIds,
+            WebRequest webRequest) {
+        if (ETags.checkNotModified(webRequest, todoService.getTodosETag(taskIds))) {
+            return null;
+        }
+        return todoService.getTodosByTaskIds(taskIds);
     }
     
     /**
      * 根据ID获取特定待办事项
      * 
      * @param id 待办事项ID
+     * @param webRequest 当前请求，If-None-Match 与当前 ETag 相同时返回 304
      * @return ResponseEntity<TodoDTO> 包含待办事项信息的响应实体，如果待办事项不存在则返回404
      */
     @GetMapping("/{id}")
     @Operation(summary = "根据ID获取待办事项", description = "根据待办事项ID获取特定待办事项的详细信息")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "成功获取待办事项信息"),
+            @ApiResponse(responseCode = "304", description = "内容未修改（If-None-Match 与当前 ETag 相同）"),
             @ApiResponse(responseCode = "404", description = "待办事项不存在"),
             @ApiResponse(responseCode = "500", description = "服务器内部错误")
     })
     public ResponseEntity<TodoDTO> getTodoById(
             @Parameter(description = "待办事项ID", required = true, example = "1")
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            WebRequest webRequest) {
+        if (ETags.checkNotModified(webRequest, todoService.getTodoETag(id))) {
+            return null;
+        }
         Optional<Todo> todo = todoService.getTodoById(id);
         return todo.map(t -> ResponseEntity.ok(convertToDTO(t)))
                    .orElse(ResponseEntity.notFound().build());
@@ -101,11 +177,44 @@ public class TodoController {
         return convertToDTO(savedTodo);
     }
     
+    /**
+     * 在指定任务下批量创建待办事项
+     * 
+     * @param taskId 任务ID
+     * @param todoDTOs 要创建的待办事项列表
+     * @return List<TodoDTO> 创建成功的待办事项列表（顺序与请求一致）
+     */
+    @PostMapping("/task/{taskId}/batch")
+    @Operation(summary = "批量创建待办事项", description = "在指定任务下一次性创建多个待办事项，全部成功或全部失败；校验失败时在 data 中逐项返回错误")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "成功创建全部待办事项"),
+            @ApiResponse(responseCode = "400", description = "存在不合法的项或数量超过上限"),
+            @ApiResponse(responseCode = "404", description = "任务不存在"),
+            @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    public List<TodoDTO> createTodos(
+            @Parameter(description = "任务ID", required = true, example = "1")
+            @PathVariable Long taskId,
+            @Parameter(description = "待办事项列表，最多1000个", required = true)
+            @RequestBody List<TodoDTO> todoDTOs) {
+        List<Todo> todos = new ArrayList<>(todoDTOs.size());
+        for (TodoDTO todoDTO : todoDTOs) {
+            todos.add(todoDTO == null ? null : convertToEntity(todoDTO));
+        }
+        List<Todo> savedTodos = todoService.createTodos(todos, taskId);
+        List<TodoDTO> result = new ArrayList<>(savedTodos.size());
+        for (Todo savedTodo : savedTodos) {
+            result.add(convertToDTO(savedTodo));
+        }
+        return result;
+    }
+    
     /**
      * 更新待办事项信息
      * 
      * @param id 要更新的待办事项ID
      * @param todoDTO 新的待办事项信息
+     * @param ifMatch 期望的版本号，为空时不做版本校验
      * @return ResponseEntity<TodoDTO> 更新后的待办事项信息
      */
     @PutMapping("/{id}")
@@ -114,45 +223,126 @@ public class TodoController {
             @ApiResponse(responseCode = "200", description = "成功更新待办事项信息"),
             @ApiResponse(responseCode = "404", description = "待办事项不存在"),
             @ApiResponse(responseCode = "400", description = "请求参数错误"),
+            @ApiResponse(responseCode = "412", description = "If-Match 与当前版本不符"),
             @ApiResponse(responseCode = "500", description = "服务器内部错误")
     })
     public ResponseEntity<TodoDTO> updateTodo(
             @Parameter(description = "待办事项ID", required = true, example = "1")
             @PathVariable Long id, 
             @Parameter(description = "新的待办事项信息", required = true)
-            @RequestBody TodoDTO todoDTO) {
+            @RequestBody TodoDTO todoDTO,
+            @Parameter(description = "期望的版本号，即 GET 返回的 ETag 或 DTO 中的 version（带引号，如 \"3\"），与当前版本不符时返回 412")
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
         Optional<Todo> existingTodo = todoService.getTodoById(id);
         if (existingTodo.isPresent()) {
             Todo todo = existingTodo.get();
             todo.setContent(todoDTO.getContent());
             todo.setIsCompleted(todoDTO.getIsCompleted());
             todo.setCompletedAt(todoDTO.getCompletedAt());
-            Todo updatedTodo = todoService.updateTodo(todo);
+            Todo updatedTodo = todoService.updateTodo(todo, ETags.parseIfMatch(ifMatch));
             return ResponseEntity.ok(convertToDTO(updatedTodo));
         }
         return ResponseEntity.notFound().build();
     }
     
+    /**
+     * 部分更新待办事项
+     * 
+     * @param id 待办事项ID
+     * @param todoDTO 要修改的字段，未提供（null）的字段保持不变
+     * @param ifMatch 期望的版本号，为空时不做版本校验
+     * @return ResponseEntity<Void> 更新成功返回204状态码，响应头包含新的 ETag
+     */
+    @PatchMapping("/{id}")
+    @Operation(summary = "部分更新待办事项", description = "只更新请求中提供的字段（title、content、note、progress、isCompleted、completedAt），执行一条只包含这些列的 UPDATE 语句")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "成功更新待办事项"),
+            @ApiResponse(responseCode = "400", description = "字段不合法或没有需要更新的字段"),
+            @ApiResponse(responseCode = "404", description = "待办事项不存在"),
+            @ApiResponse(responseCode = "412", description = "If-Match 与当前版本不符"),
+            @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    public ResponseEntity<Void> patchTodo(
+            @Parameter(description = "待办事项ID", required = true, example = "1")
+            @PathVariable Long id,
+            @Parameter(description = "要修改的字段", required = true)
+            @RequestBody TodoDTO todoDTO,
+            @Parameter(description = "期望的版本号，即 GET 返回的 ETag 或 DTO 中的 version（带引号，如 \"3\"），与当前版本不符时返回 412")
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        todoWriteBehindBuffer.flush();
+        Long version = todoService.patchTodo(id, todoDTO, ETags.parseIfMatch(ifMatch));
+        return ResponseEntity.noContent().eTag(ETags.strong(version)).build();
+    }
+    
+    /**
+     * 原子增减待办事项进度
+     * 
+     * @param id 待办事项ID
+     * @param request 进度增量，可以为负数
+     * @return TodoProgressDTO 修改后的进度和完成状态
+     */
+    @PostMapping("/{id}/progress:increment")
+    @Operation(summary = "增减待办事项进度", description = "在数据库中原子地把进度加上增量并截断到0-100，达到100时标记为已完成；多个客户端同时修改不会互相覆盖")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "成功修改进度"),
+            @ApiResponse(responseCode = "400", description = "增量为空或超出-100到100"),
+            @ApiResponse(responseCode = "404", description = "待办事项不存在"),
+            @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    public TodoProgressDTO incrementProgress(
+            @Parameter(description = "待办事项ID", required = true, example = "1")
+            @PathVariable Long id,
+            @Parameter(description = "进度增量", required = true)
+            @Valid @RequestBody ProgressIncrementRequest request) {
+        todoWriteBehindBuffer.flush();
+        return todoService.incrementProgress(id, request.getDelta());
+    }
+    
     /**
      * 删除待办事项
      * 
      * @param id 要删除的待办事项ID
+     * @param ifMatch 期望的版本号，为空时不做版本校验
      * @return ResponseEntity<Void> 删除成功返回204状态码
      */
     @DeleteMapping("/{id}")
-    @Operation(summary = "删除待办事项", description = "根据待办事项ID删除待办事项")
+    @Operation(summary = "删除待办事项", description = "根据待办事项ID删除待办事项；只写入删除标记，保留期内可通过恢复接口找回")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "成功删除待办事项"),
             @ApiResponse(responseCode = "404", description = "待办事项不存在"),
+            @ApiResponse(responseCode = "412", description = "If-Match 与当前版本不符"),
             @ApiResponse(responseCode = "500", description = "服务器内部错误")
     })
     public ResponseEntity<Void> deleteTodo(
             @Parameter(description = "待办事项ID", required = true, example = "1")
-            @PathVariable Long id) {
-        boolean deleted = todoService.deleteTodo(id);
+            @PathVariable Long id,
+            @Parameter(description = "期望的版本号，即 GET 返回的 ETag 或 DTO 中的 version（带引号，如 \"3\"），与当前版本不符时返回 412")
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        todoWriteBehindBuffer.flush();
+        boolean deleted = todoService.deleteTodo(id, ETags.parseIfMatch(ifMatch));
         return deleted ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
     }
     
+    /**
+     * 恢复已删除的待办事项
+     * 
+     * @param id 待办事项ID
+     * @return ResponseEntity<Void> 恢复成功返回204状态码
+     */
+    @PostMapping("/{id}/restore")
+    @Operation(summary = "恢复待办事项", description = "恢复保留期内删除的待办事项；所属任务或主题已删除时不能恢复")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "成功恢复待办事项"),
+            @ApiResponse(responseCode = "404", description = "待办事项不在回收站中或已超过保留期限"),
+            @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    public ResponseEntity<Void> restoreTodo(
+            @Parameter(description = "待办事项ID", required = true, example = "1")
+            @PathVariable Long id) {
+        todoService.restoreTodo(id);
+        return ResponseEntity.noContent().build();
+    }
+    
     /**
      * 将 Todo 实体转换为 TodoDTO
      */
@@ -168,6 +358,7 @@ public class TodoController {
         dto.setCompletedAt(todo.getCompletedAt());
         dto.setCreatedAt(todo.getCreatedAt());
         dto.setUpdatedAt(todo.getUpdatedAt());
+        dto.setVersion(todo.getVersion());
         
         // 安全地获取任务ID
         if (todo.getTask() != null) {
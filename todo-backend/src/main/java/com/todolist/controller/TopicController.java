@@ -1,10 +1,15 @@
 package com.todolist.controller;
 
+import com.todolist.dto.CursorPage;
 import com.todolist.dto.TopicDTO;
 import com.todolist.dto.TaskDTO;
+import com.todolist.dto.TodoDTO;
 import com.todolist.entity.Topic;
 import com.todolist.entity.Task;
+import com.todolist.entity.Todo;
 import com.todolist.service.TopicService;
+import com.todolist.service.TodoWriteBehindBuffer;
+import com.todolist.util.ETags;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -13,8 +18,10 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -35,46 +42,103 @@ public class TopicController {
     @Autowired
     private TopicService topicService;
     
+    @Autowired
+    private TodoWriteBehindBuffer todoWriteBehindBuffer;
+    
     /**
      * 获取用户的所有主题
      * 
      * @param userId 用户ID
+     * @param webRequest 当前请求，If-None-Match 与当前 ETag 相同时返回 304
      * @return List<TopicDTO> 该用户的主题列表
      */
     @GetMapping("/user/{userId}")
     @Operation(summary = "获取用户的所有主题", description = "根据用户ID获取该用户创建的所有主题列表")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "成功获取主题列表"),
+            @ApiResponse(responseCode = "304", description = "内容未修改（If-None-Match 与当前 ETag 相同）"),
             @ApiResponse(responseCode = "404", description = "用户不存在"),
             @ApiResponse(responseCode = "500", description = "服务器内部错误")
     })
     public List<TopicDTO> getTopicsByUserId(
             @Parameter(description = "用户ID", required = true, example = "1")
-            @PathVariable Long userId) {
-        List<Topic> topics = topicService.getTopicsByUserId(userId);
-        return topics.stream()
-            .map(this::convertToDTO)
-            .collect(Collectors.toList());
+            @PathVariable Long userId,
+            WebRequest webRequest) {
+        if (ETags.checkNotModified(webRequest, topicService.getTopicsETag(userId, null, null))) {
+            return null;
+        }
+        return topicService.getTopicsByUserId(userId);
+    }
+    
+    /**
+     * 获取用户的主题（游标分页）
+     * 
+     * @param userId 用户ID
+     * @param cursor 上一页返回的 nextCursor，为空时返回第一页
+     * @param limit 每页条数，默认50，最大200
+     * @param webRequest 当前请求，If-None-Match 与当前 ETag 相同时返回 304
+     * @return CursorPage<TopicDTO> 当前页数据及下一页游标
+     */
+    @GetMapping("/user/{userId}/page")
+    @Operation(summary = "获取用户的主题（分页）", description = "按 (创建时间, ID) 键集分页获取用户的主题，按创建时间倒序")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "成功获取主题分页"),
+            @ApiResponse(responseCode = "304", description = "内容未修改（If-None-Match 与当前 ETag 相同）"),
+            @ApiResponse(responseCode = "400", description = "分页游标无效"),
+            @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    public CursorPage<TopicDTO> getTopicsPageByUserId(
+            @Parameter(description = "用户ID", required = true, example = "1")
+            @PathVariable Long userId,
+            @Parameter(description = "上一页返回的游标，为空时返回第一页")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页条数，默认50，最大200", example = "50")
+            @RequestParam(required = false) Integer limit,
+            WebRequest webRequest) {
+        if (ETags.checkNotModified(webRequest, topicService.getTopicsETag(userId, cursor, limit))) {
+            return null;
+        }
+        return topicService.getTopicsPageByUserId(userId, cursor, limit);
     }
     
     /**
      * 根据ID获取特定主题
      * 
+     * 通过 include 参数可一次性返回整棵主题树：
+     * include=tasks 返回任务列表，include=tasks,tasks.todos 同时返回每个任务的待办事项
+     * 
      * @param id 主题ID
+     * @param include 需要一并加载的关联数据
+     * @param webRequest 当前请求，If-None-Match 与当前 ETag 相同时返回 304
      * @return ResponseEntity<TopicDTO> 包含主题信息的响应实体，如果主题不存在则返回404
      */
     @GetMapping("/{id}")
-    @Operation(summary = "根据ID获取主题", description = "根据主题ID获取特定主题的详细信息")
+    @Operation(summary = "根据ID获取主题", description = "根据主题ID获取特定主题的详细信息，可通过include参数同时获取任务和待办事项")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "成功获取主题信息"),
+            @ApiResponse(responseCode = "304", description = "内容未修改（If-None-Match 与当前 ETag 相同）"),
             @ApiResponse(responseCode = "404", description = "主题不存在"),
             @ApiResponse(responseCode = "500", description = "服务器内部错误")
     })
     public ResponseEntity<TopicDTO> getTopicById(
             @Parameter(description = "主题ID", required = true, example = "1")
-            @PathVariable Long id) {
-        Optional<Topic> topic = topicService.getTopicById(id);
-        return topic.map(t -> ResponseEntity.ok(convertToDTO(t)))
+            @PathVariable Long id,
+            @Parameter(description = "需要一并加载的关联数据，可选值：tasks, tasks.todos", example = "tasks,tasks.todos")
+            @RequestParam(required = false) Set<String> include,
+            WebRequest webRequest) {
+        boolean includeTodos = include != null && include.contains("tasks.todos");
+        boolean includeTasks = includeTodos || (include != null && include.contains("tasks"));
+        if (ETags.checkNotModified(webRequest, topicService.getTopicETag(id, includeTasks, includeTodos))) {
+            return null;
+        }
+        
+        if (includeTodos) {
+            todoWriteBehindBuffer.flush();
+        }
+        Optional<Topic> topic = includeTasks
+            ? topicService.getTopicTree(id, includeTodos)
+            : topicService.getTopicById(id);
+        return topic.map(t -> ResponseEntity.ok(convertToDTO(t, includeTasks, includeTodos)))
                    .orElse(ResponseEntity.notFound().build());
     }
     
@@ -108,6 +172,7 @@ public class TopicController {
      * 
      * @param id 主题ID
      * @param topicDTO 更新后的主题信息
+     * @param ifMatch 期望的版本号，为空时不做版本校验
      * @return ResponseEntity<TopicDTO> 更新后的主题信息，如果主题不存在则返回404
      */
     @PutMapping("/{id}")
@@ -116,68 +181,133 @@ public class TopicController {
             @ApiResponse(responseCode = "200", description = "成功更新主题"),
             @ApiResponse(responseCode = "400", description = "请求参数错误"),
             @ApiResponse(responseCode = "404", description = "主题不存在"),
+            @ApiResponse(responseCode = "412", description = "If-Match 与当前版本不符"),
             @ApiResponse(responseCode = "500", description = "服务器内部错误")
     })
     public ResponseEntity<TopicDTO> updateTopic(
             @Parameter(description = "主题ID", required = true, example = "1")
             @PathVariable Long id,
             @Parameter(description = "更新后的主题信息", required = true)
-            @RequestBody TopicDTO topicDTO) {
+            @RequestBody TopicDTO topicDTO,
+            @Parameter(description = "期望的版本号，即 GET 返回的 ETag 或 DTO 中的 version（带引号，如 \"3\"），与当前版本不符时返回 412")
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
         Optional<Topic> existingTopic = topicService.getTopicById(id);
         if (existingTopic.isPresent()) {
             Topic topic = existingTopic.get();
             topic.setName(topicDTO.getName());
             topic.setDescription(topicDTO.getDescription());
-            Topic updatedTopic = topicService.updateTopic(topic);
+            Topic updatedTopic = topicService.updateTopic(topic, ETags.parseIfMatch(ifMatch));
             return ResponseEntity.ok(convertToDTO(updatedTopic));
         }
         return ResponseEntity.notFound().build();
     }
     
+    /**
+     * 部分更新主题
+     * 
+     * @param id 主题ID
+     * @param topicDTO 要修改的字段，未提供（null）的字段保持不变
+     * @param ifMatch 期望的版本号，为空时不做版本校验
+     * @return ResponseEntity<Void> 更新成功返回204状态码，响应头包含新的 ETag
+     */
+    @PatchMapping("/{id}")
+    @Operation(summary = "部分更新主题", description = "只更新请求中提供的字段（name、description），执行一条只包含这些列的 UPDATE 语句")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "成功更新主题"),
+            @ApiResponse(responseCode = "400", description = "字段不合法或没有需要更新的字段"),
+            @ApiResponse(responseCode = "404", description = "主题不存在"),
+            @ApiResponse(responseCode = "412", description = "If-Match 与当前版本不符"),
+            @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    public ResponseEntity<Void> patchTopic(
+            @Parameter(description = "主题ID", required = true, example = "1")
+            @PathVariable Long id,
+            @Parameter(description = "要修改的字段", required = true)
+            @RequestBody TopicDTO topicDTO,
+            @Parameter(description = "期望的版本号，即 GET 返回的 ETag 或 DTO 中的 version（带引号，如 \"3\"），与当前版本不符时返回 412")
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        Long version = topicService.patchTopic(id, topicDTO, ETags.parseIfMatch(ifMatch));
+        return ResponseEntity.noContent().eTag(ETags.strong(version)).build();
+    }
+    
     /**
      * 删除主题
      * 
      * @param id 主题ID
+     * @param ifMatch 期望的版本号，为空时不做版本校验
      * @return ResponseEntity<Void> 删除成功返回204，如果主题不存在则返回404
      */
     @DeleteMapping("/{id}")
-    @Operation(summary = "删除主题", description = "删除指定的主题及其所有相关数据")
+    @Operation(summary = "删除主题", description = "删除指定的主题及其所有相关数据；只写入删除标记，保留期内可通过恢复接口找回")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "成功删除主题"),
             @ApiResponse(responseCode = "404", description = "主题不存在"),
+            @ApiResponse(responseCode = "412", description = "If-Match 与当前版本不符"),
             @ApiResponse(responseCode = "500", description = "服务器内部错误")
     })
     public ResponseEntity<Void> deleteTopic(
             @Parameter(description = "主题ID", required = true, example = "1")
-            @PathVariable Long id) {
-        boolean deleted = topicService.deleteTopic(id);
+            @PathVariable Long id,
+            @Parameter(description = "期望的版本号，即 GET 返回的 ETag 或 DTO 中的 version（带引号，如 \"3\"），与当前版本不符时返回 412")
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        boolean deleted = topicService.deleteTopic(id, ETags.parseIfMatch(ifMatch));
         return deleted ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
     }
     
+    /**
+     * 恢复已删除的主题
+     * 
+     * @param id 主题ID
+     * @return ResponseEntity<Void> 恢复成功返回204状态码
+     */
+    @PostMapping("/{id}/restore")
+    @Operation(summary = "恢复主题", description = "恢复保留期内删除的主题；其下的任务和待办随之恢复")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "成功恢复主题"),
+            @ApiResponse(responseCode = "404", description = "主题不在回收站中或已超过保留期限"),
+            @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    public ResponseEntity<Void> restoreTopic(
+            @Parameter(description = "主题ID", required = true, example = "1")
+            @PathVariable Long id) {
+        topicService.restoreTopic(id);
+        return ResponseEntity.noContent().build();
+    }
+    
     /**
      * 将 Topic 实体转换为 TopicDTO
      */
     private TopicDTO convertToDTO(Topic topic) {
+        return convertToDTO(topic, false, false);
+    }
+    
+    /**
+     * 将 Topic 实体转换为 TopicDTO，并按需包含任务及待办事项
+     * 关联集合需要事先通过 fetch join 加载，避免在转换时逐条懒加载
+     */
+    private TopicDTO convertToDTO(Topic topic, boolean includeTasks, boolean includeTodos) {
         TopicDTO dto = new TopicDTO();
         dto.setId(topic.getId());
         dto.setName(topic.getName());
         dto.setDescription(topic.getDescription());
         dto.setCreatedAt(topic.getCreatedAt());
         dto.setUpdatedAt(topic.getUpdatedAt());
+        dto.setVersion(topic.getVersion());
+        dto.setTodoCount(topic.getTodoCount());
+        dto.setCompletedCount(topic.getCompletedCount());
+        dto.setProgressSum(topic.getProgressSum());
         
         // 安全地获取用户ID
         if (topic.getUser() != null) {
             dto.setUserId(topic.getUser().getId());
         }
         
-        // 如果需要包含任务列表，可以在这里添加
-        // 但建议在需要时才加载，避免性能问题
-        // if (topic.getTasks() != null) {
-        //     List<TaskDTO> taskDTOs = topic.getTasks().stream()
-        //         .map(this::convertTaskToDTO)
-        //         .collect(Collectors.toList());
-        //     dto.setTasks(taskDTOs);
-        // }
+        if (includeTasks && topic.getTasks() != null) {
+            List<TaskDTO> taskDTOs = topic.getTasks().stream()
+                .map(task -> convertTaskToDTO(task, includeTodos))
+                .collect(Collectors.toList());
+            dto.setTasks(taskDTOs);
+        }
         
         return dto;
     }
@@ -195,9 +325,9 @@ public class TopicController {
     }
     
     /**
-     * 将 Task 实体转换为 TaskDTO（如果需要）
+     * 将 Task 实体转换为 TaskDTO，并按需包含待办事项
      */
-    private TaskDTO convertTaskToDTO(Task task) {
+    private TaskDTO convertTaskToDTO(Task task, boolean includeTodos) {
         TaskDTO dto = new TaskDTO();
         dto.setId(task.getId());
         dto.setTitle(task.getTitle());
@@ -207,11 +337,46 @@ public class TopicController {
         dto.setDueDate(task.getDueDate());
         dto.setCreatedAt(task.getCreatedAt());
         dto.setUpdatedAt(task.getUpdatedAt());
+        dto.setVersion(task.getVersion());
+        dto.setTodoCount(task.getTodoCount());
+        dto.setCompletedCount(task.getCompletedCount());
+        dto.setProgressSum(task.getProgressSum());
         
         if (task.getTopic() != null) {
             dto.setTopicId(task.getTopic().getId());
         }
         
+        if (includeTodos && task.getTodos() != null) {
+            List<TodoDTO> todoDTOs = task.getTodos().stream()
+                .map(this::convertTodoToDTO)
+                .collect(Collectors.toList());
+            dto.setTodos(todoDTOs);
+        }
+        
+        return dto;
+    }
+    
+    /**
+     * 将 Todo 实体转换为 TodoDTO
+     */
+    private TodoDTO convertTodoToDTO(Todo todo) {
+        TodoDTO dto = new TodoDTO();
+        dto.setId(todo.getId());
+        dto.setTitle(todo.getTitle());
+        dto.setContent(todo.getContent());
+        dto.setIsCompleted(todo.getIsCompleted());
+        dto.setCompleted(todo.getCompleted());
+        dto.setProgress(todo.getProgress());
+        dto.setNote(todo.getNote());
+        dto.setCompletedAt(todo.getCompletedAt());
+        dto.setCreatedAt(todo.getCreatedAt());
+        dto.setUpdatedAt(todo.getUpdatedAt());
+        dto.setVersion(todo.getVersion());
+        
+        if (todo.getTask() != null) {
+            dto.setTaskId(todo.getTask().getId());
+        }
+        
         return dto;
     }
 }
\ No newline at end of file
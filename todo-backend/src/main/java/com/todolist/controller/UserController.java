@@ -2,6 +2,7 @@ package com.todolist.controller;
 
 import com.todolist.exception.ApiResponse;
 import com.todolist.dto.AuthResponse;
+import com.todolist.dto.CursorPage;
 import com.todolist.dto.LoginRequest;
 import com.todolist.dto.RegisterRequest;
 import com.todolist.entity.User;
@@ -73,6 +74,19 @@ public class UserController {
         return ResponseEntity.ok(users);
     }
 
+    @GetMapping("/page")
+    @Operation(summary = "分页获取用户", description = "按 (创建时间, ID) 键集分页获取用户，使用上一页返回的 nextCursor 翻页")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "获取成功"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "分页游标无效"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "未登录")
+    })
+    public ResponseEntity<CursorPage<User>> getUsersPage(
+            @Parameter(description = "上一页返回的游标，为空时返回第一页") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页条数，默认50，最大200") @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(userService.getUsersPage(cursor, limit));
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "根据ID获取用户", description = "根据用户ID获取用户详细信息")
     @ApiResponses(value = {
@@ -0,0 +1,29 @@
+package com.todolist.dto;
+
+/**
+ * 批量操作单项错误DTO
+ * 
+ * 指出请求数组中第几项（从0开始）未通过校验以及原因
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+public class BatchItemError {
+    
+    private int index;
+    private String message;
+    
+    public BatchItemError() {}
+    
+    public BatchItemError(int index, String message) {
+        this.index = index;
+        this.message = message;
+    }
+    
+    public int getIndex() { return index; }
+    public void setIndex(int index) { this.index = index; }
+    
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+}
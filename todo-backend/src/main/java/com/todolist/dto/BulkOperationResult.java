@@ -0,0 +1,29 @@
+package com.todolist.dto;
+
+/**
+ * 批量操作结果DTO
+ * 
+ * 记录一次集合式操作作用的任务和实际受影响的待办数量
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+public class BulkOperationResult {
+    
+    private Long taskId;
+    private int affected;
+    
+    public BulkOperationResult() {}
+    
+    public BulkOperationResult(Long taskId, int affected) {
+        this.taskId = taskId;
+        this.affected = affected;
+    }
+    
+    public Long getTaskId() { return taskId; }
+    public void setTaskId(Long taskId) { this.taskId = taskId; }
+    
+    public int getAffected() { return affected; }
+    public void setAffected(int affected) { this.affected = affected; }
+}
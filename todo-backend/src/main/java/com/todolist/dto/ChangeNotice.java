@@ -0,0 +1,45 @@
+package com.todolist.dto;
+
+/**
+ * 变更通知DTO
+ * 
+ * 通过 /api/events 推送给客户端的一条简短通知，只说明哪条记录发生了变化，不携带记录内容。
+ * version 为修改后的版本号，未知时（如汇总计数随下级变化）为 null，
+ * 客户端应按需重新获取该记录或调用 /api/sync 补齐
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+public class ChangeNotice {
+    
+    public static final String TOPIC = "topic";
+    public static final String TASK = "task";
+    public static final String TODO = "todo";
+    
+    private String type;
+    private Long id;
+    private Long version;
+    private boolean deleted;
+    
+    public ChangeNotice() {}
+    
+    public ChangeNotice(String type, Long id, Long version, boolean deleted) {
+        this.type = type;
+        this.id = id;
+        this.version = version;
+        this.deleted = deleted;
+    }
+    
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+    
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+    
+    public boolean isDeleted() { return deleted; }
+    public void setDeleted(boolean deleted) { this.deleted = deleted; }
+}
@@ -0,0 +1,71 @@
+package com.todolist.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import com.todolist.util.CursorCodec;
+
+/**
+ * 游标分页响应DTO
+ * 
+ * 基于 (created_at, id) 的键集分页结果，客户端携带 nextCursor 请求下一页，
+ * 无论翻到多深，每页查询都只做一次索引范围扫描（不使用 OFFSET）
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+public class CursorPage<T> {
+    
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasMore;
+    
+    public CursorPage() {}
+    
+    public CursorPage(List<T> items, String nextCursor, boolean hasMore) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+    
+    /**
+     * 由查询结果构建分页对象
+     * 查询应多取一条（limit + 1），以便判断是否还有下一页
+     * 
+     * @param rows 按排序键查询出的结果（最多 limit + 1 条）
+     * @param limit 每页条数
+     * @param createdAt 排序键：创建时间
+     * @param id 排序键：ID
+     * @return CursorPage<T> 分页结果
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int limit,
+                                       Function<T, LocalDateTime> createdAt, Function<T, Long> id) {
+        boolean hasMore = rows.size() > limit;
+        List<T> items = hasMore ? rows.subList(0, limit) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            T last = items.get(items.size() - 1);
+            nextCursor = CursorCodec.encode(createdAt.apply(last), id.apply(last));
+        }
+        return new CursorPage<>(items, nextCursor, hasMore);
+    }
+    
+    /**
+     * 转换分页中的元素类型，保留游标信息
+     */
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> mapper) {
+        List<R> mapped = items.stream().map(mapper).collect(Collectors.toList());
+        return new CursorPage<>(mapped, nextCursor, hasMore);
+    }
+    
+    public List<T> getItems() { return items; }
+    public void setItems(List<T> items) { this.items = items; }
+    
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+    
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+}
@@ -0,0 +1,52 @@
+package com.todolist.dto;
+
+/**
+ * 导入结果DTO
+ * 
+ * 记录一次导入新建的专题、任务、待办数量和耗时；
+ * 合并导入时还包括匹配到已有数据的专题、任务数量和被更新的待办数量
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+public class ImportResult {
+    
+    private int topics;
+    private int tasks;
+    private int todos;
+    private int mergedTopics;
+    private int mergedTasks;
+    private int updatedTodos;
+    private long elapsedMillis;
+    
+    public ImportResult() {}
+    
+    public ImportResult(int topics, int tasks, int todos, long elapsedMillis) {
+        this.topics = topics;
+        this.tasks = tasks;
+        this.todos = todos;
+        this.elapsedMillis = elapsedMillis;
+    }
+    
+    public int getTopics() { return topics; }
+    public void setTopics(int topics) { this.topics = topics; }
+    
+    public int getTasks() { return tasks; }
+    public void setTasks(int tasks) { this.tasks = tasks; }
+    
+    public int getTodos() { return todos; }
+    public void setTodos(int todos) { this.todos = todos; }
+    
+    public int getMergedTopics() { return mergedTopics; }
+    public void setMergedTopics(int mergedTopics) { this.mergedTopics = mergedTopics; }
+    
+    public int getMergedTasks() { return mergedTasks; }
+    public void setMergedTasks(int mergedTasks) { this.mergedTasks = mergedTasks; }
+    
+    public int getUpdatedTodos() { return updatedTodos; }
+    public void setUpdatedTodos(int updatedTodos) { this.updatedTodos = updatedTodos; }
+    
+    public long getElapsedMillis() { return elapsedMillis; }
+    public void setElapsedMillis(long elapsedMillis) { this.elapsedMillis = elapsedMillis; }
+}
@@ -0,0 +1,29 @@
+package com.todolist.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * 进度增量请求DTO
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+public class ProgressIncrementRequest {
+    
+    @NotNull(message = "增量不能为空")
+    @Min(value = -100, message = "增量不能小于-100")
+    @Max(value = 100, message = "增量不能大于100")
+    private Integer delta;
+    
+    public ProgressIncrementRequest() {}
+    
+    public ProgressIncrementRequest(Integer delta) {
+        this.delta = delta;
+    }
+    
+    public Integer getDelta() { return delta; }
+    public void setDelta(Integer delta) { this.delta = delta; }
+}
@@ -0,0 +1,47 @@
+package com.todolist.dto;
+
+import java.util.List;
+
+/**
+ * 条件查询响应DTO
+ * 
+ * 一页查询结果和下一页游标（键集分页，同 CursorPage），另外给出查询使用的索引，
+ * 以及条件或排序不能由该索引完全覆盖时的警告；警告非空说明查询会随数据量增长而变慢
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+public class QueryPage<T> {
+    
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasMore;
+    private String index;
+    private List<String> warnings;
+    
+    public QueryPage() {}
+    
+    public QueryPage(List<T> items, String nextCursor, boolean hasMore, String index, List<String> warnings) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+        this.index = index;
+        this.warnings = warnings;
+    }
+    
+    public List<T> getItems() { return items; }
+    public void setItems(List<T> items) { this.items = items; }
+    
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+    
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+    
+    public String getIndex() { return index; }
+    public void setIndex(String index) { this.index = index; }
+    
+    public List<String> getWarnings() { return warnings; }
+    public void setWarnings(List<String> warnings) { this.warnings = warnings; }
+}
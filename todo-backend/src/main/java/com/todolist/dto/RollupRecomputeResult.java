@@ -0,0 +1,39 @@
+package com.todolist.dto;
+
+/**
+ * 汇总计数重算结果DTO
+ * 
+ * 记录一次重算任务处理的区间数、更新的行数和耗时
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+public class RollupRecomputeResult {
+    
+    private int chunks;
+    private long tasksUpdated;
+    private long topicsUpdated;
+    private long elapsedMillis;
+    
+    public RollupRecomputeResult() {}
+    
+    public RollupRecomputeResult(int chunks, long tasksUpdated, long topicsUpdated, long elapsedMillis) {
+        this.chunks = chunks;
+        this.tasksUpdated = tasksUpdated;
+        this.topicsUpdated = topicsUpdated;
+        this.elapsedMillis = elapsedMillis;
+    }
+    
+    public int getChunks() { return chunks; }
+    public void setChunks(int chunks) { this.chunks = chunks; }
+    
+    public long getTasksUpdated() { return tasksUpdated; }
+    public void setTasksUpdated(long tasksUpdated) { this.tasksUpdated = tasksUpdated; }
+    
+    public long getTopicsUpdated() { return topicsUpdated; }
+    public void setTopicsUpdated(long topicsUpdated) { this.topicsUpdated = topicsUpdated; }
+    
+    public long getElapsedMillis() { return elapsedMillis; }
+    public void setElapsedMillis(long elapsedMillis) { this.elapsedMillis = elapsedMillis; }
+}
@@ -0,0 +1,56 @@
+package com.todolist.dto;
+
+/**
+ * 搜索结果项DTO
+ * 
+ * 一个匹配的主题、任务或待办。title 为主题名称或任务、待办标题，
+ * snippet 为正文（描述、内容、备注）中第一个匹配附近的片段，正文没有匹配时为正文开头；
+ * topicId、taskId 为所属的主题和任务，用于客户端定位
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+public class SearchHit {
+    
+    private String type;
+    private Long id;
+    private Long topicId;
+    private Long taskId;
+    private String title;
+    private String snippet;
+    private double score;
+    
+    public SearchHit() {}
+    
+    public SearchHit(String type, Long id, Long topicId, Long taskId, String title, String snippet, double score) {
+        this.type = type;
+        this.id = id;
+        this.topicId = topicId;
+        this.taskId = taskId;
+        this.title = title;
+        this.snippet = snippet;
+        this.score = score;
+    }
+    
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+    
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Long getTopicId() { return topicId; }
+    public void setTopicId(Long topicId) { this.topicId = topicId; }
+    
+    public Long getTaskId() { return taskId; }
+    public void setTaskId(Long taskId) { this.taskId = taskId; }
+    
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+    
+    public String getSnippet() { return snippet; }
+    public void setSnippet(String snippet) { this.snippet = snippet; }
+    
+    public double getScore() { return score; }
+    public void setScore(double score) { this.score = score; }
+}
@@ -0,0 +1,32 @@
+package com.todolist.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 搜索结果DTO
+ * 
+ * total 为匹配的记录总数，hits 为按相关度排序的前 limit 条
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+public class SearchResult {
+    
+    private int total;
+    private List<SearchHit> hits = new ArrayList<>();
+    
+    public SearchResult() {}
+    
+    public SearchResult(int total, List<SearchHit> hits) {
+        this.total = total;
+        this.hits = hits;
+    }
+    
+    public int getTotal() { return total; }
+    public void setTotal(int total) { this.total = total; }
+    
+    public List<SearchHit> getHits() { return hits; }
+    public void setHits(List<SearchHit> hits) { this.hits = hits; }
+}
@@ -0,0 +1,40 @@
+package com.todolist.dto;
+
+/**
+ * 名称补全建议DTO
+ * 
+ * 一个名称以输入前缀开头的主题或任务。name 为主题名称或任务标题，
+ * topicId 为任务所属的主题，主题本身为 null
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+public class Suggestion {
+    
+    private String type;
+    private Long id;
+    private Long topicId;
+    private String name;
+    
+    public Suggestion() {}
+    
+    public Suggestion(String type, Long id, Long topicId, String name) {
+        this.type = type;
+        this.id = id;
+        this.topicId = topicId;
+        this.name = name;
+    }
+    
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+    
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Long getTopicId() { return topicId; }
+    public void setTopicId(Long topicId) { this.topicId = topicId; }
+    
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+}
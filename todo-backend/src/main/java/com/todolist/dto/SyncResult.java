@@ -0,0 +1,59 @@
+package com.todolist.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 增量同步结果DTO
+ * 
+ * 包含同步序号在 (since, seq] 之间新建或修改的主题、任务、待办，以及同一区间内被删除的记录ID。
+ * 客户端按ID覆盖本地缓存并删除对应记录，下次同步时携带 seq 作为 since；
+ * 收到主题或任务的删除时，应一并删除本地缓存中它的全部下级。
+ * fullResync 为 true 时结果是当前的全量数据（不包含删除列表），客户端应整体替换本地缓存
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+public class SyncResult {
+    
+    private long seq;
+    private boolean fullResync;
+    private List<TopicDTO> topics = new ArrayList<>();
+    private List<TaskDTO> tasks = new ArrayList<>();
+    private List<TodoDTO> todos = new ArrayList<>();
+    private List<Long> deletedTopicIds = new ArrayList<>();
+    private List<Long> deletedTaskIds = new ArrayList<>();
+    private List<Long> deletedTodoIds = new ArrayList<>();
+    
+    public SyncResult() {}
+    
+    public SyncResult(long seq, boolean fullResync) {
+        this.seq = seq;
+        this.fullResync = fullResync;
+    }
+    
+    public long getSeq() { return seq; }
+    public void setSeq(long seq) { this.seq = seq; }
+    
+    public boolean isFullResync() { return fullResync; }
+    public void setFullResync(boolean fullResync) { this.fullResync = fullResync; }
+    
+    public List<TopicDTO> getTopics() { return topics; }
+    public void setTopics(List<TopicDTO> topics) { this.topics = topics; }
+    
+    public List<TaskDTO> getTasks() { return tasks; }
+    public void setTasks(List<TaskDTO> tasks) { this.tasks = tasks; }
+    
+    public List<TodoDTO> getTodos() { return todos; }
+    public void setTodos(List<TodoDTO> todos) { this.todos = todos; }
+    
+    public List<Long> getDeletedTopicIds() { return deletedTopicIds; }
+    public void setDeletedTopicIds(List<Long> deletedTopicIds) { this.deletedTopicIds = deletedTopicIds; }
+    
+    public List<Long> getDeletedTaskIds() { return deletedTaskIds; }
+    public void setDeletedTaskIds(List<Long> deletedTaskIds) { this.deletedTaskIds = deletedTaskIds; }
+    
+    public List<Long> getDeletedTodoIds() { return deletedTodoIds; }
+    public void setDeletedTodoIds(List<Long> deletedTodoIds) { this.deletedTodoIds = deletedTodoIds; }
+}
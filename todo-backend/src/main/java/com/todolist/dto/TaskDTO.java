@@ -1,10 +1,12 @@
 package com.todolist.dto;
 
+import com.fasterxml.jackson.annotation.JsonAlias;
 import java.time.LocalDateTime;
 import java.util.List;
 
 public class TaskDTO {
     private Long id;
+    @JsonAlias("name") // 兼容导出数据中任务使用的 name 字段
     private String title;
     private String description;
     private String status;
@@ -13,12 +15,17 @@ public class TaskDTO {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private Long topicId;
+    private Integer todoCount;
+    private Integer completedCount;
+    private Long progressSum;
+    private Long version;
     private List<TodoDTO> todos;
 
     // 构造函数
     public TaskDTO() {}
 
-    public TaskDTO(Long id, String title, String description, String status, String priority, LocalDateTime dueDate, LocalDateTime createdAt, LocalDateTime updatedAt, Long topicId) {
+    public TaskDTO(Long id, String title, String description, String status, String priority, LocalDateTime dueDate, LocalDateTime createdAt, LocalDateTime updatedAt, Long topicId,
+                   Integer todoCount, Integer completedCount, Long progressSum, Long version) {
         this.id = id;
         this.title = title;
         this.description = description;
@@ -28,6 +35,10 @@ public class TaskDTO {
         this.createdAt = createdAt;
         this.updatedAt = updatedAt;
         this.topicId = topicId;
+        this.todoCount = todoCount;
+        this.completedCount = completedCount;
+        this.progressSum = progressSum;
+        this.version = version;
     }
 
     // Getter 和 Setter
@@ -58,6 +69,18 @@ public class TaskDTO {
     public Long getTopicId() { return topicId; }
     public void setTopicId(Long topicId) { this.topicId = topicId; }
 
+    public Integer getTodoCount() { return todoCount; }
+    public void setTodoCount(Integer todoCount) { this.todoCount = todoCount; }
+
+    public Integer getCompletedCount() { return completedCount; }
+    public void setCompletedCount(Integer completedCount) { this.completedCount = completedCount; }
+
+    public Long getProgressSum() { return progressSum; }
+    public void setProgressSum(Long progressSum) { this.progressSum = progressSum; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
     public List<TodoDTO> getTodos() { return todos; }
     public void setTodos(List<TodoDTO> todos) { this.todos = todos; }
 }
@@ -14,13 +14,14 @@ public class TodoDTO {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private Long taskId;
+    private Long version;
 
     // 构造函数
     public TodoDTO() {}
 
     public TodoDTO(Long id, String title, String content, Boolean isCompleted, Boolean completed, 
                    Integer progress, String note, LocalDateTime completedAt, 
-                   LocalDateTime createdAt, LocalDateTime updatedAt, Long taskId) {
+                   LocalDateTime createdAt, LocalDateTime updatedAt, Long taskId, Long version) {
         this.id = id;
         this.title = title;
         this.content = content;
@@ -32,6 +33,7 @@ public class TodoDTO {
         this.createdAt = createdAt;
         this.updatedAt = updatedAt;
         this.taskId = taskId;
+        this.version = version;
     }
 
     // Getter 和 Setter
@@ -67,4 +69,7 @@ public class TodoDTO {
 
     public Long getTaskId() { return taskId; }
     public void setTaskId(Long taskId) { this.taskId = taskId; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
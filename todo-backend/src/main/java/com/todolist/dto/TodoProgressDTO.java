@@ -0,0 +1,34 @@
+package com.todolist.dto;
+
+/**
+ * 待办进度DTO
+ * 
+ * 进度增减后的新进度和完成状态
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+public class TodoProgressDTO {
+    
+    private Long id;
+    private int progress;
+    private boolean completed;
+    
+    public TodoProgressDTO() {}
+    
+    public TodoProgressDTO(Long id, int progress, boolean completed) {
+        this.id = id;
+        this.progress = progress;
+        this.completed = completed;
+    }
+    
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public int getProgress() { return progress; }
+    public void setProgress(int progress) { this.progress = progress; }
+    
+    public boolean getCompleted() { return completed; }
+    public void setCompleted(boolean completed) { this.completed = completed; }
+}
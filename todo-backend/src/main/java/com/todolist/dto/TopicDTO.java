@@ -10,18 +10,27 @@ public class TopicDTO {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private Long userId;
+    private Integer todoCount;
+    private Integer completedCount;
+    private Long progressSum;
+    private Long version;
     private List<TaskDTO> tasks;
 
     // 构造函数
     public TopicDTO() {}
 
-    public TopicDTO(Long id, String name, String description, LocalDateTime createdAt, LocalDateTime updatedAt, Long userId) {
+    public TopicDTO(Long id, String name, String description, LocalDateTime createdAt, LocalDateTime updatedAt, Long userId,
+                    Integer todoCount, Integer completedCount, Long progressSum, Long version) {
         this.id = id;
         this.name = name;
         this.description = description;
         this.createdAt = createdAt;
         this.updatedAt = updatedAt;
         this.userId = userId;
+        this.todoCount = todoCount;
+        this.completedCount = completedCount;
+        this.progressSum = progressSum;
+        this.version = version;
     }
 
     // Getter 和 Setter
@@ -43,6 +52,18 @@ public class TopicDTO {
     public Long getUserId() { return userId; }
     public void setUserId(Long userId) { this.userId = userId; }
 
+    public Integer getTodoCount() { return todoCount; }
+    public void setTodoCount(Integer todoCount) { this.todoCount = todoCount; }
+
+    public Integer getCompletedCount() { return completedCount; }
+    public void setCompletedCount(Integer completedCount) { this.completedCount = completedCount; }
+
+    public Long getProgressSum() { return progressSum; }
+    public void setProgressSum(Long progressSum) { this.progressSum = progressSum; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
     public List<TaskDTO> getTasks() { return tasks; }
     public void setTasks(List<TaskDTO> tasks) { this.tasks = tasks; }
 }
@@ -0,0 +1,101 @@
+package com.todolist.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 变更发件箱实体类
+ * 
+ * 每条记录表示一个主题、任务或待办被创建、修改、删除或恢复，与修改本身在同一事务中写入，
+ * 按主键顺序构成可重放的变更流，供其他实例的中继读取并推送给本实例的订阅连接。
+ * 记录由 ChangeOutboxService 批量插入，实体只用于建表和读取
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+@Entity
+@Table(name = "change_outbox", indexes = {
+    @Index(name = "idx_change_outbox_created", columnList = "created_at"),
+    @Index(name = "idx_change_outbox_entity", columnList = "entity_type, entity_id, id")
+})
+public class OutboxEvent {
+    
+    /**
+     * 变更序号
+     * 使用自增列而不是号段：号段由各实例预取，后写入的记录可能拿到更小的ID，中继按主键递增读取时会漏掉
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    /**
+     * 记录所属用户ID
+     */
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    /**
+     * 记录类型：topic、task、todo
+     */
+    @Column(name = "entity_type", nullable = false, length = 16)
+    private String entityType;
+    
+    /**
+     * 记录ID
+     */
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+    
+    /**
+     * 修改后的版本号，未知时（汇总计数随下级变化）为 null
+     */
+    @Column(name = "entity_version")
+    private Long entityVersion;
+    
+    /**
+     * 是否为删除
+     */
+    @Column(name = "deleted", nullable = false)
+    private boolean deleted;
+    
+    /**
+     * 写入该记录的应用实例标识，中继据此跳过本实例已直接推送的变更
+     */
+    @Column(name = "origin", nullable = false, length = 36)
+    private String origin;
+    
+    /**
+     * 写入时间
+     */
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    public OutboxEvent() {}
+    
+    // ========== Getter和Setter方法 ==========
+    
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    
+    public String getEntityType() { return entityType; }
+    public void setEntityType(String entityType) { this.entityType = entityType; }
+    
+    public Long getEntityId() { return entityId; }
+    public void setEntityId(Long entityId) { this.entityId = entityId; }
+    
+    public Long getEntityVersion() { return entityVersion; }
+    public void setEntityVersion(Long entityVersion) { this.entityVersion = entityVersion; }
+    
+    public boolean isDeleted() { return deleted; }
+    public void setDeleted(boolean deleted) { this.deleted = deleted; }
+    
+    public String getOrigin() { return origin; }
+    public void setOrigin(String origin) { this.origin = origin; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
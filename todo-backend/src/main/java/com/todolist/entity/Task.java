@@ -4,6 +4,8 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.SQLRestriction;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -19,16 +21,27 @@ import java.util.List;
  * @since 2025-09-12
  */
 @Entity
-@Table(name = "tasks")
+@DynamicUpdate
+@SQLRestriction("deleted_at is null")
+@Table(name = "tasks", indexes = {
+    @Index(name = "idx_tasks_topic_created", columnList = "topic_id, created_at, id"),
+    @Index(name = "idx_tasks_topic_change", columnList = "topic_id, change_seq"),
+    @Index(name = "idx_tasks_deleted", columnList = "deleted_at"),
+    @Index(name = "idx_tasks_user_status_due", columnList = "user_id, status, due_date"),
+    @Index(name = "idx_tasks_user_priority_due", columnList = "user_id, priority, due_date"),
+    @Index(name = "idx_tasks_user_due", columnList = "user_id, due_date"),
+    @Index(name = "idx_tasks_user_updated", columnList = "user_id, updated_at")
+})
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Task {
     
     /**
      * 任务唯一标识符
-     * 主键，自增长，用于唯一标识每个任务
+     * 主键，由 tasks_seq 号段分配（每次预取50个），插入时可走 JDBC 批处理
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tasks_seq")
+    @SequenceGenerator(name = "tasks_seq", sequenceName = "tasks_seq", allocationSize = 50)
     private Long id;
     
     /**
@@ -87,6 +100,66 @@ public class Task {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    /**
+     * 删除时间（墓碑标记）
+     * 为空表示未删除；删除时只写入该列，带墓碑的记录对所有查询不可见，
+     * 保留期内可以恢复，过期后由清理任务物理删除。只通过更新语句修改，实体保存时不写入
+     */
+    @Column(name = "deleted_at", insertable = false, updatable = false)
+    private LocalDateTime deletedAt;
+    
+    /**
+     * 版本号
+     * 任务信息或其汇总计数每次修改都加1（汇总计数随待办的增删改变化），用作 ETag 的校验值。
+     * 实体保存时由 JPA 自动递增并校验，批量更新语句显式执行 version = version + 1
+     */
+    @Version
+    @Column(name = "version", columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private Long version;
+    
+    /**
+     * 同步序号
+     * 增量同步最近一次观察到该任务变化时分配的用户级序号（见 SyncService），0 表示尚未被同步观察到。
+     * 写入路径不维护该列，只由同步接口通过更新语句修改，实体保存时不写入
+     */
+    @Column(name = "change_seq", columnDefinition = "BIGINT NOT NULL DEFAULT 0", insertable = false, updatable = false)
+    private Long changeSeq;
+    
+    /**
+     * 已同步的版本号
+     * 分配同步序号时的 version，与当前 version 不同说明有尚未分配序号的修改；新记录为 -1
+     */
+    @Column(name = "synced_version", columnDefinition = "BIGINT NOT NULL DEFAULT -1", insertable = false, updatable = false)
+    private Long syncedVersion;
+    
+    /**
+     * 所属用户ID
+     * 与所属主题的 user_id 相同，创建时写入、之后不变；使按用户跨主题的条件查询能走 (user_id, ...) 复合索引，
+     * 不必先连接主题。历史记录由 OwnerColumnInitializer 在启动时补齐
+     */
+    @Column(name = "user_id", updatable = false)
+    private Long userId;
+    
+    /**
+     * 待办事项数量（汇总计数）
+     * 由待办事项的增删改在同一事务内维护，只通过更新语句修改，实体保存时不写入
+     */
+    @Column(name = "todo_count", columnDefinition = "INT DEFAULT 0", insertable = false, updatable = false)
+    private Integer todoCount = 0;
+    
+    /**
+     * 已完成的待办事项数量（汇总计数）
+     */
+    @Column(name = "completed_count", columnDefinition = "INT DEFAULT 0", insertable = false, updatable = false)
+    private Integer completedCount = 0;
+    
+    /**
+     * 待办事项进度之和（汇总计数）
+     * 每个待办事项按 0-100 截断后累加，任务进度 = progressSum / todoCount
+     */
+    @Column(name = "progress_sum", columnDefinition = "BIGINT DEFAULT 0", insertable = false, updatable = false)
+    private Long progressSum = 0L;
+    
     /**
      * 所属主题
      * 多对一关系，每个任务属于一个主题
@@ -265,6 +338,76 @@ public class Task {
      */
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
     
+    /**
+     * 获取删除时间
+     * 
+     * @return 删除时间，未删除时为 null
+     */
+    public LocalDateTime getDeletedAt() { return deletedAt; }
+    
+    /**
+     * 获取版本号
+     * 
+     * @return 版本号
+     */
+    public Long getVersion() { return version; }
+    
+    /**
+     * 获取所属用户ID
+     * 
+     * @return 所属用户ID
+     */
+    public Long getUserId() { return userId; }
+    
+    /**
+     * 设置所属用户ID，只在创建时生效
+     * 
+     * @param userId 所属用户ID
+     */
+    public void setUserId(Long userId) { this.userId = userId; }
+    
+    /**
+     * 获取待办事项数量
+     * 
+     * @return 待办事项数量
+     */
+    public Integer getTodoCount() { return todoCount; }
+    
+    /**
+     * 设置待办事项数量
+     * 
+     * @param todoCount 待办事项数量
+     */
+    public void setTodoCount(Integer todoCount) { this.todoCount = todoCount; }
+    
+    /**
+     * 获取已完成的待办事项数量
+     * 
+     * @return 已完成的待办事项数量
+     */
+    public Integer getCompletedCount() { return completedCount; }
+    
+    /**
+     * 设置已完成的待办事项数量
+     * 
+     * @param completedCount 已完成的待办事项数量
+     */
+    public void setCompletedCount(Integer completedCount) { this.completedCount = completedCount; }
+    
+    /**
+     * 获取待办事项进度之和
+     * 
+     * @return 待办事项进度之和
+     */
+    public Long getProgressSum() { return progressSum; }
+    
+    /**
+     * 设置待办事项进度之和
+     * 
+     * @param progressSum 待办事项进度之和
+     */
+    public void setProgressSum(Long progressSum) { this.progressSum = progressSum; }
+    
     /**
      * 获取所属主题
      * 
@@ -327,4 +470,4 @@ public class Task {
             this.title = this.name;
         }
     }
-}
\ No newline at end of file
+}
@@ -1,8 +1,11 @@
 package com.todolist.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.SQLRestriction;
 import java.time.LocalDateTime;
 
 /**
@@ -16,16 +19,27 @@ import java.time.LocalDateTime;
  * @since 2025-09-12
  */
 @Entity
-@Table(name = "todos")
+@DynamicUpdate
+@SQLRestriction("deleted_at is null")
+@Table(name = "todos", indexes = {
+    @Index(name = "idx_todos_task_created", columnList = "task_id, created_at, id"),
+    @Index(name = "idx_todos_task_change", columnList = "task_id, change_seq, synced_version, version"),
+    @Index(name = "idx_todos_deleted", columnList = "deleted_at"),
+    @Index(name = "idx_todos_user_completed_progress", columnList = "user_id, is_completed, progress"),
+    @Index(name = "idx_todos_user_progress", columnList = "user_id, progress"),
+    @Index(name = "idx_todos_user_completed_updated", columnList = "user_id, is_completed, updated_at"),
+    @Index(name = "idx_todos_user_updated", columnList = "user_id, updated_at")
+})
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Todo {
     
     /**
      * 待办事项唯一标识符
-     * 主键，自增长，用于唯一标识每个待办事项
+     * 主键，由 todos_seq 号段分配（每次预取50个），插入时可走 JDBC 批处理
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "todos_seq")
+    @SequenceGenerator(name = "todos_seq", sequenceName = "todos_seq", allocationSize = 50)
     private Long id;
     
     /**
@@ -91,6 +105,46 @@ public class Todo {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    /**
+     * 删除时间（墓碑标记）
+     * 为空表示未删除；删除时只写入该列，带墓碑的记录对所有查询不可见，
+     * 保留期内可以恢复，过期后由清理任务物理删除。只通过更新语句修改，实体保存时不写入
+     */
+    @Column(name = "deleted_at", insertable = false, updatable = false)
+    private LocalDateTime deletedAt;
+    
+    /**
+     * 版本号
+     * 待办每次修改都加1，用作 ETag 的校验值。
+     * 实体保存时由 JPA 自动递增并校验，批量更新语句显式执行 version = version + 1
+     */
+    @Version
+    @Column(name = "version", columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private Long version;
+    
+    /**
+     * 同步序号
+     * 增量同步最近一次观察到该待办变化时分配的用户级序号（见 SyncService），0 表示尚未被同步观察到。
+     * 写入路径不维护该列，只由同步接口通过更新语句修改，实体保存时不写入
+     */
+    @Column(name = "change_seq", columnDefinition = "BIGINT NOT NULL DEFAULT 0", insertable = false, updatable = false)
+    private Long changeSeq;
+    
+    /**
+     * 已同步的版本号
+     * 分配同步序号时的 version，与当前 version 不同说明有尚未分配序号的修改；新记录为 -1
+     */
+    @Column(name = "synced_version", columnDefinition = "BIGINT NOT NULL DEFAULT -1", insertable = false, updatable = false)
+    private Long syncedVersion;
+    
+    /**
+     * 所属用户ID
+     * 与所属主题的 user_id 相同，创建时写入、之后不变；使按用户跨主题的条件查询能走 (user_id, ...) 复合索引，
+     * 不必先连接任务和主题。历史记录由 OwnerColumnInitializer 在启动时补齐
+     */
+    @Column(name = "user_id", updatable = false)
+    private Long userId;
+    
     /**
      * 所属任务
      * 多对一关系，每个待办事项属于一个任务
@@ -101,6 +155,19 @@ public class Todo {
     @JsonBackReference
     private Task task;
     
+    /**
+     * 加载（或上次同步汇总计数）时的完成状态快照
+     * 不持久化，用于在更新时计算任务和主题汇总计数的增量
+     */
+    @Transient
+    private boolean rollupCompleted;
+    
+    /**
+     * 加载（或上次同步汇总计数）时的进度贡献快照，已截断到 0-100
+     */
+    @Transient
+    private int rollupProgress;
+    
     /**
      * 默认构造函数
      * JPA要求无参构造函数
@@ -281,6 +348,34 @@ public class Todo {
      */
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
     
+    /**
+     * 获取删除时间
+     * 
+     * @return 删除时间，未删除时为 null
+     */
+    public LocalDateTime getDeletedAt() { return deletedAt; }
+    
+    /**
+     * 获取版本号
+     * 
+     * @return 版本号
+     */
+    public Long getVersion() { return version; }
+    
+    /**
+     * 获取所属用户ID
+     * 
+     * @return 所属用户ID
+     */
+    public Long getUserId() { return userId; }
+    
+    /**
+     * 设置所属用户ID，只在创建时生效
+     * 
+     * @param userId 所属用户ID
+     */
+    public void setUserId(Long userId) { this.userId = userId; }
+    
     /**
      * 获取所属任务
      * 
@@ -295,6 +390,63 @@ public class Todo {
      */
     public void setTask(Task task) { this.task = task; }
     
+    /**
+     * 当前状态是否计为已完成（汇总计数口径）
+     * 
+     * @return 是否已完成
+     */
+    public boolean countsAsCompleted() {
+        return Boolean.TRUE.equals(isCompleted != null ? isCompleted : completed);
+    }
+    
+    /**
+     * 当前进度对汇总进度之和的贡献，截断到 0-100
+     * 
+     * @return 进度贡献值
+     */
+    public int progressContribution() {
+        return clampProgress(progress);
+    }
+    
+    /**
+     * 将进度值截断到 0-100，null 视为 0
+     * 
+     * @param progress 进度值
+     * @return 截断后的进度
+     */
+    public static int clampProgress(Integer progress) {
+        if (progress == null) {
+            return 0;
+        }
+        return Math.max(0, Math.min(progress, 100));
+    }
+    
+    /**
+     * 获取快照中的完成状态
+     * 
+     * @return 快照完成状态
+     */
+    @JsonIgnore
+    public boolean getRollupCompleted() { return rollupCompleted; }
+    
+    /**
+     * 获取快照中的进度贡献
+     * 
+     * @return 快照进度贡献
+     */
+    @JsonIgnore
+    public int getRollupProgress() { return rollupProgress; }
+    
+    /**
+     * 记录汇总计数快照
+     * 实体加载后自动调用；汇总计数同步后由服务层再次调用，避免同一实体重复计算增量
+     */
+    @PostLoad
+    public void snapshotRollup() {
+        this.rollupCompleted = countsAsCompleted();
+        this.rollupProgress = progressContribution();
+    }
+    
     /**
      * 创建前的回调方法
      * JPA生命周期回调，在实体保存前自动调用
@@ -336,5 +488,9 @@ public class Todo {
         if (this.isCompleted == null && this.completed != null) {
             this.isCompleted = this.completed;
         }
+        if (this.isCompleted == null && this.completed == null) {
+            this.isCompleted = false;
+            this.completed = false;
+        }
     }
-}
\ No newline at end of file
+}
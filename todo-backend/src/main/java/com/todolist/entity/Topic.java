@@ -3,6 +3,8 @@ package com.todolist.entity;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.SQLRestriction;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -18,16 +20,23 @@ import java.util.List;
  * @since 2025-09-12
  */
 @Entity
-@Table(name = "topics")
+@DynamicUpdate
+@SQLRestriction("deleted_at is null")
+@Table(name = "topics", indexes = {
+    @Index(name = "idx_topics_user_created", columnList = "user_id, created_at, id"),
+    @Index(name = "idx_topics_user_change", columnList = "user_id, change_seq"),
+    @Index(name = "idx_topics_deleted", columnList = "deleted_at")
+})
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Topic {
     
     /**
      * 主题唯一标识符
-     * 主键，自增长，用于唯一标识每个主题
+     * 主键，由 topics_seq 号段分配（每次预取50个），插入时可走 JDBC 批处理
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "topics_seq")
+    @SequenceGenerator(name = "topics_seq", sequenceName = "topics_seq", allocationSize = 50)
     private Long id;
     
     /**
@@ -58,6 +67,58 @@ public class Topic {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    /**
+     * 删除时间（墓碑标记）
+     * 为空表示未删除；删除时只写入该列，带墓碑的记录对所有查询不可见，
+     * 保留期内可以恢复，过期后由清理任务物理删除。只通过更新语句修改，实体保存时不写入
+     */
+    @Column(name = "deleted_at", insertable = false, updatable = false)
+    private LocalDateTime deletedAt;
+    
+    /**
+     * 版本号
+     * 主题信息或其汇总计数每次修改都加1（汇总计数随待办的增删改变化），用作 ETag 的校验值。
+     * 实体保存时由 JPA 自动递增并校验，批量更新语句显式执行 version = version + 1
+     */
+    @Version
+    @Column(name = "version", columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private Long version;
+    
+    /**
+     * 同步序号
+     * 增量同步最近一次观察到该主题变化时分配的用户级序号（见 SyncService），0 表示尚未被同步观察到。
+     * 写入路径不维护该列，只由同步接口通过更新语句修改，实体保存时不写入
+     */
+    @Column(name = "change_seq", columnDefinition = "BIGINT NOT NULL DEFAULT 0", insertable = false, updatable = false)
+    private Long changeSeq;
+    
+    /**
+     * 已同步的版本号
+     * 分配同步序号时的 version，与当前 version 不同说明有尚未分配序号的修改；新记录为 -1
+     */
+    @Column(name = "synced_version", columnDefinition = "BIGINT NOT NULL DEFAULT -1", insertable = false, updatable = false)
+    private Long syncedVersion;
+    
+    /**
+     * 待办事项数量（汇总计数）
+     * 由待办事项的增删改在同一事务内维护，只通过更新语句修改，实体保存时不写入
+     */
+    @Column(name = "todo_count", columnDefinition = "INT DEFAULT 0", insertable = false, updatable = false)
+    private Integer todoCount = 0;
+    
+    /**
+     * 已完成的待办事项数量（汇总计数）
+     */
+    @Column(name = "completed_count", columnDefinition = "INT DEFAULT 0", insertable = false, updatable = false)
+    private Integer completedCount = 0;
+    
+    /**
+     * 待办事项进度之和（汇总计数）
+     * 每个待办事项按 0-100 截断后累加，主题进度 = progressSum / todoCount
+     */
+    @Column(name = "progress_sum", columnDefinition = "BIGINT DEFAULT 0", insertable = false, updatable = false)
+    private Long progressSum = 0L;
+    
     /**
      * 所属用户
      * 多对一关系，每个主题属于一个用户
@@ -171,6 +232,62 @@ public class Topic {
      */
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
     
+    /**
+     * 获取删除时间
+     * 
+     * @return 删除时间，未删除时为 null
+     */
+    public LocalDateTime getDeletedAt() { return deletedAt; }
+    
+    /**
+     * 获取版本号
+     * 
+     * @return 版本号
+     */
+    public Long getVersion() { return version; }
+    
+    /**
+     * 获取待办事项数量
+     * 
+     * @return 待办事项数量
+     */
+    public Integer getTodoCount() { return todoCount; }
+    
+    /**
+     * 设置待办事项数量
+     * 
+     * @param todoCount 待办事项数量
+     */
+    public void setTodoCount(Integer todoCount) { this.todoCount = todoCount; }
+    
+    /**
+     * 获取已完成的待办事项数量
+     * 
+     * @return 已完成的待办事项数量
+     */
+    public Integer getCompletedCount() { return completedCount; }
+    
+    /**
+     * 设置已完成的待办事项数量
+     * 
+     * @param completedCount 已完成的待办事项数量
+     */
+    public void setCompletedCount(Integer completedCount) { this.completedCount = completedCount; }
+    
+    /**
+     * 获取待办事项进度之和
+     * 
+     * @return 待办事项进度之和
+     */
+    public Long getProgressSum() { return progressSum; }
+    
+    /**
+     * 设置待办事项进度之和
+     * 
+     * @param progressSum 待办事项进度之和
+     */
+    public void setProgressSum(Long progressSum) { this.progressSum = progressSum; }
+    
     /**
      * 获取所属用户
      * 
@@ -199,6 +316,17 @@ public class Topic {
      */
     public void setTasks(List<Task> tasks) { this.tasks = tasks; }
     
+    /**
+     * 创建前的回调方法
+     * JPA生命周期回调，在实体保存前自动调用
+     * 自动设置创建和更新时间
+     */
+    @PrePersist
+    public void prePersist() {
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = LocalDateTime.now();
+    }
+    
     /**
      * 更新前的回调方法
      * JPA生命周期回调，在实体更新前自动调用
@@ -16,15 +16,18 @@ import java.util.List;
  * @since 2025-09-12
  */
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+    @Index(name = "idx_users_created", columnList = "created_at, id")
+})
 public class User {
     
     /**
      * 用户唯一标识符
-     * 主键，自增长，用于唯一标识每个用户
+     * 主键，由 users_seq 号段分配（每次预取50个），插入时可走 JDBC 批处理
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
     
     /**
@@ -46,7 +49,7 @@ public class User {
      * 创建时间
      * 记录用户账户创建的时间戳
      */
-    @Column(name = "created_at")
+    @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
     
     /**
@@ -56,6 +59,20 @@ public class User {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    /**
+     * 当前同步序号
+     * 用户级单调递增的变更序号，每次增量同步发现新的变化时加1，只通过 SyncService 的语句修改，实体保存时不写入
+     */
+    @Column(name = "change_seq", columnDefinition = "BIGINT NOT NULL DEFAULT 0", insertable = false, updatable = false)
+    private Long changeSeq;
+    
+    /**
+     * 同步序号下限
+     * 清理任务物理删除墓碑记录后，早于该序号的同步游标可能漏掉删除，需要全量同步
+     */
+    @Column(name = "sync_floor_seq", columnDefinition = "BIGINT NOT NULL DEFAULT 0", insertable = false, updatable = false)
+    private Long syncFloorSeq;
+    
     /**
      * 用户关联的主题列表
      * 一对多关系，一个用户可以有多个主题
@@ -171,6 +188,17 @@ public class User {
      */
     public void setTopics(List<Topic> topics) { this.topics = topics; }
     
+    /**
+     * 创建前的回调方法
+     * JPA生命周期回调，在实体保存前自动调用
+     * 自动设置创建和更新时间
+     */
+    @PrePersist
+    public void prePersist() {
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = LocalDateTime.now();
+    }
+    
     /**
      * 更新前的回调方法
      * JPA生命周期回调，在实体更新前自动调用
@@ -180,4 +208,4 @@ public class User {
     public void preUpdate() {
         this.updatedAt = LocalDateTime.now();
     }
-}
\ No newline at end of file
+}
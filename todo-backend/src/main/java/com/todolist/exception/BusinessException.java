@@ -13,11 +13,17 @@ public class BusinessException extends RuntimeException {
     
     private final String errorCode;
     private final int httpStatus;
+    private final Object details;
     
-    public BusinessException(String errorCode, String message, int httpStatus) {
+    public BusinessException(String errorCode, String message, int httpStatus, Object details) {
         super(message);
         this.errorCode = errorCode;
         this.httpStatus = httpStatus;
+        this.details = details;
+    }
+    
+    public BusinessException(String errorCode, String message, int httpStatus) {
+        this(errorCode, message, httpStatus, null);
     }
     
     public BusinessException(String errorCode, String message) {
@@ -31,4 +37,11 @@ public class BusinessException extends RuntimeException {
     public int getHttpStatus() {
         return httpStatus;
     }
+    
+    /**
+     * 错误详情，例如批量操作中每一项的错误，放入响应的 data 字段
+     */
+    public Object getDetails() {
+        return details;
+    }
 }
@@ -32,8 +32,26 @@ public class ErrorCodes {
     public static final String TODO_ALREADY_EXISTS = "TODO_002";
     public static final String TODO_VALIDATION_FAILED = "TODO_003";
     
+    // 导入导出相关错误 (6000-6999)
+    public static final String IMPORT_INVALID_FORMAT = "IMPORT_001";
+    public static final String IMPORT_EMPTY_FILE = "IMPORT_002";
+    public static final String IMPORT_VALIDATION_FAILED = "IMPORT_003";
+    public static final String EXPORT_UNSUPPORTED_FORMAT = "EXPORT_001";
+    
+    // 搜索相关错误 (7000-7999)
+    public static final String SEARCH_INVALID_QUERY = "SEARCH_001";
+    public static final String SEARCH_UNAVAILABLE = "SEARCH_002";
+    
+    // 条件查询相关错误 (8000-8999)
+    public static final String QUERY_INVALID_CRITERIA = "QUERY_001";
+    public static final String QUERY_NOT_INDEXED = "QUERY_002";
+    
     // 系统相关错误 (5000-5999)
     public static final String SYSTEM_ERROR = "SYS_001";
     public static final String DATABASE_ERROR = "SYS_002";
     public static final String NETWORK_ERROR = "SYS_003";
+    public static final String INVALID_CURSOR = "SYS_004";
+    public static final String JOB_ALREADY_RUNNING = "SYS_005";
+    public static final String CONCURRENT_MODIFICATION = "SYS_006";
+    public static final String PRECONDITION_FAILED = "SYS_007";
 }
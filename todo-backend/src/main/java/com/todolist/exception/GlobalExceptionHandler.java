@@ -4,10 +4,12 @@ import com.todolist.exception.ApiResponse;
 import com.todolist.dto.AuthResponse;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.async.AsyncRequestNotUsableException;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -39,6 +41,7 @@ public class GlobalExceptionHandler {
         
         // 其他业务异常返回ApiResponse格式
         ApiResponse<Object> response = ApiResponse.error(ex.getErrorCode(), ex.getMessage());
+        response.setData(ex.getDetails());
         return ResponseEntity.status(ex.getHttpStatus()).body(response);
     }
 
@@ -59,6 +62,22 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
     }
 
+    /**
+     * 处理乐观锁冲突：保存实体时其版本号已被并发的写入修改
+     */
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<ApiResponse<Object>> handleOptimisticLockingFailure(ObjectOptimisticLockingFailureException ex) {
+        ApiResponse<Object> response = ApiResponse.error(ErrorCodes.CONCURRENT_MODIFICATION, "数据已被其他请求修改，请刷新后重试");
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+    }
+
+    /**
+     * 客户端已断开（如关闭事件订阅连接），响应无法再写出，不返回错误体
+     */
+    @ExceptionHandler(AsyncRequestNotUsableException.class)
+    public void handleAsyncRequestNotUsable(AsyncRequestNotUsableException ex) {
+    }
+
     /**
      * 处理其他运行时异常
      */
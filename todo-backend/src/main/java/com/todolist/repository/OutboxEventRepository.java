@@ -0,0 +1,51 @@
+package com.todolist.repository;
+
+import com.todolist.entity.OutboxEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * 当前最大的变更序号，发件箱为空时为 0
+     */
+    @Query("select coalesce(max(o.id), 0) from OutboxEvent o")
+    long findMaxId();
+
+    /**
+     * 变更序号大于 after 的记录，按序号递增返回，供中继按高水位分批读取
+     */
+    @Query("select o from OutboxEvent o where o.id > :after order by o.id")
+    List<OutboxEvent> findAfter(@Param("after") long after, Limit limit);
+
+    /**
+     * 物理删除最多 limit 条写入时间早于截止时间的记录
+     */
+    @Modifying
+    @Query(value = "delete from change_outbox where created_at < :cutoff limit :limit", nativeQuery = true)
+    int purgeCreatedBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    /**
+     * 序号大于 after、写入时间早于截止时间、且同一记录之后还有更新变更的记录ID，按序号递增返回，供压缩分批删除
+     */
+    @Query(value = "select o.id from change_outbox o where o.id > :after and o.created_at < :cutoff " +
+                   "and exists (select 1 from change_outbox n where n.entity_type = o.entity_type " +
+                   "and n.entity_id = o.entity_id and n.id > o.id) order by o.id limit :limit", nativeQuery = true)
+    List<Long> findSupersededIds(@Param("after") long after, @Param("cutoff") LocalDateTime cutoff,
+                                 @Param("limit") int limit);
+
+    /**
+     * 按ID批量物理删除
+     */
+    @Modifying
+    @Query("delete from OutboxEvent o where o.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
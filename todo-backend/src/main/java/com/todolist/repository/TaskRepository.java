@@ -1,12 +1,299 @@
 package com.todolist.repository;
 
+import com.todolist.dto.TaskDTO;
 import com.todolist.entity.Task;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TaskRepository extends JpaRepository<Task, Long> {
+    
+    /**
+     * TaskDTO 构造器投影的公共 select 子句，列表查询直接由结果行构建 DTO，不加载实体
+     * 内连接所属主题，使已删除主题下的任务同样不可见；条件需引用 p，否则 Hibernate 会裁剪掉这个连接，
+     * 使用方在其后以 and 追加条件
+     */
+    String TASK_DTO_SELECT = "select new com.todolist.dto.TaskDTO(t.id, t.title, t.description, t.status, t.priority, " +
+            "t.dueDate, t.createdAt, t.updatedAt, t.topic.id, t.todoCount, t.completedCount, t.progressSum, t.version) " +
+            "from Task t join t.topic p where p.deletedAt is null ";
+    
     List<Task> findByTopicId(Long topicId);
     List<Task> findByTopicIdOrderByCreatedAtDesc(Long topicId);
-}
\ No newline at end of file
+
+    /**
+     * 获取未删除且所属主题也未删除的任务
+     */
+    @Query("select t from Task t join t.topic p where t.id = :id and p.deletedAt is null")
+    Optional<Task> findActiveById(@Param("id") Long id);
+
+    /**
+     * 获取任务并一次性抓取其待办事项列表（单条 fetch join 查询），所属主题已删除时为空
+     */
+    @Query("select t from Task t join t.topic p left join fetch t.todos where t.id = :id and p.deletedAt is null")
+    Optional<Task> findWithTodosById(@Param("id") Long id);
+
+    /**
+     * 获取任务所属主题的ID，任务或主题不存在（含已删除）时为空
+     */
+    @Query("select p.id from Task t join t.topic p where t.id = :id and p.deletedAt is null")
+    Optional<Long> findTopicIdById(@Param("id") Long id);
+
+    /**
+     * 多个任务所属的主题ID（去重），不包括已删除的任务
+     */
+    @Query("select distinct t.topic.id from Task t where t.id in :ids")
+    List<Long> findTopicIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 获取主题下的所有任务，并一次性抓取每个任务的待办事项列表（单条 fetch join 查询）
+     */
+    @EntityGraph(attributePaths = "todos")
+    List<Task> findWithTodosByTopicId(Long topicId);
+
+    /**
+     * 直接投影为 TaskDTO 的列表查询，不加载实体，持久化上下文不随结果增长
+     */
+    @Query(TASK_DTO_SELECT +
+           "and t.topic.id = :topicId order by t.createdAt asc, t.id asc")
+    List<TaskDTO> findDTOsByTopicId(@Param("topicId") Long topicId);
+
+    /**
+     * 键集分页：主题下任务的第一页，按 (created_at, id) 升序，直接投影为 TaskDTO
+     */
+    @Query(TASK_DTO_SELECT +
+           "and t.topic.id = :topicId order by t.createdAt asc, t.id asc")
+    List<TaskDTO> findPageByTopicId(@Param("topicId") Long topicId, Limit limit);
+
+    /**
+     * 键集分页：主题下任务中排在游标 (createdAt, id) 之后的一页，直接投影为 TaskDTO
+     */
+    @Query(TASK_DTO_SELECT +
+           "and t.topic.id = :topicId " +
+           "and (t.createdAt > :createdAt or (t.createdAt = :createdAt and t.id > :id)) " +
+           "order by t.createdAt asc, t.id asc")
+    List<TaskDTO> findPageByTopicIdAfter(@Param("topicId") Long topicId,
+                                         @Param("createdAt") LocalDateTime createdAt,
+                                         @Param("id") Long id,
+                                         Limit limit);
+
+    /**
+     * 任务的版本号（主键查询，只读一列），用于计算 ETag，所属主题已删除时为空
+     */
+    @Query("select t.version from Task t join t.topic p where t.id = :id and p.deletedAt is null")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * 主题下任务的 (数量, 最大ID, 版本号之和)，用于计算任务列表的 ETag
+     */
+    @Query("select count(t), max(t.id), sum(t.version) from Task t join t.topic p " +
+           "where p.id = :topicId and p.deletedAt is null")
+    List<Object[]> findVersionSummaryByTopicId(@Param("topicId") Long topicId);
+
+    /**
+     * 按增量原子更新任务的汇总计数，避免并发写入时的读改写丢失
+     */
+    @Modifying
+    @Query("update Task t set t.todoCount = t.todoCount + :todoDelta, " +
+           "t.completedCount = t.completedCount + :completedDelta, " +
+           "t.progressSum = t.progressSum + :progressDelta, t.version = t.version + 1 where t.id = :taskId")
+    int applyRollupDelta(@Param("taskId") Long taskId,
+                         @Param("todoDelta") int todoDelta,
+                         @Param("completedDelta") int completedDelta,
+                         @Param("progressDelta") long progressDelta);
+
+    /**
+     * 按增量原子更新指定待办所属任务的汇总计数，调用方无需先查询任务ID
+     */
+    @Modifying
+    @Query("update Task t set t.todoCount = t.todoCount + :todoDelta, " +
+           "t.completedCount = t.completedCount + :completedDelta, " +
+           "t.progressSum = t.progressSum + :progressDelta, t.version = t.version + 1 " +
+           "where t.id = (select d.task.id from Todo d where d.id = :todoId)")
+    int applyRollupDeltaByTodoId(@Param("todoId") Long todoId,
+                                 @Param("todoDelta") int todoDelta,
+                                 @Param("completedDelta") int completedDelta,
+                                 @Param("progressDelta") long progressDelta);
+
+    /**
+     * 查询任务ID的取值范围，供汇总计数重算任务切分区间
+     */
+    @Query("select min(t.id), max(t.id) from Task t")
+    List<Object[]> findIdRange();
+
+    /**
+     * 按ID区间根据待办事项重新计算任务的汇总计数（单条集合更新语句）
+     */
+    @Modifying
+    @Query(value = "update tasks t left join (" +
+                   "select d.task_id, count(*) as cnt, " +
+                   "sum(case when d.is_completed then 1 else 0 end) as done, " +
+                   "sum(least(greatest(coalesce(d.progress, 0), 0), 100)) as psum " +
+                   "from todos d where d.task_id between :fromId and :toId and d.deleted_at is null group by d.task_id" +
+                   ") a on a.task_id = t.id " +
+                   "set t.todo_count = coalesce(a.cnt, 0), t.completed_count = coalesce(a.done, 0), " +
+                   "t.progress_sum = coalesce(a.psum, 0), t.version = t.version + 1 " +
+                   "where t.id between :fromId and :toId",
+           nativeQuery = true)
+    int recomputeRollupsInRange(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    /**
+     * 根据待办事项重新计算指定任务的汇总计数（单条集合更新语句）
+     */
+    @Modifying
+    @Query(value = "update tasks t left join (" +
+                   "select d.task_id, count(*) as cnt, " +
+                   "sum(case when d.is_completed then 1 else 0 end) as done, " +
+                   "sum(least(greatest(coalesce(d.progress, 0), 0), 100)) as psum " +
+                   "from todos d where d.task_id in (:ids) and d.deleted_at is null group by d.task_id" +
+                   ") a on a.task_id = t.id " +
+                   "set t.todo_count = coalesce(a.cnt, 0), t.completed_count = coalesce(a.done, 0), " +
+                   "t.progress_sum = coalesce(a.psum, 0), t.version = t.version + 1 " +
+                   "where t.id in (:ids)",
+           nativeQuery = true)
+    int recomputeRollupsForIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 用户全部任务的 (id, topicId, title, description)，用于合并导入时建立名称索引
+     */
+    @Query("select t.id, t.topic.id, t.title, t.description from Task t where t.topic.user.id = :userId")
+    List<Object[]> findMergeKeysByUserId(@Param("userId") Long userId);
+
+    /**
+     * 为任务写入墓碑标记（单行更新），已删除的任务不会被再次标记
+     * version 不为 null 时只在当前版本号与之相等时删除（If-Match 条件删除）
+     */
+    @Modifying
+    @Query("update Task t set t.deletedAt = :now, t.version = t.version + 1 " +
+           "where t.id = :id and (:version is null or t.version = :version)")
+    int softDeleteById(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("version") Long version);
+
+    /**
+     * 清除保留期内任务的墓碑标记，所属主题已删除时不恢复
+     */
+    @Modifying
+    @Query(value = "update tasks t join topics p on p.id = t.topic_id set t.deleted_at = null, t.version = t.version + 1 " +
+                   "where t.id = :id and t.deleted_at >= :since and p.deleted_at is null",
+           nativeQuery = true)
+    int restoreById(@Param("id") Long id, @Param("since") LocalDateTime since);
+
+    /**
+     * 任务的版本号，包括已删除的任务，用于在删除后的同一事务内读取新版本号
+     */
+    @Query(value = "select version from tasks where id = :id", nativeQuery = true)
+    Optional<Long> findVersionIncludingDeletedById(@Param("id") Long id);
+
+    /**
+     * 任务的 (所属用户ID, 主题ID)（包括已删除的任务），用于推送变更通知
+     */
+    @Query(value = "select p.user_id, p.id from tasks k join topics p on p.id = k.topic_id where k.id = :id",
+           nativeQuery = true)
+    List<Object[]> findOwnerById(@Param("id") Long id);
+
+    /**
+     * 为用户下有尚未同步修改（version 与 synced_version 不同）的任务分配同步序号，包括已删除的任务
+     */
+    @Modifying
+    @Query(value = "update tasks k join topics p on p.id = k.topic_id " +
+                   "set k.change_seq = :seq, k.synced_version = k.version " +
+                   "where p.user_id = :userId and k.synced_version <> k.version", nativeQuery = true)
+    int stampChangesByUserId(@Param("userId") Long userId, @Param("seq") long seq);
+
+    /**
+     * 用户下同步序号大于 since 的未删除任务，按 (topic_id, change_seq) 索引范围扫描，直接投影为 TaskDTO
+     */
+    @Query(TASK_DTO_SELECT +
+           "and p.user.id = :userId and t.changeSeq > :since order by t.id asc")
+    List<TaskDTO> findChangedByUserId(@Param("userId") Long userId, @Param("since") long since);
+
+    /**
+     * 用户下同步序号大于 since 的已删除任务ID
+     */
+    @Query(value = "select k.id from tasks k join topics p on p.id = k.topic_id " +
+                   "where p.user_id = :userId and k.change_seq > :since and k.deleted_at is not null",
+           nativeQuery = true)
+    List<Long> findDeletedIdsChangedByUserId(@Param("userId") Long userId, @Param("since") long since);
+
+    /**
+     * 把主题下全部任务标记为尚未同步，主题恢复后它们会重新出现在增量同步结果中
+     */
+    @Modifying
+    @Query(value = "update tasks set synced_version = -1 where topic_id = :topicId", nativeQuery = true)
+    int markUnsyncedByTopicId(@Param("topicId") Long topicId);
+
+    /**
+     * 删除时间早于截止时间的任务ID，按删除时间先后返回，供清理任务分批物理删除
+     */
+    @Query(value = "select id from tasks where deleted_at < :cutoff order by deleted_at limit :limit",
+           nativeQuery = true)
+    List<Long> findIdsDeletedBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    /**
+     * 主题下的任务ID（包括已删除的任务），供清理任务逐个物理删除，也用于筛选写回缓冲中属于该主题的修改
+     */
+    @Query(value = "select id from tasks where topic_id = :topicId limit :limit", nativeQuery = true)
+    List<Long> findIdsByTopicId(@Param("topicId") Long topicId, @Param("limit") int limit);
+
+    /**
+     * 物理删除单个任务，调用方需先删除其待办
+     */
+    @Modifying
+    @Query(value = "delete from tasks where id = :id", nativeQuery = true)
+    int purgeById(@Param("id") Long id);
+
+    /**
+     * 全文索引用的任务行 (ID, 主题ID, 所属用户ID, 标题, 描述)，主键在 [fromId, toId] 之间且任务、主题均未删除
+     */
+    @Query(value = "select k.id, k.topic_id, p.user_id, k.title, k.description from tasks k " +
+                   "join topics p on p.id = k.topic_id where k.id between :fromId and :toId " +
+                   "and k.deleted_at is null and p.deleted_at is null", nativeQuery = true)
+    List<Object[]> findSearchRowsInRange(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    /**
+     * 一批任务的全文索引行，已删除（或所属主题已删除）的任务不返回
+     */
+    @Query(value = "select k.id, k.topic_id, p.user_id, k.title, k.description from tasks k " +
+                   "join topics p on p.id = k.topic_id where k.id in :ids " +
+                   "and k.deleted_at is null and p.deleted_at is null", nativeQuery = true)
+    List<Object[]> findSearchRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 主题下未删除任务的全文索引行，主题恢复时重建其索引
+     */
+    @Query(value = "select k.id, k.topic_id, p.user_id, k.title, k.description from tasks k " +
+                   "join topics p on p.id = k.topic_id where k.topic_id = :topicId " +
+                   "and k.deleted_at is null and p.deleted_at is null", nativeQuery = true)
+    List<Object[]> findSearchRowsByTopicId(@Param("topicId") Long topicId);
+
+    /**
+     * 名称补全用的任务行 (ID, 主题ID, 所属用户ID, 标题)，主键在 [fromId, toId] 之间且任务、主题均未删除
+     */
+    @Query(value = "select k.id, k.topic_id, p.user_id, k.title from tasks k " +
+                   "join topics p on p.id = k.topic_id where k.id between :fromId and :toId " +
+                   "and k.deleted_at is null and p.deleted_at is null", nativeQuery = true)
+    List<Object[]> findNameRowsInRange(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    /**
+     * 一批任务的名称补全行，已删除（或所属主题已删除）的任务不返回
+     */
+    @Query(value = "select k.id, k.topic_id, p.user_id, k.title from tasks k " +
+                   "join topics p on p.id = k.topic_id where k.id in :ids " +
+                   "and k.deleted_at is null and p.deleted_at is null", nativeQuery = true)
+    List<Object[]> findNameRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 主题下未删除任务的名称补全行，主题恢复时重新加入补全
+     */
+    @Query(value = "select k.id, k.topic_id, p.user_id, k.title from tasks k " +
+                   "join topics p on p.id = k.topic_id where k.topic_id = :topicId " +
+                   "and k.deleted_at is null and p.deleted_at is null", nativeQuery = true)
+    List<Object[]> findNameRowsByTopicId(@Param("topicId") Long topicId);
+}
@@ -1,12 +1,272 @@
 package com.todolist.repository;
 
+import com.todolist.dto.TodoDTO;
 import com.todolist.entity.Todo;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TodoRepository extends JpaRepository<Todo, Long> {
+    
+    /**
+     * TodoDTO 构造器投影的公共 select 子句，列表查询直接由结果行构建 DTO，不加载实体
+     * 内连接所属任务和主题，使已删除任务或主题下的待办同样不可见；条件需引用 k、p，否则 Hibernate 会裁剪掉连接，
+     * 使用方在其后以 and 追加条件
+     */
+    String TODO_DTO_SELECT = "select new com.todolist.dto.TodoDTO(t.id, t.title, t.content, t.isCompleted, t.completed, " +
+            "t.progress, t.note, t.completedAt, t.createdAt, t.updatedAt, t.task.id, t.version) " +
+            "from Todo t join t.task k join k.topic p where k.deletedAt is null and p.deletedAt is null ";
+    
     List<Todo> findByTaskId(Long taskId);
     List<Todo> findByTaskIdOrderByCreatedAtDesc(Long taskId);
-}
\ No newline at end of file
+
+    /**
+     * 获取未删除且所属任务、主题也未删除的待办
+     */
+    @Query("select t from Todo t join t.task k join k.topic p " +
+           "where t.id = :id and k.deletedAt is null and p.deletedAt is null")
+    Optional<Todo> findActiveById(@Param("id") Long id);
+
+    /**
+     * 直接投影为 TodoDTO 的列表查询，不加载实体，持久化上下文不随结果增长
+     */
+    @Query(TODO_DTO_SELECT +
+           "and t.task.id = :taskId order by t.createdAt asc, t.id asc")
+    List<TodoDTO> findDTOsByTaskId(@Param("taskId") Long taskId);
+
+    /**
+     * 批量获取多个任务下的待办事项（单条 IN 查询），按任务分组顺序返回
+     * 配合 hibernate.query.in_clause_parameter_padding，不同数量的ID复用同一执行计划
+     */
+    @Query(TODO_DTO_SELECT +
+           "and t.task.id in :taskIds order by t.task.id asc, t.createdAt asc, t.id asc")
+    List<TodoDTO> findDTOsByTaskIdIn(@Param("taskIds") Collection<Long> taskIds);
+
+    /**
+     * 键集分页：任务下待办事项的第一页，按 (created_at, id) 升序，直接投影为 TodoDTO
+     */
+    @Query(TODO_DTO_SELECT +
+           "and t.task.id = :taskId order by t.createdAt asc, t.id asc")
+    List<TodoDTO> findPageByTaskId(@Param("taskId") Long taskId, Limit limit);
+
+    /**
+     * 键集分页：任务下待办事项中排在游标 (createdAt, id) 之后的一页，直接投影为 TodoDTO
+     */
+    @Query(TODO_DTO_SELECT +
+           "and t.task.id = :taskId " +
+           "and (t.createdAt > :createdAt or (t.createdAt = :createdAt and t.id > :id)) " +
+           "order by t.createdAt asc, t.id asc")
+    List<TodoDTO> findPageByTaskIdAfter(@Param("taskId") Long taskId,
+                                        @Param("createdAt") LocalDateTime createdAt,
+                                        @Param("id") Long id,
+                                        Limit limit);
+
+    /**
+     * 待办的版本号（主键查询，只读一列），用于计算 ETag，所属任务或主题已删除时为空
+     */
+    @Query("select t.version from Todo t join t.task k join k.topic p " +
+           "where t.id = :id and k.deletedAt is null and p.deletedAt is null")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * 任务下待办的 (数量, 最大ID, 版本号之和)，用于计算待办列表的 ETag，按 task_id 索引聚合，不构建 DTO
+     */
+    @Query("select count(t), max(t.id), sum(t.version) from Todo t join t.task k join k.topic p " +
+           "where k.id = :taskId and k.deletedAt is null and p.deletedAt is null")
+    List<Object[]> findVersionSummaryByTaskId(@Param("taskId") Long taskId);
+
+    /**
+     * 多个任务下待办的 (数量, 最大ID, 版本号之和)，用于计算批量查询的 ETag
+     */
+    @Query("select count(t), max(t.id), sum(t.version) from Todo t join t.task k join k.topic p " +
+           "where k.id in :taskIds and k.deletedAt is null and p.deletedAt is null")
+    List<Object[]> findVersionSummaryByTaskIdIn(@Param("taskIds") Collection<Long> taskIds);
+
+    /**
+     * 主题下全部待办的 (数量, 最大ID, 版本号之和)，用于计算包含待办的主题树的 ETag
+     */
+    @Query("select count(t), max(t.id), sum(t.version) from Todo t join t.task k join k.topic p " +
+           "where p.id = :topicId and k.deletedAt is null and p.deletedAt is null")
+    List<Object[]> findVersionSummaryByTopicId(@Param("topicId") Long topicId);
+
+    /**
+     * 加写锁读取待办的 (taskId, progress, isCompleted, completed, version)，
+     * 部分更新修改进度或完成状态以及删除待办时用于计算汇总计数的差额；所属任务或主题已删除时为空
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select k.id, t.progress, t.isCompleted, t.completed, t.version from Todo t join t.task k join k.topic p " +
+           "where t.id = :id and k.deletedAt is null and p.deletedAt is null")
+    List<Object[]> findRollupStateByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * 指定任务下待办的 (id, taskId, title, progress, isCompleted, note)，用于合并导入时建立标题索引
+     * 按 task_id 索引查找，调用方负责按批传入任务ID
+     */
+    @Query("select t.id, t.task.id, t.title, t.progress, t.isCompleted, t.note from Todo t " +
+           "where t.task.id in :taskIds")
+    List<Object[]> findMergeKeysByTaskIdIn(@Param("taskIds") Collection<Long> taskIds);
+
+    /**
+     * 将任务下所有未完成的待办标记为已完成并把进度设为100，isCompleted 与 completed 同步修改
+     * 已经是完成状态且进度为100的行不会被改写
+     */
+    @Modifying
+    @Query("update Todo t set t.isCompleted = true, t.completed = true, t.progress = 100, " +
+           "t.completedAt = coalesce(t.completedAt, :now), t.updatedAt = :now, t.version = t.version + 1 " +
+           "where t.task.id = :taskId and (coalesce(t.isCompleted, false) = false " +
+           "or coalesce(t.completed, false) = false or coalesce(t.progress, 0) <> 100)")
+    int completeAllByTaskId(@Param("taskId") Long taskId, @Param("now") LocalDateTime now);
+
+    /**
+     * 将任务下所有待办重置为未完成、进度为0，isCompleted 与 completed 同步修改
+     * 已经是初始状态的行不会被改写
+     */
+    @Modifying
+    @Query("update Todo t set t.isCompleted = false, t.completed = false, t.progress = 0, " +
+           "t.completedAt = null, t.updatedAt = :now, t.version = t.version + 1 " +
+           "where t.task.id = :taskId and (coalesce(t.isCompleted, false) = true " +
+           "or coalesce(t.completed, false) = true or coalesce(t.progress, 0) <> 0)")
+    int resetAllByTaskId(@Param("taskId") Long taskId, @Param("now") LocalDateTime now);
+
+    /**
+     * 为任务下已完成的待办写入墓碑标记，完成状态口径与汇总计数一致（优先 isCompleted，其次 completed）
+     */
+    @Modifying
+    @Query("update Todo t set t.deletedAt = :now, t.version = t.version + 1 " +
+           "where t.task.id = :taskId and coalesce(t.isCompleted, t.completed, false) = true")
+    int softDeleteCompletedByTaskId(@Param("taskId") Long taskId, @Param("now") LocalDateTime now);
+
+    /**
+     * 为待办写入墓碑标记（单行更新），已删除的待办不会被再次标记
+     */
+    @Modifying
+    @Query("update Todo t set t.deletedAt = :now, t.version = t.version + 1 where t.id = :id")
+    int softDeleteById(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    /**
+     * 清除保留期内待办的墓碑标记，所属任务或主题已删除时不恢复
+     */
+    @Modifying
+    @Query(value = "update todos d join tasks k on k.id = d.task_id join topics p on p.id = k.topic_id " +
+                   "set d.deleted_at = null, d.version = d.version + 1 " +
+                   "where d.id = :id and d.deleted_at >= :since and k.deleted_at is null and p.deleted_at is null",
+           nativeQuery = true)
+    int restoreById(@Param("id") Long id, @Param("since") LocalDateTime since);
+
+    /**
+     * 待办的 (所属用户ID, 任务ID, 主题ID)（包括已删除的待办），用于推送变更通知
+     */
+    @Query(value = "select p.user_id, k.id, p.id from todos d join tasks k on k.id = d.task_id " +
+                   "join topics p on p.id = k.topic_id where d.id = :id", nativeQuery = true)
+    List<Object[]> findOwnerById(@Param("id") Long id);
+
+    /**
+     * 一批待办的 (待办ID, 所属用户ID, 任务ID, 主题ID, 版本号)，用于写回缓冲写入后推送变更通知
+     */
+    @Query(value = "select d.id, p.user_id, k.id, p.id, d.version from todos d join tasks k on k.id = d.task_id " +
+                   "join topics p on p.id = k.topic_id where d.id in :ids", nativeQuery = true)
+    List<Object[]> findOwnersByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 用户下有尚未同步修改（version 与 synced_version 不同）的待办ID，包括已删除的待办
+     * 逐个任务扫描 idx_todos_task_change 覆盖索引判断，不回表；没有修改时只读索引
+     */
+    @Query(value = "select d.id from todos d join tasks k on k.id = d.task_id join topics p on p.id = k.topic_id " +
+                   "where p.user_id = :userId and d.synced_version <> d.version", nativeQuery = true)
+    List<Long> findUnsyncedIdsByUserId(@Param("userId") Long userId);
+
+    /**
+     * 为指定待办分配同步序号，并记录当前 version 为已同步的版本号
+     */
+    @Modifying
+    @Query(value = "update todos set change_seq = :seq, synced_version = version " +
+                   "where id in (:ids) and synced_version <> version", nativeQuery = true)
+    int stampChangesByIdIn(@Param("ids") Collection<Long> ids, @Param("seq") long seq);
+
+    /**
+     * 用户下同步序号大于 since 的未删除待办，按 (task_id, change_seq) 索引范围扫描，直接投影为 TodoDTO
+     */
+    @Query(TODO_DTO_SELECT +
+           "and p.user.id = :userId and t.changeSeq > :since order by t.id asc")
+    List<TodoDTO> findChangedByUserId(@Param("userId") Long userId, @Param("since") long since);
+
+    /**
+     * 用户下同步序号大于 since 的已删除待办ID
+     */
+    @Query(value = "select d.id from todos d join tasks k on k.id = d.task_id join topics p on p.id = k.topic_id " +
+                   "where p.user_id = :userId and d.change_seq > :since and d.deleted_at is not null",
+           nativeQuery = true)
+    List<Long> findDeletedIdsChangedByUserId(@Param("userId") Long userId, @Param("since") long since);
+
+    /**
+     * 把任务下全部待办标记为尚未同步，任务恢复后它们会重新出现在增量同步结果中
+     */
+    @Modifying
+    @Query(value = "update todos set synced_version = -1 where task_id = :taskId", nativeQuery = true)
+    int markUnsyncedByTaskId(@Param("taskId") Long taskId);
+
+    /**
+     * 把主题下全部待办标记为尚未同步，主题恢复后它们会重新出现在增量同步结果中
+     */
+    @Modifying
+    @Query(value = "update todos d join tasks k on k.id = d.task_id set d.synced_version = -1 " +
+                   "where k.topic_id = :topicId", nativeQuery = true)
+    int markUnsyncedByTopicId(@Param("topicId") Long topicId);
+
+    /**
+     * 物理删除最多 limit 个删除时间早于截止时间的待办
+     */
+    @Modifying
+    @Query(value = "delete from todos where deleted_at < :cutoff limit :limit", nativeQuery = true)
+    int purgeDeletedBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    /**
+     * 物理删除任务下最多 limit 个待办，不论其自身是否带墓碑标记
+     */
+    @Modifying
+    @Query(value = "delete from todos where task_id = :taskId limit :limit", nativeQuery = true)
+    int purgeByTaskId(@Param("taskId") Long taskId, @Param("limit") int limit);
+
+    /**
+     * 查询待办ID的取值范围，供全文索引构建切分区间
+     */
+    @Query("select min(t.id), max(t.id) from Todo t")
+    List<Object[]> findIdRange();
+
+    /**
+     * 全文索引用的待办行 (ID, 任务ID, 所属用户ID, 标题, 内容, 备注)，主键在 [fromId, toId] 之间且待办、任务、主题均未删除
+     */
+    @Query(value = "select d.id, d.task_id, p.user_id, d.title, d.content, d.note from todos d " +
+                   "join tasks k on k.id = d.task_id join topics p on p.id = k.topic_id " +
+                   "where d.id between :fromId and :toId " +
+                   "and d.deleted_at is null and k.deleted_at is null and p.deleted_at is null", nativeQuery = true)
+    List<Object[]> findSearchRowsInRange(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    /**
+     * 一批待办的全文索引行，已删除（或所属任务、主题已删除）的待办不返回
+     */
+    @Query(value = "select d.id, d.task_id, p.user_id, d.title, d.content, d.note from todos d " +
+                   "join tasks k on k.id = d.task_id join topics p on p.id = k.topic_id " +
+                   "where d.id in :ids " +
+                   "and d.deleted_at is null and k.deleted_at is null and p.deleted_at is null", nativeQuery = true)
+    List<Object[]> findSearchRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 一批任务下未删除待办的全文索引行，批量修改、导入或恢复任务后重建其索引
+     */
+    @Query(value = "select d.id, d.task_id, p.user_id, d.title, d.content, d.note from todos d " +
+                   "join tasks k on k.id = d.task_id join topics p on p.id = k.topic_id " +
+                   "where d.task_id in :taskIds " +
+                   "and d.deleted_at is null and k.deleted_at is null and p.deleted_at is null", nativeQuery = true)
+    List<Object[]> findSearchRowsByTaskIdIn(@Param("taskIds") Collection<Long> taskIds);
+}
@@ -1,12 +1,307 @@
 package com.todolist.repository;
 
+import com.todolist.dto.TopicDTO;
 import com.todolist.entity.Topic;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TopicRepository extends JpaRepository<Topic, Long> {
+    
+    /**
+     * TopicDTO 构造器投影的公共 select 子句，列表查询直接由结果行构建 DTO，不加载实体
+     */
+    String TOPIC_DTO_SELECT = "select new com.todolist.dto.TopicDTO(t.id, t.name, t.description, t.createdAt, t.updatedAt, t.user.id, " +
+            "t.todoCount, t.completedCount, t.progressSum, t.version) " +
+            "from Topic t ";
+    
     List<Topic> findByUserId(Long userId);
+    boolean existsByIdAndUserId(Long id, Long userId);
     List<Topic> findByUserIdOrderByCreatedAtDesc(Long userId);
-}
\ No newline at end of file
+
+    /**
+     * 获取主题并一次性抓取其任务列表（单条 fetch join 查询）
+     */
+    @EntityGraph(attributePaths = "tasks")
+    Optional<Topic> findWithTasksById(Long id);
+
+    /**
+     * 直接投影为 TopicDTO 的列表查询，按创建时间倒序，不加载实体
+     */
+    @Query(TOPIC_DTO_SELECT +
+           "where t.user.id = :userId order by t.createdAt desc, t.id desc")
+    List<TopicDTO> findDTOsByUserId(@Param("userId") Long userId);
+
+    /**
+     * 键集分页：用户主题的第一页，按 (created_at, id) 倒序，直接投影为 TopicDTO
+     */
+    @Query(TOPIC_DTO_SELECT +
+           "where t.user.id = :userId order by t.createdAt desc, t.id desc")
+    List<TopicDTO> findPageByUserId(@Param("userId") Long userId, Limit limit);
+
+    /**
+     * 键集分页：用户主题中排在游标 (createdAt, id) 之后的一页，直接投影为 TopicDTO
+     */
+    @Query(TOPIC_DTO_SELECT +
+           "where t.user.id = :userId " +
+           "and (t.createdAt < :createdAt or (t.createdAt = :createdAt and t.id < :id)) " +
+           "order by t.createdAt desc, t.id desc")
+    List<TopicDTO> findPageByUserIdAfter(@Param("userId") Long userId,
+                                         @Param("createdAt") LocalDateTime createdAt,
+                                         @Param("id") Long id,
+                                         Limit limit);
+
+    /**
+     * 主题的版本号（主键查询，只读一列），用于计算 ETag
+     */
+    @Query("select t.version from Topic t where t.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * 用户主题的 (数量, 最大ID, 版本号之和)，用于计算主题列表的 ETag
+     * 修改使版本号之和增大，新增使最大ID变化，删除使数量减少，恢复同样递增版本号
+     */
+    @Query("select count(t), max(t.id), sum(t.version) from Topic t where t.user.id = :userId")
+    List<Object[]> findVersionSummaryByUserId(@Param("userId") Long userId);
+
+    /**
+     * 为历史上未记录创建时间的主题补齐时间戳，保证分页排序键完整
+     */
+    @Modifying
+    @Transactional
+    @Query("update Topic t set t.createdAt = :now, t.updatedAt = coalesce(t.updatedAt, :now) where t.createdAt is null")
+    int backfillMissingCreatedAt(@Param("now") LocalDateTime now);
+
+    /**
+     * 按增量原子更新任务所属主题的汇总计数
+     */
+    @Modifying
+    @Query("update Topic p set p.todoCount = p.todoCount + :todoDelta, " +
+           "p.completedCount = p.completedCount + :completedDelta, " +
+           "p.progressSum = p.progressSum + :progressDelta, p.version = p.version + 1 " +
+           "where p.id = (select t.topic.id from Task t where t.id = :taskId)")
+    int applyRollupDeltaByTaskId(@Param("taskId") Long taskId,
+                                 @Param("todoDelta") int todoDelta,
+                                 @Param("completedDelta") int completedDelta,
+                                 @Param("progressDelta") long progressDelta);
+
+    /**
+     * 按增量原子更新指定待办所属主题的汇总计数，调用方无需先查询任务ID
+     */
+    @Modifying
+    @Query("update Topic p set p.todoCount = p.todoCount + :todoDelta, " +
+           "p.completedCount = p.completedCount + :completedDelta, " +
+           "p.progressSum = p.progressSum + :progressDelta, p.version = p.version + 1 " +
+           "where p.id = (select d.task.topic.id from Todo d where d.id = :todoId)")
+    int applyRollupDeltaByTodoId(@Param("todoId") Long todoId,
+                                 @Param("todoDelta") int todoDelta,
+                                 @Param("completedDelta") int completedDelta,
+                                 @Param("progressDelta") long progressDelta);
+
+    /**
+     * 从所属主题的汇总计数中扣除某个任务的计数，需在删除任务之前执行
+     */
+    @Modifying
+    @Query(value = "update topics p join tasks t on t.topic_id = p.id " +
+                   "set p.todo_count = p.todo_count - t.todo_count, " +
+                   "p.completed_count = p.completed_count - t.completed_count, " +
+                   "p.progress_sum = p.progress_sum - t.progress_sum, p.version = p.version + 1 " +
+                   "where t.id = :taskId",
+           nativeQuery = true)
+    int subtractTaskRollup(@Param("taskId") Long taskId);
+
+    /**
+     * 把恢复的任务的计数加回所属主题，与 subtractTaskRollup 相反
+     */
+    @Modifying
+    @Query(value = "update topics p join tasks t on t.topic_id = p.id " +
+                   "set p.todo_count = p.todo_count + t.todo_count, " +
+                   "p.completed_count = p.completed_count + t.completed_count, " +
+                   "p.progress_sum = p.progress_sum + t.progress_sum, p.version = p.version + 1 " +
+                   "where t.id = :taskId",
+           nativeQuery = true)
+    int addTaskRollup(@Param("taskId") Long taskId);
+
+    /**
+     * 查询主题ID的取值范围，供汇总计数重算任务切分区间
+     */
+    @Query("select min(t.id), max(t.id) from Topic t")
+    List<Object[]> findIdRange();
+
+    /**
+     * 按ID区间根据待办事项重新计算主题的汇总计数（单条集合更新语句）
+     */
+    @Modifying
+    @Query(value = "update topics p left join (" +
+                   "select k.topic_id, count(d.id) as cnt, " +
+                   "sum(case when d.is_completed then 1 else 0 end) as done, " +
+                   "sum(least(greatest(coalesce(d.progress, 0), 0), 100)) as psum " +
+                   "from tasks k join todos d on d.task_id = k.id " +
+                   "where k.topic_id between :fromId and :toId and k.deleted_at is null and d.deleted_at is null " +
+                   "group by k.topic_id" +
+                   ") a on a.topic_id = p.id " +
+                   "set p.todo_count = coalesce(a.cnt, 0), p.completed_count = coalesce(a.done, 0), " +
+                   "p.progress_sum = coalesce(a.psum, 0), p.version = p.version + 1 " +
+                   "where p.id between :fromId and :toId",
+           nativeQuery = true)
+    int recomputeRollupsInRange(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    /**
+     * 根据待办事项重新计算指定主题的汇总计数（单条集合更新语句）
+     */
+    @Modifying
+    @Query(value = "update topics p left join (" +
+                   "select k.topic_id, count(d.id) as cnt, " +
+                   "sum(case when d.is_completed then 1 else 0 end) as done, " +
+                   "sum(least(greatest(coalesce(d.progress, 0), 0), 100)) as psum " +
+                   "from tasks k join todos d on d.task_id = k.id " +
+                   "where k.topic_id in (:ids) and k.deleted_at is null and d.deleted_at is null " +
+                   "group by k.topic_id" +
+                   ") a on a.topic_id = p.id " +
+                   "set p.todo_count = coalesce(a.cnt, 0), p.completed_count = coalesce(a.done, 0), " +
+                   "p.progress_sum = coalesce(a.psum, 0), p.version = p.version + 1 " +
+                   "where p.id in (:ids)",
+           nativeQuery = true)
+    int recomputeRollupsForIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 为主题写入墓碑标记（单行更新），其下的任务和待办随之不可见，已删除的主题不会被再次标记
+     * version 不为 null 时只在当前版本号与之相等时删除（If-Match 条件删除）
+     */
+    @Modifying
+    @Query("update Topic t set t.deletedAt = :now, t.version = t.version + 1 " +
+           "where t.id = :id and (:version is null or t.version = :version)")
+    int softDeleteById(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("version") Long version);
+
+    /**
+     * 清除保留期内主题的墓碑标记，其下的任务和待办随之恢复可见（单独删除的除外）
+     */
+    @Modifying
+    @Query(value = "update topics set deleted_at = null, version = version + 1 where id = :id and deleted_at >= :since", nativeQuery = true)
+    int restoreById(@Param("id") Long id, @Param("since") LocalDateTime since);
+
+    /**
+     * 主题的版本号，包括已删除的主题，用于在删除后的同一事务内读取新版本号
+     */
+    @Query(value = "select version from topics where id = :id", nativeQuery = true)
+    Optional<Long> findVersionIncludingDeletedById(@Param("id") Long id);
+
+    /**
+     * 主题所属的用户ID（包括已删除的主题），用于推送变更通知
+     */
+    @Query(value = "select user_id from topics where id = :id", nativeQuery = true)
+    Optional<Long> findUserIdById(@Param("id") Long id);
+
+    /**
+     * 为用户下有尚未同步修改（version 与 synced_version 不同）的主题分配同步序号，包括已删除的主题
+     */
+    @Modifying
+    @Query(value = "update topics set change_seq = :seq, synced_version = version " +
+                   "where user_id = :userId and synced_version <> version", nativeQuery = true)
+    int stampChangesByUserId(@Param("userId") Long userId, @Param("seq") long seq);
+
+    /**
+     * 用户下同步序号大于 since 的未删除主题，按 (user_id, change_seq) 索引范围扫描，直接投影为 TopicDTO
+     */
+    @Query(TOPIC_DTO_SELECT +
+           "where t.user.id = :userId and t.changeSeq > :since order by t.id asc")
+    List<TopicDTO> findChangedByUserId(@Param("userId") Long userId, @Param("since") long since);
+
+    /**
+     * 用户下同步序号大于 since 的已删除主题ID
+     */
+    @Query(value = "select id from topics where user_id = :userId and change_seq > :since and deleted_at is not null",
+           nativeQuery = true)
+    List<Long> findDeletedIdsChangedByUserId(@Param("userId") Long userId, @Param("since") long since);
+
+    /**
+     * 删除时间早于截止时间的主题ID，按删除时间先后返回，供清理任务分批物理删除
+     */
+    @Query(value = "select id from topics where deleted_at < :cutoff order by deleted_at limit :limit",
+           nativeQuery = true)
+    List<Long> findIdsDeletedBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    /**
+     * 物理删除单个主题，调用方需先删除其任务和待办
+     */
+    @Modifying
+    @Query(value = "delete from topics where id = :id", nativeQuery = true)
+    int purgeById(@Param("id") Long id);
+
+    /**
+     * 用户全部主题的 (id, name, description)，用于合并导入时建立名称索引
+     */
+    @Query("select t.id, t.name, t.description from Topic t where t.user.id = :userId")
+    List<Object[]> findMergeKeysByUserId(@Param("userId") Long userId);
+
+    /**
+     * 按 专题 / 任务 / 待办 顺序逐行返回用户的全部数据，用于流式导出
+     * 每行为 (专题id, name, description, createdAt, updatedAt, 任务id, title, description, createdAt, updatedAt,
+     * 待办id, title, content, progress, isCompleted, note, completedAt, createdAt, updatedAt)，
+     * 没有任务或待办的专题、任务对应列为 null。
+     * fetch size 取 Integer.MIN_VALUE 让 MySQL 驱动逐行读取结果集而不是一次性缓存，
+     * 必须在只读事务内消费并关闭 Stream
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("select p.id, p.name, p.description, p.createdAt, p.updatedAt, " +
+           "k.id, k.title, k.description, k.createdAt, k.updatedAt, " +
+           "t.id, t.title, t.content, t.progress, t.isCompleted, t.note, t.completedAt, t.createdAt, t.updatedAt " +
+           "from Topic p left join p.tasks k left join k.todos t " +
+           "where p.user.id = :userId " +
+           "order by p.id, k.id, t.id")
+    Stream<Object[]> streamExportRowsByUserId(@Param("userId") Long userId);
+
+    /**
+     * 与 streamExportRowsByUserId 相同的逐行结果，只包含指定专题
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("select p.id, p.name, p.description, p.createdAt, p.updatedAt, " +
+           "k.id, k.title, k.description, k.createdAt, k.updatedAt, " +
+           "t.id, t.title, t.content, t.progress, t.isCompleted, t.note, t.completedAt, t.createdAt, t.updatedAt " +
+           "from Topic p left join p.tasks k left join k.todos t " +
+           "where p.id = :topicId and p.user.id = :userId " +
+           "order by k.id, t.id")
+    Stream<Object[]> streamExportRowsByTopicId(@Param("topicId") Long topicId, @Param("userId") Long userId);
+
+    /**
+     * 全文索引用的主题行 (ID, 所属用户ID, 名称, 描述)，主键在 [fromId, toId] 之间且未删除，供启动时分区间并行构建索引
+     */
+    @Query(value = "select id, user_id, name, description from topics " +
+                   "where id between :fromId and :toId and deleted_at is null", nativeQuery = true)
+    List<Object[]> findSearchRowsInRange(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    /**
+     * 一批主题的全文索引行，已删除的主题不返回
+     */
+    @Query(value = "select id, user_id, name, description from topics where id in :ids and deleted_at is null",
+           nativeQuery = true)
+    List<Object[]> findSearchRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 名称补全用的主题行 (ID, 所属用户ID, 名称)，主键在 [fromId, toId] 之间且未删除，只读名称不读描述
+     */
+    @Query(value = "select id, user_id, name from topics " +
+                   "where id between :fromId and :toId and deleted_at is null", nativeQuery = true)
+    List<Object[]> findNameRowsInRange(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    /**
+     * 一批主题的名称补全行，已删除的主题不返回
+     */
+    @Query(value = "select id, user_id, name from topics where id in :ids and deleted_at is null",
+           nativeQuery = true)
+    List<Object[]> findNameRowsByIdIn(@Param("ids") Collection<Long> ids);
+}
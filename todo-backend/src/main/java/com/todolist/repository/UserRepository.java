@@ -1,12 +1,94 @@
 package com.todolist.repository;
 
 import com.todolist.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     boolean existsByUsername(String username);
-}
\ No newline at end of file
+
+    /**
+     * 键集分页：用户列表的第一页，按 (created_at, id) 升序
+     */
+    @Query("select u from User u order by u.createdAt asc, u.id asc")
+    List<User> findPage(Limit limit);
+
+    /**
+     * 键集分页：排在游标 (createdAt, id) 之后的一页用户
+     */
+    @Query("select u from User u " +
+           "where u.createdAt > :createdAt or (u.createdAt = :createdAt and u.id > :id) " +
+           "order by u.createdAt asc, u.id asc")
+    List<User> findPageAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+
+    /**
+     * 为历史上未记录创建时间的用户补齐时间戳，保证分页排序键完整
+     */
+    @Modifying
+    @Transactional
+    @Query("update User u set u.createdAt = :now, u.updatedAt = coalesce(u.updatedAt, :now) where u.createdAt is null")
+    int backfillMissingCreatedAt(@Param("now") LocalDateTime now);
+
+    /**
+     * 锁定用户行并读取 (change_seq, sync_floor_seq)，同一用户的增量同步由该行锁串行执行
+     */
+    @Query(value = "select change_seq, sync_floor_seq from users where id = :id for update", nativeQuery = true)
+    List<Object[]> findSyncStateByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * 推进用户的同步序号，调用方需已通过 findSyncStateByIdForUpdate 锁定该行
+     */
+    @Modifying
+    @Query(value = "update users set change_seq = :seq where id = :id", nativeQuery = true)
+    int updateChangeSeq(@Param("id") Long id, @Param("seq") long seq);
+
+    /**
+     * 按即将被清理的主题墓碑抬高用户的同步序号下限
+     * 墓碑已分配同步序号时，下限取该序号（此后同步过的客户端已收到删除）；
+     * 尚未分配时说明删除后没有发生过同步，所有客户端都未收到删除，下限取当前序号 + 1
+     */
+    @Modifying
+    @Query(value = "update users u join (" +
+                   "select user_id, max(if(synced_version = version, change_seq, 0)) seen, " +
+                   "max(synced_version <> version) unseen " +
+                   "from topics where deleted_at < :cutoff group by user_id) x on x.user_id = u.id " +
+                   "set u.sync_floor_seq = greatest(u.sync_floor_seq, if(x.unseen = 1, u.change_seq + 1, x.seen))",
+           nativeQuery = true)
+    int raiseSyncFloorForTopicsDeletedBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * 按即将被清理的任务墓碑抬高用户的同步序号下限，规则同 raiseSyncFloorForTopicsDeletedBefore
+     */
+    @Modifying
+    @Query(value = "update users u join (" +
+                   "select p.user_id, max(if(k.synced_version = k.version, k.change_seq, 0)) seen, " +
+                   "max(k.synced_version <> k.version) unseen " +
+                   "from tasks k join topics p on p.id = k.topic_id " +
+                   "where k.deleted_at < :cutoff group by p.user_id) x on x.user_id = u.id " +
+                   "set u.sync_floor_seq = greatest(u.sync_floor_seq, if(x.unseen = 1, u.change_seq + 1, x.seen))",
+           nativeQuery = true)
+    int raiseSyncFloorForTasksDeletedBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * 按即将被清理的待办墓碑抬高用户的同步序号下限，规则同 raiseSyncFloorForTopicsDeletedBefore
+     */
+    @Modifying
+    @Query(value = "update users u join (" +
+                   "select p.user_id, max(if(d.synced_version = d.version, d.change_seq, 0)) seen, " +
+                   "max(d.synced_version <> d.version) unseen " +
+                   "from todos d join tasks k on k.id = d.task_id join topics p on p.id = k.topic_id " +
+                   "where d.deleted_at < :cutoff group by p.user_id) x on x.user_id = u.id " +
+                   "set u.sync_floor_seq = greatest(u.sync_floor_seq, if(x.unseen = 1, u.change_seq + 1, x.seen))",
+           nativeQuery = true)
+    int raiseSyncFloorForTodosDeletedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,394 @@
+package com.todolist.service;
+
+import com.todolist.dto.ChangeNotice;
+import com.todolist.repository.TaskRepository;
+import com.todolist.repository.TodoRepository;
+import com.todolist.repository.TopicRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 变更事件推送服务类
+ * 
+ * 维护每个用户的 SSE 订阅连接，主题、任务、待办被修改时向该用户的全部连接推送变更通知。
+ * 同一事务内产生的通知按记录合并，在事务提交前写入变更发件箱，提交后作为一个事件发送，回滚的修改既不记录也不推送；
+ * 没有事务时立即写入并发送。其他实例写入发件箱的变更由 ChangeOutboxRelay 读取后经 deliverRelayed 推送。
+ * 发送前同时交给 SearchIndexService 更新全文索引、交给 NameSuggestService 更新名称补全。
+ * 
+ * 推送不阻塞写入：每个连接有一个有界队列，写入线程只负责入队，由虚拟线程逐个连接写出。
+ * 队列满（客户端读取过慢或网络阻塞）时直接断开该连接，客户端重连后通过 /api/sync 补齐期间的变化。
+ * 空闲连接不占用线程，只保留 SseEmitter 和一个空队列
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+@Service
+public class ChangeEventService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ChangeEventService.class);
+    
+    @Autowired
+    private TopicRepository topicRepository;
+    
+    @Autowired
+    private TaskRepository taskRepository;
+    
+    @Autowired
+    private TodoRepository todoRepository;
+    
+    @Autowired
+    private ChangeOutboxService changeOutboxService;
+    
+    @Autowired
+    private SearchIndexService searchIndexService;
+    
+    @Autowired
+    private NameSuggestService nameSuggestService;
+    
+    @Value("${events.timeout-ms:1800000}")
+    private long timeoutMs;
+    
+    @Value("${events.buffer-size:256}")
+    private int bufferSize;
+    
+    @Value("${events.retry-ms:3000}")
+    private long retryMs;
+    
+    private final ConcurrentHashMap<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    
+    /**
+     * 为用户建立一个新的订阅连接
+     * 
+     * @param userId 用户ID
+     * @return SseEmitter 已发送连接事件的 SSE 连接
+     */
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(userId, emitter, new LinkedBlockingQueue<>(bufferSize));
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        // 连接事件在请求线程上发送：SseEmitter 先缓存它，处理器初始化时随响应头一起提交，
+        // 避免发送线程与请求线程上的过滤器同时写响应头
+        try {
+            emitter.send(SseEmitter.event().name("connected").reconnectTime(retryMs).data("ok"));
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            return emitter;
+        }
+        subscribers.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        logger.debug("事件订阅建立: 用户 {}, 当前连接数 {}", userId, getSubscriberCount());
+        return emitter;
+    }
+    
+    /**
+     * 当前订阅连接总数
+     * 
+     * @return int 连接数
+     */
+    public int getSubscriberCount() {
+        int count = 0;
+        for (Set<Subscriber> set : subscribers.values()) {
+            count += set.size();
+        }
+        return count;
+    }
+    
+    /**
+     * 主题被创建、修改、删除或恢复
+     * 
+     * @param topicId 主题ID
+     * @param version 修改后的版本号，未知时为 null
+     * @param deleted 是否为删除
+     */
+    public void topicChanged(Long topicId, Long version, boolean deleted) {
+        topicRepository.findUserIdById(topicId).ifPresent(userId ->
+            publish(userId, List.of(new ChangeNotice(ChangeNotice.TOPIC, topicId, version, deleted))));
+    }
+    
+    /**
+     * 任务被创建、修改、删除或恢复
+     * 
+     * @param taskId 任务ID
+     * @param version 修改后的版本号，未知时为 null
+     * @param deleted 是否为删除
+     * @param rollup 所属主题的汇总计数是否随之变化，为 true 时同时通知主题
+     */
+    public void taskChanged(Long taskId, Long version, boolean deleted, boolean rollup) {
+        List<Object[]> owner = taskRepository.findOwnerById(taskId);
+        if (owner.isEmpty()) {
+            return;
+        }
+        Object[] row = owner.get(0);
+        List<ChangeNotice> notices = new ArrayList<>(2);
+        notices.add(new ChangeNotice(ChangeNotice.TASK, taskId, version, deleted));
+        if (rollup) {
+            notices.add(new ChangeNotice(ChangeNotice.TOPIC, ((Number) row[1]).longValue(), null, false));
+        }
+        publish(((Number) row[0]).longValue(), notices);
+    }
+    
+    /**
+     * 待办被创建、修改、删除或恢复
+     * 
+     * @param todoId 待办ID
+     * @param version 修改后的版本号，未知时为 null
+     * @param deleted 是否为删除
+     * @param rollup 任务和主题的汇总计数是否随之变化，为 true 时同时通知任务和主题
+     */
+    public void todoChanged(Long todoId, Long version, boolean deleted, boolean rollup) {
+        List<Object[]> owner = todoRepository.findOwnerById(todoId);
+        if (owner.isEmpty()) {
+            return;
+        }
+        Object[] row = owner.get(0);
+        List<ChangeNotice> notices = new ArrayList<>(3);
+        notices.add(new ChangeNotice(ChangeNotice.TODO, todoId, version, deleted));
+        if (rollup) {
+            notices.add(new ChangeNotice(ChangeNotice.TASK, ((Number) row[1]).longValue(), null, false));
+            notices.add(new ChangeNotice(ChangeNotice.TOPIC, ((Number) row[2]).longValue(), null, false));
+        }
+        publish(((Number) row[0]).longValue(), notices);
+    }
+    
+    /**
+     * 任务下的待办被批量修改（批量创建、全部完成、全部重置、删除已完成）
+     * 只通知任务和主题，客户端应重新获取该任务下的待办
+     * 
+     * @param taskId 任务ID
+     */
+    public void todosChanged(Long taskId) {
+        taskChanged(taskId, null, false, true);
+    }
+    
+    /**
+     * 导入等批量写入修改了一个用户的多个主题和任务（及其下的待办）
+     * 只通知主题和任务，客户端应重新获取这些任务下的待办
+     * 
+     * @param userId 用户ID
+     * @param topicIds 受影响的主题ID
+     * @param taskIds 受影响的任务ID
+     */
+    public void bulkChanged(Long userId, Collection<Long> topicIds, Collection<Long> taskIds) {
+        List<ChangeNotice> notices = new ArrayList<>(topicIds.size() + taskIds.size());
+        for (Long taskId : taskIds) {
+            notices.add(new ChangeNotice(ChangeNotice.TASK, taskId, null, false));
+        }
+        for (Long topicId : topicIds) {
+            notices.add(new ChangeNotice(ChangeNotice.TOPIC, topicId, null, false));
+        }
+        publish(userId, notices);
+    }
+    
+    /**
+     * 一批待办由写回缓冲写入数据库，在写回事务内调用
+     * 每个待办连同所属任务、主题各通知一次，版本号为写入后的值
+     * 
+     * @param todoIds 待办ID
+     */
+    public void todosWritten(Collection<Long> todoIds) {
+        Map<Long, List<ChangeNotice>> byUser = new LinkedHashMap<>();
+        for (Object[] row : todoRepository.findOwnersByIdIn(todoIds)) {
+            List<ChangeNotice> notices = byUser.computeIfAbsent(((Number) row[1]).longValue(), id -> new ArrayList<>());
+            notices.add(new ChangeNotice(ChangeNotice.TODO, ((Number) row[0]).longValue(), ((Number) row[4]).longValue(), false));
+            notices.add(new ChangeNotice(ChangeNotice.TASK, ((Number) row[2]).longValue(), null, false));
+            notices.add(new ChangeNotice(ChangeNotice.TOPIC, ((Number) row[3]).longValue(), null, false));
+        }
+        byUser.forEach(this::publish);
+    }
+    
+    /**
+     * 推送其他实例写入发件箱的变更，不再写入发件箱
+     * 
+     * @param userId 用户ID
+     * @param notices 变更通知
+     */
+    public void deliverRelayed(Long userId, List<ChangeNotice> notices) {
+        deliver(userId, notices);
+    }
+    
+    /**
+     * 推送通知：事务内先暂存并按记录合并，提交前写入发件箱、提交后发送；没有事务时立即写入并发送
+     */
+    private void publish(Long userId, List<ChangeNotice> notices) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            changeOutboxService.append(userId, notices);
+            deliver(userId, notices);
+            return;
+        }
+        PendingNotices pending = null;
+        // 从当前事务的同步回调中查找，REQUIRES_NEW 的内层事务会挂起外层的回调，各自独立暂存
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingNotices found) {
+                pending = found;
+                break;
+            }
+        }
+        if (pending == null) {
+            pending = new PendingNotices();
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.add(userId, notices);
+    }
+    
+    /**
+     * 把一组通知交给全文索引和名称补全，并放入用户全部连接的发送队列
+     */
+    private void deliver(Long userId, List<ChangeNotice> notices) {
+        searchIndexService.onChanges(userId, notices);
+        nameSuggestService.onChanges(userId, notices);
+        Set<Subscriber> set = subscribers.get(userId);
+        if (set == null || set.isEmpty()) {
+            return;
+        }
+        for (Subscriber subscriber : set) {
+            subscriber.enqueue(SseEmitter.event().name("change").data(notices, MediaType.APPLICATION_JSON));
+        }
+    }
+    
+    /**
+     * 定时向全部连接发送心跳注释，防止代理关闭空闲连接，并及时发现已断开的连接
+     */
+    @Scheduled(fixedDelayString = "${events.heartbeat-ms:25000}")
+    public void heartbeat() {
+        for (Set<Subscriber> set : subscribers.values()) {
+            for (Subscriber subscriber : set) {
+                subscriber.enqueue(SseEmitter.event().comment("ping"));
+            }
+        }
+    }
+    
+    /**
+     * 应用关闭时结束全部连接，客户端会自动重连到其他实例
+     */
+    @PreDestroy
+    public void shutdown() {
+        for (Set<Subscriber> set : subscribers.values()) {
+            for (Subscriber subscriber : set) {
+                subscriber.emitter.complete();
+            }
+        }
+        subscribers.clear();
+        senders.shutdownNow();
+    }
+    
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.userId, (id, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+    
+    /**
+     * 一个事务内待推送的通知，按用户和记录合并
+     */
+    private final class PendingNotices implements TransactionSynchronization {
+        
+        private final Map<Long, Map<String, ChangeNotice>> byUser = new LinkedHashMap<>();
+        
+        void add(Long userId, List<ChangeNotice> notices) {
+            Map<String, ChangeNotice> byRecord = byUser.computeIfAbsent(userId, id -> new LinkedHashMap<>());
+            for (ChangeNotice notice : notices) {
+                String key = notice.getType() + ":" + notice.getId();
+                ChangeNotice previous = byRecord.get(key);
+                if (previous != null && notice.getVersion() == null) {
+                    // 汇总计数的通知不覆盖同一记录已知的版本号
+                    notice.setVersion(previous.getVersion());
+                    notice.setDeleted(previous.isDeleted() || notice.isDeleted());
+                }
+                byRecord.put(key, notice);
+            }
+        }
+        
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            byUser.forEach((userId, byRecord) -> changeOutboxService.append(userId, new ArrayList<>(byRecord.values())));
+        }
+        
+        @Override
+        public void afterCommit() {
+            byUser.forEach((userId, byRecord) -> deliver(userId, new ArrayList<>(byRecord.values())));
+        }
+    }
+    
+    /**
+     * 一个订阅连接及其发送队列，同一时刻最多有一个虚拟线程在写出该连接的队列
+     */
+    private final class Subscriber {
+        
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEventBuilder> queue;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        
+        Subscriber(Long userId, SseEmitter emitter, BlockingQueue<SseEventBuilder> queue) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.queue = queue;
+        }
+        
+        /**
+         * 入队一个事件并确保有线程在写出；队列已满时断开连接，不等待
+         */
+        void enqueue(SseEventBuilder event) {
+            if (!queue.offer(event)) {
+                logger.info("事件订阅发送过慢，断开连接: 用户 {}, 积压 {} 条", userId, queue.size());
+                remove(this);
+                queue.clear();
+                emitter.complete();
+                return;
+            }
+            if (sending.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+        
+        private void drain() {
+            while (true) {
+                SseEventBuilder event;
+                while ((event = queue.poll()) != null) {
+                    try {
+                        emitter.send(event);
+                    } catch (IOException | IllegalStateException e) {
+                        // 连接已关闭，由容器回调 onError / onCompletion
+                        remove(this);
+                        queue.clear();
+                        sending.set(false);
+                        return;
+                    }
+                }
+                sending.set(false);
+                // 释放标记后再检查一次，避免与刚入队的事件错过
+                if (queue.isEmpty() || !sending.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.todolist.service;
+
+import com.todolist.dto.ChangeNotice;
+import com.todolist.entity.OutboxEvent;
+import com.todolist.repository.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 变更发件箱中继
+ * 
+ * 每个实例按高水位（已处理的最大变更序号）分批读取发件箱，把其他实例写入的变更推送给本实例的订阅连接、全文索引和名称补全；
+ * 本实例写入的变更已在事务提交后直接推送，这里跳过。高水位从开始读取时的最大序号开始，不重放历史变更。
+ * 
+ * 自增主键在插入时分配、提交时才可见，序号较小的记录可能晚于较大的记录提交。
+ * 中继只推进到写入时间早于 settle-ms 的记录，遇到更新的记录就停下等待下一轮，
+ * 避免高水位越过尚未提交的记录；settle-ms 需大于写入事务的提交耗时与实例间的时钟偏差
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+@Service
+public class ChangeOutboxRelay {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ChangeOutboxRelay.class);
+    
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    
+    @Autowired
+    private ChangeOutboxService changeOutboxService;
+    
+    @Autowired
+    private ChangeEventService changeEventService;
+    
+    @Autowired
+    private SearchIndexService searchIndexService;
+    
+    @Autowired
+    private NameSuggestService nameSuggestService;
+    
+    @Value("${outbox.relay.batch-size:500}")
+    private int batchSize;
+    
+    @Value("${outbox.relay.settle-ms:1000}")
+    private long settleMs;
+    
+    /**
+     * 已处理的最大变更序号，-1 表示尚未初始化
+     */
+    private long highWaterMark = -1;
+    
+    /**
+     * 已处理的最大变更序号
+     * 
+     * @return long 高水位
+     */
+    public synchronized long getHighWaterMark() {
+        return highWaterMark;
+    }
+    
+    /**
+     * 定时读取高水位之后的变更，直到没有已稳定的新记录
+     */
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-ms:500}")
+    public synchronized void relay() {
+        if (changeEventService.getSubscriberCount() == 0 && !searchIndexService.isEnabled()
+                && !nameSuggestService.isEnabled()) {
+            // 本实例没有订阅连接、也不维护全文索引和名称补全时不读取，之后从当时的最大序号重新开始；新连接通过 /api/sync 补齐
+            highWaterMark = -1;
+            return;
+        }
+        if (highWaterMark < 0) {
+            highWaterMark = outboxEventRepository.findMaxId();
+            logger.debug("变更发件箱中继启动, 起始序号 {}", highWaterMark);
+            return;
+        }
+        String self = changeOutboxService.getInstanceId();
+        int relayed = 0;
+        while (true) {
+            LocalDateTime settled = LocalDateTime.now().minusNanos(settleMs * 1_000_000);
+            List<OutboxEvent> events = outboxEventRepository.findAfter(highWaterMark, Limit.of(batchSize));
+            Map<Long, List<ChangeNotice>> byUser = new LinkedHashMap<>();
+            boolean caughtUp = events.size() < batchSize;
+            for (OutboxEvent event : events) {
+                if (event.getCreatedAt().isAfter(settled)) {
+                    caughtUp = true;
+                    break;
+                }
+                if (!self.equals(event.getOrigin())) {
+                    byUser.computeIfAbsent(event.getUserId(), id -> new ArrayList<>()).add(new ChangeNotice(
+                        event.getEntityType(), event.getEntityId(), event.getEntityVersion(), event.isDeleted()));
+                    relayed++;
+                }
+                highWaterMark = event.getId();
+            }
+            byUser.forEach(changeEventService::deliverRelayed);
+            if (caughtUp) {
+                break;
+            }
+        }
+        if (relayed > 0) {
+            logger.debug("变更发件箱中继: 推送其他实例的变更 {} 条, 高水位 {}", relayed, highWaterMark);
+        }
+    }
+}
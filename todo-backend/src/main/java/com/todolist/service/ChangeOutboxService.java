@@ -0,0 +1,128 @@
+package com.todolist.service;
+
+import com.todolist.dto.ChangeNotice;
+import com.todolist.repository.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 变更发件箱服务类
+ * 
+ * 把 ChangeEventService 合并后的变更通知写入 change_outbox 表。调用方在修改数据的事务提交前写入，
+ * 发件箱记录与修改同时提交或同时回滚，按主键顺序构成可重放的变更流；没有事务时以自动提交单独写入。
+ * 
+ * 发件箱只保留最近一段时间：超过 compact-after-minutes 的记录中，同一主题、任务或待办只保留最新一条；
+ * 超过 retention-hours 的记录全部删除。删除按 chunk-size 分片，每片单独提交
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+@Service
+public class ChangeOutboxService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ChangeOutboxService.class);
+    
+    private static final String INSERT_SQL =
+        "insert into change_outbox (user_id, entity_type, entity_id, entity_version, deleted, origin, created_at) " +
+        "values (?, ?, ?, ?, ?, ?, ?)";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Value("${outbox.retention-hours:72}")
+    private int retentionHours;
+    
+    @Value("${outbox.compact-after-minutes:60}")
+    private int compactAfterMinutes;
+    
+    @Value("${outbox.cleanup.chunk-size:1000}")
+    private int chunkSize;
+    
+    /**
+     * 本实例的标识，写入每条记录，中继据此区分其他实例写入的变更
+     */
+    private final String instanceId = UUID.randomUUID().toString();
+    
+    /**
+     * 本实例的标识
+     * 
+     * @return String 实例标识
+     */
+    public String getInstanceId() {
+        return instanceId;
+    }
+    
+    /**
+     * 写入一个用户的一组变更通知，参与调用方当前的事务
+     * 
+     * @param userId 用户ID
+     * @param notices 变更通知
+     */
+    public void append(Long userId, List<ChangeNotice> notices) {
+        if (notices.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, notices, notices.size(), (statement, notice) -> {
+            statement.setLong(1, userId);
+            statement.setString(2, notice.getType());
+            statement.setLong(3, notice.getId());
+            statement.setObject(4, notice.getVersion(), Types.BIGINT);
+            statement.setBoolean(5, notice.isDeleted());
+            statement.setString(6, instanceId);
+            statement.setTimestamp(7, now);
+        });
+    }
+    
+    /**
+     * 定时压缩并清理发件箱：先删除已被同一记录更新的变更覆盖的旧记录，再删除超过保留期的记录
+     * 多个实例同时执行只会重复删除同一批记录，结果相同
+     */
+    @Scheduled(cron = "${outbox.cleanup.cron:0 */15 * * * *}")
+    public void cleanup() {
+        long start = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        
+        int compacted = 0;
+        long after = 0;
+        List<Long> ids;
+        LocalDateTime compactCutoff = now.minusMinutes(compactAfterMinutes);
+        while (!(ids = outboxEventRepository.findSupersededIds(after, compactCutoff, chunkSize)).isEmpty()) {
+            List<Long> batch = ids;
+            compacted += transactionTemplate.execute(status -> outboxEventRepository.deleteByIdIn(batch));
+            after = batch.get(batch.size() - 1);
+        }
+        
+        int purged = 0;
+        int deleted = chunkSize;
+        LocalDateTime retentionCutoff = now.minusHours(retentionHours);
+        while (deleted >= chunkSize) {
+            deleted = transactionTemplate.execute(status ->
+                outboxEventRepository.purgeCreatedBefore(retentionCutoff, chunkSize));
+            purged += deleted;
+        }
+        
+        if (compacted + purged > 0) {
+            logger.info("变更发件箱清理完成: 压缩 {} 条, 过期删除 {} 条, 耗时 {} ms",
+                compacted, purged, System.currentTimeMillis() - start);
+        }
+    }
+}
@@ -0,0 +1,404 @@
+package com.todolist.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.todolist.entity.User;
+import com.todolist.exception.BusinessException;
+import com.todolist.exception.ErrorCodes;
+import com.todolist.repository.TopicRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * 数据导出服务类
+ * 
+ * 从一条按 专题 / 任务 / 待办 排序的流式查询逐行读取数据，
+ * 通过 Jackson 的 JsonGenerator 边读边写到输出流，不在内存中组装对象树，
+ * 内存占用与工作区大小无关。JSON 输出结构与 example-data.json 一致，
+ * Markdown 输出符合 MARKDOWN_FORMAT.md
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+@Service
+public class ExportService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ExportService.class);
+    
+    /**
+     * 导出格式
+     */
+    public enum ExportFormat {
+        
+        /**
+         * 单个 JSON 文档：{"users": [...], "topics": {"用户名": [...]}}
+         */
+        JSON("json", MediaType.APPLICATION_JSON),
+        
+        /**
+         * 每行一个专题对象（包含其任务和待办），便于逐行处理
+         */
+        NDJSON("ndjson", MediaType.APPLICATION_NDJSON);
+        
+        private final String extension;
+        private final MediaType mediaType;
+        
+        ExportFormat(String extension, MediaType mediaType) {
+            this.extension = extension;
+            this.mediaType = mediaType;
+        }
+        
+        public String getExtension() { return extension; }
+        public MediaType getMediaType() { return mediaType; }
+        
+        /**
+         * 根据请求参数解析导出格式
+         * 
+         * @param value 请求参数 format 的值
+         * @return ExportFormat 对应的导出格式
+         * @throws BusinessException 如果格式不受支持
+         */
+        public static ExportFormat fromParam(String value) {
+            for (ExportFormat format : values()) {
+                if (format.extension.equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new BusinessException(ErrorCodes.EXPORT_UNSUPPORTED_FORMAT, "不支持的导出格式: " + value, 400);
+        }
+    }
+    
+    @Autowired
+    private TopicRepository topicRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    /**
+     * 将用户的全部专题、任务和待办流式写入输出流
+     * 结果集在只读事务内逐行读取，读完一行即写出一行
+     * 
+     * @param user 导出数据的所属用户
+     * @param format 导出格式
+     * @param out 输出流，由调用方负责关闭
+     * @throws IOException 写入失败（如客户端断开连接）时抛出
+     */
+    @Transactional(readOnly = true)
+    public void export(User user, ExportFormat format, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // 顶层对象之间默认以空格分隔，NDJSON 由 ExportWriter 在每个专题后写换行
+        generator.setRootValueSeparator(null);
+        JsonRowWriter writer = new JsonRowWriter(generator, format == ExportFormat.NDJSON);
+        
+        if (format == ExportFormat.JSON) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("users");
+            generator.writeStartObject();
+            generator.writeStringField("username", user.getUsername());
+            writeDate(generator, "createdAt", user.getCreatedAt());
+            writeDate(generator, "updatedAt", user.getUpdatedAt());
+            generator.writeEndObject();
+            generator.writeEndArray();
+            generator.writeObjectFieldStart("topics");
+            generator.writeArrayFieldStart(user.getUsername());
+        }
+        
+        writeRows(topicRepository.streamExportRowsByUserId(user.getId()), writer);
+        
+        if (format == ExportFormat.JSON) {
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+        generator.close();
+        
+        logger.info("数据导出完成: 用户 {}, 格式 {}, 专题 {} 个, 任务 {} 个, 待办 {} 个, 耗时 {} ms",
+            user.getId(), format.getExtension(), writer.topicCount, writer.taskCount, writer.todoCount,
+            System.currentTimeMillis() - start);
+    }
+    
+    /**
+     * 将当前用户的全部数据或单个专题按 MARKDOWN_FORMAT.md 流式写入输出流
+     * 每读一行结果即写出对应的 Markdown 行，不拼接整个文档
+     * 
+     * @param user 导出数据的所属用户
+     * @param topicId 专题ID，为空时导出全部专题
+     * @param out 输出流，由调用方负责关闭
+     * @throws IOException 写入失败（如客户端断开连接）时抛出
+     */
+    @Transactional(readOnly = true)
+    public void exportMarkdown(User user, Long topicId, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        MarkdownRowWriter markdown = new MarkdownRowWriter(writer);
+        writeRows(topicId == null
+            ? topicRepository.streamExportRowsByUserId(user.getId())
+            : topicRepository.streamExportRowsByTopicId(topicId, user.getId()), markdown);
+        writer.flush();
+        
+        logger.info("Markdown 导出完成: 用户 {}, 专题 {} 个, 任务 {} 个, 待办 {} 个, 耗时 {} ms",
+            user.getId(), markdown.topicCount, markdown.taskCount, markdown.todoCount,
+            System.currentTimeMillis() - start);
+    }
+    
+    /**
+     * 校验专题存在且属于指定用户，需在开始写出响应之前调用
+     * 
+     * @param topicId 专题ID
+     * @param user 当前用户
+     * @throws BusinessException 如果专题不存在或不属于该用户
+     */
+    public void requireOwnTopic(Long topicId, User user) {
+        if (!topicRepository.existsByIdAndUserId(topicId, user.getId())) {
+            throw new BusinessException(ErrorCodes.TOPIC_NOT_FOUND, "专题不存在", 404);
+        }
+    }
+    
+    private static void writeRows(Stream<Object[]> rows, RowWriter writer) throws IOException {
+        try (rows) {
+            Iterator<Object[]> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                writer.write(iterator.next());
+            }
+        }
+        writer.finish();
+    }
+    
+    private static void writeDate(JsonGenerator generator, String field, Object value) throws IOException {
+        if (value != null) {
+            generator.writeStringField(field, DateTimeFormatter.ISO_LOCAL_DATE_TIME.format((LocalDateTime) value));
+        }
+    }
+    
+    private static void writeText(JsonGenerator generator, String field, Object value) throws IOException {
+        if (value != null) {
+            generator.writeStringField(field, (String) value);
+        }
+    }
+    
+    /**
+     * 把左连接得到的扁平结果行还原为 专题 / 任务 / 待办 的嵌套结构
+     * 只记住当前专题和任务的ID，ID 变化时回调子类闭合上一层并开始新的一层
+     */
+    private abstract static class RowWriter {
+        
+        private Object currentTopicId;
+        private Object currentTaskId;
+        int topicCount;
+        int taskCount;
+        int todoCount;
+        
+        void write(Object[] row) throws IOException {
+            if (!Objects.equals(row[0], currentTopicId)) {
+                closeTopic();
+                currentTopicId = row[0];
+                topicCount++;
+                startTopic(row);
+            }
+            if (row[5] != null && !Objects.equals(row[5], currentTaskId)) {
+                closeTask();
+                currentTaskId = row[5];
+                taskCount++;
+                startTask(row);
+            }
+            if (row[10] != null) {
+                todoCount++;
+                writeTodo(row);
+            }
+        }
+        
+        void finish() throws IOException {
+            closeTopic();
+        }
+        
+        private void closeTask() throws IOException {
+            if (currentTaskId != null) {
+                endTask();
+                currentTaskId = null;
+            }
+        }
+        
+        private void closeTopic() throws IOException {
+            closeTask();
+            if (currentTopicId != null) {
+                endTopic();
+                currentTopicId = null;
+            }
+        }
+        
+        abstract void startTopic(Object[] row) throws IOException;
+        abstract void endTopic() throws IOException;
+        abstract void startTask(Object[] row) throws IOException;
+        abstract void endTask() throws IOException;
+        abstract void writeTodo(Object[] row) throws IOException;
+    }
+    
+    /**
+     * 以 example-data.json 的字段写出 JSON 对象
+     */
+    private static final class JsonRowWriter extends RowWriter {
+        
+        private final JsonGenerator generator;
+        private final boolean ndjson;
+        
+        JsonRowWriter(JsonGenerator generator, boolean ndjson) {
+            this.generator = generator;
+            this.ndjson = ndjson;
+        }
+        
+        @Override
+        void startTopic(Object[] row) throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("id", String.valueOf(row[0]));
+            writeText(generator, "name", row[1]);
+            writeText(generator, "description", row[2]);
+            writeDate(generator, "createdAt", row[3]);
+            writeDate(generator, "updatedAt", row[4]);
+            generator.writeArrayFieldStart("tasks");
+        }
+        
+        @Override
+        void endTopic() throws IOException {
+            generator.writeEndArray();
+            generator.writeEndObject();
+            if (ndjson) {
+                generator.writeRaw('\n');
+            }
+        }
+        
+        @Override
+        void startTask(Object[] row) throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("id", String.valueOf(row[5]));
+            writeText(generator, "name", row[6]);
+            writeText(generator, "description", row[7]);
+            writeDate(generator, "createdAt", row[8]);
+            writeDate(generator, "updatedAt", row[9]);
+            generator.writeArrayFieldStart("todos");
+        }
+        
+        @Override
+        void endTask() throws IOException {
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        
+        @Override
+        void writeTodo(Object[] row) throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("id", String.valueOf(row[10]));
+            writeText(generator, "title", row[11]);
+            writeText(generator, "description", row[12]);
+            generator.writeBooleanField("completed", Boolean.TRUE.equals(row[14]));
+            generator.writeNumberField("progress", row[13] != null ? (Integer) row[13] : 0);
+            writeText(generator, "note", row[15]);
+            writeDate(generator, "completedAt", row[16]);
+            writeDate(generator, "createdAt", row[17]);
+            writeDate(generator, "updatedAt", row[18]);
+            generator.writeEndObject();
+        }
+    }
+    
+    /**
+     * 按 MARKDOWN_FORMAT.md 写出 # 专题 / ## 任务 / - 待办 及进度、备注子项，
+     * 输出可以直接通过 Markdown 导入接口重新导入
+     */
+    private static final class MarkdownRowWriter extends RowWriter {
+        
+        private final Writer out;
+        private boolean firstTopic = true;
+        private boolean firstTodo;
+        
+        MarkdownRowWriter(Writer out) {
+            this.out = out;
+        }
+        
+        @Override
+        void startTopic(Object[] row) throws IOException {
+            if (!firstTopic) {
+                out.write('\n');
+            }
+            firstTopic = false;
+            out.write("# ");
+            out.write(singleLine((String) row[1]));
+            out.write('\n');
+            writeDescription(row[2]);
+        }
+        
+        @Override
+        void endTopic() {
+        }
+        
+        @Override
+        void startTask(Object[] row) throws IOException {
+            out.write("\n## ");
+            out.write(singleLine((String) row[6]));
+            out.write('\n');
+            writeDescription(row[7]);
+            firstTodo = true;
+        }
+        
+        @Override
+        void endTask() {
+        }
+        
+        @Override
+        void writeTodo(Object[] row) throws IOException {
+            if (firstTodo) {
+                out.write('\n');
+                firstTodo = false;
+            }
+            int progress = row[13] != null ? (Integer) row[13] : 0;
+            // 进度未满但已标记完成时用 [x] 保留完成状态，其余情况完成状态由进度推出
+            out.write(Boolean.TRUE.equals(row[14]) && progress < 100 ? "- [x] " : "- ");
+            out.write(singleLine((String) row[11]));
+            out.write("\n  - 进度：");
+            out.write(Integer.toString(progress));
+            out.write("%\n");
+            String note = (String) row[15];
+            if (note != null && !note.isBlank()) {
+                out.write("  - 备注：");
+                out.write(singleLine(note));
+                out.write('\n');
+            }
+        }
+        
+        private void writeDescription(Object description) throws IOException {
+            if (description == null) {
+                return;
+            }
+            for (String line : ((String) description).split("\\R")) {
+                if (!line.isBlank()) {
+                    out.write(line.strip());
+                    out.write('\n');
+                }
+            }
+        }
+        
+        /**
+         * 标题和备注在 Markdown 中只能占一行，换行替换为空格
+         */
+        private static String singleLine(String text) {
+            return text == null ? "" : text.replaceAll("\\s*\\R\\s*", " ").strip();
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package com.todolist.service;
+
+import com.todolist.dto.ImportResult;
+import com.todolist.dto.TaskDTO;
+import com.todolist.dto.TodoDTO;
+import com.todolist.dto.TopicDTO;
+import com.todolist.entity.Task;
+import com.todolist.entity.Todo;
+import com.todolist.entity.Topic;
+import com.todolist.entity.User;
+import com.todolist.exception.BusinessException;
+import com.todolist.exception.ErrorCodes;
+import com.todolist.repository.TaskRepository;
+import com.todolist.repository.TodoRepository;
+import com.todolist.repository.TopicRepository;
+import com.todolist.util.MarkdownStreamParser;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 合并导入服务类
+ * 
+ * 按 DATA_MERGE.md 的规则把导入数据合并到用户现有数据中：
+ * 专题按名称、任务按名称、待办按标题匹配；匹配到的专题和任务更新描述，
+ * 匹配到的待办保留较大的进度并覆盖备注，未匹配的作为新数据添加。
+ * 
+ * 开始时用投影查询把用户现有数据逐层装入哈希索引，之后每条导入数据的匹配都是 O(1)，
+ * 总耗时与导入数据量和现有数据量呈线性关系。新增数据按批持久化，
+ * 对已有数据的修改在最后用一次 JDBC 批量更新写入，全部在同一个事务内完成
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+@Service
+public class ImportMergeService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ImportMergeService.class);
+    
+    /**
+     * 每新增多少个实体刷新并清空一次持久化上下文
+     */
+    private static final int FLUSH_INTERVAL = 500;
+    
+    /**
+     * 专题名称和任务标题的最大长度（VARCHAR(255)）
+     */
+    private static final int MAX_NAME_LENGTH = 255;
+    
+    /**
+     * 加载现有待办时每条查询包含的任务ID数量
+     */
+    private static final int ID_CHUNK_SIZE = 500;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private TopicRepository topicRepository;
+    
+    @Autowired
+    private TaskRepository taskRepository;
+    
+    @Autowired
+    private TodoRepository todoRepository;
+    
+    @Autowired
+    private ProgressRollupService progressRollupService;
+    
+    @Autowired
+    private ChangeEventService changeEventService;
+    
+    /**
+     * 把 Markdown 文件合并到指定用户的现有数据中，边解析边合并
+     * 
+     * @param reader Markdown 字符流
+     * @param user 目标用户
+     * @return ImportResult 新增和合并的数量及耗时
+     * @throws IOException 读取失败时抛出
+     * @throws BusinessException 格式或数据不合法时抛出，事务整体回滚
+     */
+    @Transactional
+    public ImportResult mergeMarkdown(Reader reader, User user) throws IOException {
+        MergeSession session = new MergeSession(user.getId());
+        new MarkdownStreamParser(session).parse(reader);
+        return session.finish();
+    }
+    
+    /**
+     * 把 JSON 结构的专题树（example-data.json 中 topics 下的格式）合并到指定用户的现有数据中
+     * 
+     * @param topics 导入的专题列表，包含任务和待办
+     * @param user 目标用户
+     * @return ImportResult 新增和合并的数量及耗时
+     * @throws BusinessException 数据不合法时抛出，事务整体回滚
+     */
+    @Transactional
+    public ImportResult mergeTopics(List<TopicDTO> topics, User user) {
+        if (topics == null || topics.isEmpty()) {
+            throw new BusinessException(ErrorCodes.IMPORT_EMPTY_FILE, "导入的专题列表为空", 400);
+        }
+        MergeSession session = new MergeSession(user.getId());
+        for (TopicDTO topic : topics) {
+            session.onTopic(requireName(topic.getName(), "专题名称"), topic.getDescription());
+            for (TaskDTO task : nullToEmpty(topic.getTasks())) {
+                session.onTask(requireName(task.getTitle(), "任务标题"), task.getDescription());
+                for (TodoDTO todo : nullToEmpty(task.getTodos())) {
+                    String title = todo.getTitle() != null && !todo.getTitle().trim().isEmpty()
+                        ? todo.getTitle() : todo.getContent();
+                    int progress = todo.getProgress() != null ? todo.getProgress() : 0;
+                    if (progress < 0 || progress > 100) {
+                        throw new BusinessException(ErrorCodes.IMPORT_VALIDATION_FAILED,
+                            "待办事项 \"" + title + "\": 进度必须在0-100之间", 400);
+                    }
+                    boolean completed = Boolean.TRUE.equals(todo.getIsCompleted())
+                        || Boolean.TRUE.equals(todo.getCompleted());
+                    session.onTodo(requireName(title, "待办标题"), progress, completed || progress >= 100, todo.getNote());
+                }
+            }
+        }
+        return session.finish();
+    }
+    
+    private static <T> List<T> nullToEmpty(List<T> list) {
+        return list != null ? list : List.of();
+    }
+    
+    private static String requireName(String name, String label) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new BusinessException(ErrorCodes.IMPORT_VALIDATION_FAILED, label + "不能为空", 400);
+        }
+        String value = name.trim();
+        if (value.length() > MAX_NAME_LENGTH) {
+            throw new BusinessException(ErrorCodes.IMPORT_VALIDATION_FAILED,
+                label + "不能超过 " + MAX_NAME_LENGTH + " 个字符: " + value.substring(0, 20) + "...", 400);
+        }
+        return value;
+    }
+    
+    private static boolean hasText(String value) {
+        return value != null && !value.trim().isEmpty();
+    }
+    
+    /**
+     * 专题或任务在索引中的状态
+     */
+    private static final class NodeState {
+        private final Long id;
+        private String description;
+        
+        NodeState(Long id, String description) {
+            this.id = id;
+            this.description = description;
+        }
+    }
+    
+    /**
+     * 待办在索引中的状态
+     */
+    private static final class TodoState {
+        private final Long id;
+        private int progress;
+        private boolean completed;
+        private String note;
+        
+        TodoState(Long id, int progress, boolean completed, String note) {
+            this.id = id;
+            this.progress = progress;
+            this.completed = completed;
+            this.note = note;
+        }
+    }
+    
+    /**
+     * 单次合并的上下文：三层哈希索引、当前父节点以及待写回的修改
+     */
+    private class MergeSession implements MarkdownStreamParser.Handler {
+        
+        private final long start = System.currentTimeMillis();
+        private final Long userId;
+        
+        private final Map<String, NodeState> topicsByName = new HashMap<>();
+        private final Map<Long, Map<String, NodeState>> tasksByTopic = new HashMap<>();
+        private final Map<Long, Map<String, TodoState>> todosByTask = new HashMap<>();
+        
+        private final Set<NodeState> dirtyTopics = new LinkedHashSet<>();
+        private final Set<NodeState> dirtyTasks = new LinkedHashSet<>();
+        private final Set<TodoState> dirtyTodos = new LinkedHashSet<>();
+        private final Set<Long> touchedTopicIds = new LinkedHashSet<>();
+        private final Set<Long> touchedTaskIds = new LinkedHashSet<>();
+        
+        private Long currentTopicId;
+        private Long currentTaskId;
+        private int pending;
+        private int createdTopics;
+        private int createdTasks;
+        private int createdTodos;
+        private int mergedTopics;
+        private int mergedTasks;
+        
+        MergeSession(Long userId) {
+            this.userId = userId;
+            for (Object[] row : topicRepository.findMergeKeysByUserId(userId)) {
+                topicsByName.putIfAbsent((String) row[1], new NodeState((Long) row[0], (String) row[2]));
+            }
+            int taskCount = 0;
+            for (Object[] row : taskRepository.findMergeKeysByUserId(userId)) {
+                taskCount++;
+                tasksByTopic.computeIfAbsent((Long) row[1], k -> new HashMap<>())
+                    .putIfAbsent((String) row[2], new NodeState((Long) row[0], (String) row[3]));
+            }
+            // 待办按任务ID分批走 task_id 索引查找，避免三表连接在大数据量下退化为全表扫描
+            List<Long> taskIds = new ArrayList<>(taskCount);
+            tasksByTopic.values().forEach(tasks -> tasks.values().forEach(task -> taskIds.add(task.id)));
+            for (int from = 0; from < taskIds.size(); from += ID_CHUNK_SIZE) {
+                List<Long> chunk = taskIds.subList(from, Math.min(from + ID_CHUNK_SIZE, taskIds.size()));
+                for (Object[] row : todoRepository.findMergeKeysByTaskIdIn(chunk)) {
+                    Integer progress = (Integer) row[3];
+                    todosByTask.computeIfAbsent((Long) row[1], k -> new HashMap<>())
+                        .putIfAbsent((String) row[2], new TodoState((Long) row[0],
+                            progress != null ? progress : 0, Boolean.TRUE.equals(row[4]), (String) row[5]));
+                }
+            }
+        }
+        
+        @Override
+        public void onTopic(String name, String description) {
+            NodeState existing = topicsByName.get(name);
+            if (existing != null) {
+                mergedTopics++;
+                mergeDescription(existing, description, dirtyTopics);
+                currentTopicId = existing.id;
+                return;
+            }
+            requireName(name, "专题名称");
+            Topic topic = new Topic(name, description, entityManager.getReference(User.class, userId));
+            entityManager.persist(topic);
+            topicsByName.put(name, new NodeState(topic.getId(), description));
+            currentTopicId = topic.getId();
+            touchedTopicIds.add(currentTopicId);
+            createdTopics++;
+            persisted();
+        }
+        
+        @Override
+        public void onTask(String title, String description) {
+            Map<String, NodeState> tasks = tasksByTopic.computeIfAbsent(currentTopicId, k -> new HashMap<>());
+            NodeState existing = tasks.get(title);
+            if (existing != null) {
+                mergedTasks++;
+                mergeDescription(existing, description, dirtyTasks);
+                currentTaskId = existing.id;
+                return;
+            }
+            requireName(title, "任务标题");
+            Task task = new Task(title, description, entityManager.getReference(Topic.class, currentTopicId));
+            task.setUserId(userId);
+            entityManager.persist(task);
+            tasks.put(title, new NodeState(task.getId(), description));
+            currentTaskId = task.getId();
+            touch();
+            createdTasks++;
+            persisted();
+        }
+        
+        @Override
+        public void onTodo(String title, int progress, boolean completed, String note) {
+            Map<String, TodoState> todos = todosByTask.computeIfAbsent(currentTaskId, k -> new HashMap<>());
+            TodoState existing = todos.get(title);
+            if (existing != null) {
+                int mergedProgress = Math.max(existing.progress, progress);
+                // 完成状态只增不减：已完成的待办不会因导入文件中未勾选而恢复为未完成
+                boolean mergedCompleted = existing.completed || completed || mergedProgress >= 100;
+                String mergedNote = hasText(note) ? note : existing.note;
+                if (mergedProgress != existing.progress || mergedCompleted != existing.completed
+                        || !Objects.equals(mergedNote, existing.note)) {
+                    existing.progress = mergedProgress;
+                    existing.completed = mergedCompleted;
+                    existing.note = mergedNote;
+                    dirtyTodos.add(existing);
+                    touch();
+                }
+                return;
+            }
+            Todo todo = new Todo(title, title, entityManager.getReference(Task.class, currentTaskId));
+            todo.setUserId(userId);
+            todo.setIsCompleted(completed);
+            todo.setProgress(progress);
+            todo.setNote(note);
+            if (todo.countsAsCompleted()) {
+                todo.setCompletedAt(LocalDateTime.now());
+            }
+            String error = TodoService.prepareNewTodo(todo);
+            if (error != null) {
+                throw new BusinessException(ErrorCodes.IMPORT_VALIDATION_FAILED, "待办事项 \"" + title + "\": " + error, 400);
+            }
+            entityManager.persist(todo);
+            todos.put(title, new TodoState(todo.getId(), progress, todo.countsAsCompleted(), note));
+            createdTodos++;
+            touch();
+            persisted();
+        }
+        
+        /**
+         * 描述合并规则：导入的描述非空时覆盖现有描述
+         */
+        private void mergeDescription(NodeState node, String description, Set<NodeState> dirty) {
+            if (hasText(description) && !description.equals(node.description)) {
+                node.description = description;
+                dirty.add(node);
+            }
+        }
+        
+        private void touch() {
+            touchedTaskIds.add(currentTaskId);
+            touchedTopicIds.add(currentTopicId);
+        }
+        
+        private void persisted() {
+            if (++pending >= FLUSH_INTERVAL) {
+                entityManager.flush();
+                entityManager.clear();
+                pending = 0;
+            }
+        }
+        
+        /**
+         * 写入新增数据，批量写回对已有数据的修改，并重算受影响任务和主题的汇总计数
+         */
+        ImportResult finish() {
+            entityManager.flush();
+            entityManager.clear();
+            
+            LocalDateTime now = LocalDateTime.now();
+            List<Object[]> topicRows = new ArrayList<>(dirtyTopics.size());
+            for (NodeState topic : dirtyTopics) {
+                topicRows.add(new Object[] {topic.description, now, topic.id});
+            }
+            List<Object[]> taskRows = new ArrayList<>(dirtyTasks.size());
+            for (NodeState task : dirtyTasks) {
+                taskRows.add(new Object[] {task.description, now, task.id});
+            }
+            List<Object[]> todoRows = new ArrayList<>(dirtyTodos.size());
+            for (TodoState todo : dirtyTodos) {
+                todoRows.add(new Object[] {todo.progress, todo.completed, todo.completed, todo.completed, now, todo.note, now, todo.id});
+            }
+            if (!topicRows.isEmpty()) {
+                jdbcTemplate.batchUpdate("update topics set description = ?, updated_at = ?, version = version + 1 where id = ?", topicRows);
+            }
+            if (!taskRows.isEmpty()) {
+                jdbcTemplate.batchUpdate("update tasks set description = ?, updated_at = ?, version = version + 1 where id = ?", taskRows);
+            }
+            if (!todoRows.isEmpty()) {
+                jdbcTemplate.batchUpdate("update todos set progress = ?, is_completed = ?, completed = ?, "
+                    + "completed_at = case when ? then coalesce(completed_at, ?) else completed_at end, note = ?, "
+                    + "updated_at = ?, version = version + 1 where id = ?", todoRows);
+            }
+            
+            progressRollupService.recomputeForTasks(touchedTaskIds);
+            progressRollupService.recomputeForTopics(touchedTopicIds);
+            
+            Set<Long> changedTopicIds = new LinkedHashSet<>(touchedTopicIds);
+            dirtyTopics.forEach(topic -> changedTopicIds.add(topic.id));
+            Set<Long> changedTaskIds = new LinkedHashSet<>(touchedTaskIds);
+            dirtyTasks.forEach(task -> changedTaskIds.add(task.id));
+            changeEventService.bulkChanged(userId, changedTopicIds, changedTaskIds);
+            
+            long elapsed = System.currentTimeMillis() - start;
+            logger.info("合并导入完成: 用户 {}, 新增专题 {} / 任务 {} / 待办 {}, 合并专题 {} / 任务 {}, 更新待办 {}, 耗时 {} ms",
+                userId, createdTopics, createdTasks, createdTodos, mergedTopics, mergedTasks, dirtyTodos.size(), elapsed);
+            ImportResult result = new ImportResult(createdTopics, createdTasks, createdTodos, elapsed);
+            result.setMergedTopics(mergedTopics);
+            result.setMergedTasks(mergedTasks);
+            result.setUpdatedTodos(dirtyTodos.size());
+            return result;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.todolist.service;
+
+import com.todolist.dto.ImportResult;
+import com.todolist.entity.Task;
+import com.todolist.entity.Todo;
+import com.todolist.entity.Topic;
+import com.todolist.entity.User;
+import com.todolist.exception.BusinessException;
+import com.todolist.exception.ErrorCodes;
+import com.todolist.util.MarkdownStreamParser;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Markdown 导入服务类
+ * 
+ * 边解析边写入：解析器每产出一个专题、任务或待办就立即持久化，
+ * 每累计一定数量刷新并清空持久化上下文，内存占用与文件大小无关。
+ * 整个导入在一个事务内完成，任何一行出错都会整体回滚，不会留下导入一半的数据
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+@Service
+public class MarkdownImportService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(MarkdownImportService.class);
+    
+    /**
+     * 每持久化多少个实体刷新并清空一次持久化上下文
+     */
+    private static final int FLUSH_INTERVAL = 500;
+    
+    /**
+     * 专题名称和任务标题的最大长度（VARCHAR(255)）
+     */
+    private static final int MAX_NAME_LENGTH = 255;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Autowired
+    private ProgressRollupService progressRollupService;
+    
+    @Autowired
+    private ChangeEventService changeEventService;
+    
+    /**
+     * 从字符流导入 Markdown 数据到指定用户名下
+     * 
+     * @param reader Markdown 字符流
+     * @param user 导入数据的所属用户
+     * @return ImportResult 新建的专题、任务、待办数量及耗时
+     * @throws IOException 读取失败时抛出
+     * @throws BusinessException 格式或数据不合法时抛出，事务整体回滚
+     */
+    @Transactional
+    public ImportResult importMarkdown(Reader reader, User user) throws IOException {
+        long start = System.currentTimeMillis();
+        ImportSession session = new ImportSession(user.getId());
+        new MarkdownStreamParser(session).parse(reader);
+        
+        entityManager.flush();
+        entityManager.clear();
+        progressRollupService.recomputeForTasks(session.taskIds);
+        progressRollupService.recomputeForTopics(session.topicIds);
+        changeEventService.bulkChanged(user.getId(), session.topicIds, session.taskIds);
+        
+        long elapsed = System.currentTimeMillis() - start;
+        logger.info("Markdown 导入完成: 用户 {}, 专题 {} 个, 任务 {} 个, 待办 {} 个, 耗时 {} ms",
+            user.getId(), session.topicIds.size(), session.taskIds.size(), session.todoCount, elapsed);
+        return new ImportResult(session.topicIds.size(), session.taskIds.size(), session.todoCount, elapsed);
+    }
+    
+    /**
+     * 单次导入的解析回调，只保存当前父节点的ID
+     * 清空持久化上下文后通过 getReference 引用父节点，不再查询数据库
+     */
+    private class ImportSession implements MarkdownStreamParser.Handler {
+        
+        private final Long userId;
+        private final List<Long> topicIds = new ArrayList<>();
+        private final List<Long> taskIds = new ArrayList<>();
+        private int todoCount;
+        private int pending;
+        private Long currentTopicId;
+        private Long currentTaskId;
+        
+        ImportSession(Long userId) {
+            this.userId = userId;
+        }
+        
+        @Override
+        public void onTopic(String name, String description) {
+            requireLength(name, "专题名称");
+            Topic topic = new Topic(name, description, entityManager.getReference(User.class, userId));
+            entityManager.persist(topic);
+            currentTopicId = topic.getId();
+            topicIds.add(currentTopicId);
+            persisted();
+        }
+        
+        @Override
+        public void onTask(String title, String description) {
+            requireLength(title, "任务标题");
+            Task task = new Task(title, description, entityManager.getReference(Topic.class, currentTopicId));
+            task.setUserId(userId);
+            entityManager.persist(task);
+            currentTaskId = task.getId();
+            taskIds.add(currentTaskId);
+            persisted();
+        }
+        
+        @Override
+        public void onTodo(String title, int progress, boolean completed, String note) {
+            Todo todo = new Todo(title, title, entityManager.getReference(Task.class, currentTaskId));
+            todo.setUserId(userId);
+            todo.setProgress(progress);
+            todo.setIsCompleted(completed);
+            todo.setNote(note);
+            String error = TodoService.prepareNewTodo(todo);
+            if (error != null) {
+                throw new BusinessException(ErrorCodes.IMPORT_VALIDATION_FAILED, "待办事项 \"" + title + "\": " + error, 400);
+            }
+            entityManager.persist(todo);
+            todoCount++;
+            persisted();
+        }
+        
+        private void persisted() {
+            if (++pending >= FLUSH_INTERVAL) {
+                entityManager.flush();
+                entityManager.clear();
+                pending = 0;
+            }
+        }
+        
+        private void requireLength(String name, String label) {
+            if (name.length() > MAX_NAME_LENGTH) {
+                throw new BusinessException(ErrorCodes.IMPORT_VALIDATION_FAILED,
+                    label + "不能超过 " + MAX_NAME_LENGTH + " 个字符: " + name.substring(0, 20) + "...", 400);
+            }
+        }
+    }
+}
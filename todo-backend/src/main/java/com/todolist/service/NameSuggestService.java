@@ -0,0 +1,418 @@
+package com.todolist.service;
+
+import com.todolist.dto.ChangeNotice;
+import com.todolist.dto.Suggestion;
+import com.todolist.exception.BusinessException;
+import com.todolist.exception.ErrorCodes;
+import com.todolist.repository.TaskRepository;
+import com.todolist.repository.TopicRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * 名称补全服务类
+ * 
+ * 在内存中为每个用户按名称排序保存主题和任务，供输入时的前缀补全：前缀对应有序表中的一段连续区间，
+ * 定位区间为 O(log n)，之后只读取前 limit 条，与名称总数无关。
+ * 
+ * 与全文索引（SearchIndexService）相互独立：启动时只读取主题名称和任务标题，不读描述和待办，
+ * 很快就能提供服务；关闭全文搜索或全文索引正在构建时补全照常可用，可通过 suggest.enabled 单独关闭。
+ * 与全文索引一样由 ChangeEventService 交给本服务的变更驱动，由单个后台线程按顺序重新读取名称
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+@Service
+public class NameSuggestService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(NameSuggestService.class);
+    
+    /**
+     * 单次补全最多返回的结果数
+     */
+    private static final int MAX_LIMIT = 50;
+    
+    /**
+     * 增量更新时每条 in 查询包含的ID数
+     */
+    private static final int BATCH_SIZE = 1000;
+    
+    @Autowired
+    private TopicRepository topicRepository;
+    
+    @Autowired
+    private TaskRepository taskRepository;
+    
+    @Value("${suggest.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${suggest.rebuild.chunk-size:20000}")
+    private int chunkSize;
+    
+    private final ConcurrentHashMap<Long, UserNames> names = new ConcurrentHashMap<>();
+    
+    /**
+     * 名称表的唯一写入线程：启动加载和增量更新都在这里按提交顺序执行
+     */
+    private final ExecutorService updater = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "name-suggest");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private volatile boolean ready;
+    
+    /**
+     * 是否开启名称补全
+     * 
+     * @return boolean 开启时返回 true
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * 应用启动完成后在后台加载名称
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (enabled) {
+            updater.execute(this::load);
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        updater.shutdownNow();
+    }
+    
+    /**
+     * 记录变更后更新名称表，由 ChangeEventService 在事务提交后调用，不阻塞调用方；待办的变更被忽略
+     * 
+     * @param userId 用户ID
+     * @param notices 变更通知
+     */
+    public void onChanges(Long userId, List<ChangeNotice> notices) {
+        if (!enabled) {
+            return;
+        }
+        List<ChangeNotice> topics = ofType(notices, ChangeNotice.TOPIC);
+        List<ChangeNotice> tasks = ofType(notices, ChangeNotice.TASK);
+        if (topics.isEmpty() && tasks.isEmpty()) {
+            return;
+        }
+        updater.execute(() -> {
+            try {
+                apply(userId, topics, tasks);
+            } catch (RuntimeException e) {
+                // 该记录的名称保持旧状态，下次修改时恢复
+                logger.error("名称补全更新失败: 用户 {}", userId, e);
+            }
+        });
+    }
+    
+    /**
+     * 名称以指定前缀开头的主题和任务，不区分大小写，按名称排序
+     * 
+     * @param userId 用户ID
+     * @param prefix 名称前缀，忽略首尾空白
+     * @param type 只返回主题（topic）或任务（task），为 null 时两者都返回
+     * @param limit 返回的结果数，1-50
+     * @return List<Suggestion> 补全建议
+     * @throws BusinessException 前缀为空或类型无效时返回 400，补全未开启或名称尚未加载完成时返回 503
+     */
+    public List<Suggestion> suggest(Long userId, String prefix, String type, int limit) {
+        if (!enabled) {
+            throw new BusinessException(ErrorCodes.SEARCH_UNAVAILABLE, "名称补全未开启", 503);
+        }
+        if (!ready) {
+            throw new BusinessException(ErrorCodes.SEARCH_UNAVAILABLE, "名称正在加载，请稍后重试", 503);
+        }
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            throw new BusinessException(ErrorCodes.SEARCH_INVALID_QUERY, "补全前缀不能为空", 400);
+        }
+        if (type != null && !ChangeNotice.TOPIC.equals(type) && !ChangeNotice.TASK.equals(type)) {
+            throw new BusinessException(ErrorCodes.SEARCH_INVALID_QUERY, "补全类型只能是 topic 或 task", 400);
+        }
+        int size = Math.max(1, Math.min(limit, MAX_LIMIT));
+        UserNames user = names.get(userId);
+        if (user == null) {
+            return new ArrayList<>();
+        }
+        
+        long start = System.nanoTime();
+        user.lock.readLock().lock();
+        try {
+            List<Map.Entry<String, Name>> matches = new ArrayList<>(2 * size);
+            if (type == null || ChangeNotice.TOPIC.equals(type)) {
+                collectPrefix(user.topicNames, key, size, matches);
+            }
+            if (type == null || ChangeNotice.TASK.equals(type)) {
+                collectPrefix(user.taskNames, key, size, matches);
+            }
+            matches.sort(Map.Entry.comparingByKey());
+            List<Suggestion> suggestions = new ArrayList<>(Math.min(size, matches.size()));
+            for (Map.Entry<String, Name> match : matches.subList(0, Math.min(size, matches.size()))) {
+                Name name = match.getValue();
+                suggestions.add(new Suggestion(name.type, name.id, name.topicId, name.name));
+            }
+            logger.debug("名称补全: 用户 {}, 前缀 \"{}\", 返回 {} 条, 耗时 {} us",
+                userId, prefix, suggestions.size(), (System.nanoTime() - start) / 1000);
+            return suggestions;
+        } finally {
+            user.lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * 有序表中键以 prefix 开头的前 size 条：这些键是 [prefix, prefix + 最大字符) 区间内的连续一段
+     */
+    private static void collectPrefix(NavigableMap<String, Name> sorted, String prefix, int size,
+                                      List<Map.Entry<String, Name>> out) {
+        int taken = 0;
+        for (Map.Entry<String, Name> entry : sorted.subMap(prefix, true, prefix + Character.MAX_VALUE, false).entrySet()) {
+            if (taken++ == size) {
+                return;
+            }
+            out.add(entry);
+        }
+    }
+    
+    private static String normalize(String name) {
+        return name == null ? "" : name.strip().toLowerCase(Locale.ROOT);
+    }
+    
+    /**
+     * 全量加载主题名称和任务标题，按主键区间分批读取
+     */
+    private void load() {
+        long start = System.currentTimeMillis();
+        try {
+            int topics = loadInChunks(topicRepository.findIdRange(), topicRepository::findNameRowsInRange, ChangeNotice.TOPIC);
+            int tasks = loadInChunks(taskRepository.findIdRange(), taskRepository::findNameRowsInRange, ChangeNotice.TASK);
+            ready = true;
+            logger.info("名称补全加载完成: 用户 {} 个, 主题 {} 个, 任务 {} 个, 耗时 {} ms",
+                names.size(), topics, tasks, System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            logger.error("名称补全加载失败，补全不可用", e);
+        }
+    }
+    
+    private int loadInChunks(List<Object[]> idRange, BiFunction<Long, Long, List<Object[]>> loader,
+                             String type) {
+        if (idRange.isEmpty() || idRange.get(0)[0] == null) {
+            return 0;
+        }
+        long minId = ((Number) idRange.get(0)[0]).longValue();
+        long maxId = ((Number) idRange.get(0)[1]).longValue();
+        int step = Math.max(1, chunkSize);
+        int count = 0;
+        for (long from = minId; from <= maxId; from += step) {
+            List<Object[]> rows = loader.apply(from, Math.min(from + step - 1, maxId));
+            for (Object[] row : rows) {
+                Name name = toName(type, row);
+                UserNames user = names.computeIfAbsent(name.userId, id -> new UserNames());
+                write(user, () -> user.put(name));
+            }
+            count += rows.size();
+        }
+        return count;
+    }
+    
+    /**
+     * 按变更通知重新读取名称：先处理主题，再处理任务。
+     * 主题从无到有（新建或恢复）时同时读取其下的任务，主题删除时其下的任务一并移除
+     */
+    private void apply(Long userId, List<ChangeNotice> topicNotices, List<ChangeNotice> taskNotices) {
+        UserNames user = names.computeIfAbsent(userId, id -> new UserNames());
+        if (!topicNotices.isEmpty()) {
+            Map<Long, Object[]> rows = loadRows(topicNotices, topicRepository::findNameRowsByIdIn);
+            List<Long> newTopicIds = new ArrayList<>();
+            write(user, () -> {
+                for (ChangeNotice notice : topicNotices) {
+                    Object[] row = rows.get(notice.getId());
+                    if (row == null) {
+                        user.removeTopic(notice.getId());
+                        continue;
+                    }
+                    if (!user.topics.containsKey(notice.getId())) {
+                        newTopicIds.add(notice.getId());
+                    }
+                    user.put(toName(ChangeNotice.TOPIC, row));
+                }
+            });
+            for (Long topicId : newTopicIds) {
+                List<Object[]> taskRows = taskRepository.findNameRowsByTopicId(topicId);
+                write(user, () -> taskRows.forEach(row -> user.put(toName(ChangeNotice.TASK, row))));
+            }
+        }
+        if (!taskNotices.isEmpty()) {
+            Map<Long, Object[]> rows = loadRows(taskNotices, taskRepository::findNameRowsByIdIn);
+            write(user, () -> {
+                for (ChangeNotice notice : taskNotices) {
+                    Object[] row = rows.get(notice.getId());
+                    if (row == null) {
+                        user.remove(ChangeNotice.TASK, notice.getId());
+                    } else {
+                        user.put(toName(ChangeNotice.TASK, row));
+                    }
+                }
+            });
+        }
+    }
+    
+    private static List<ChangeNotice> ofType(List<ChangeNotice> notices, String type) {
+        List<ChangeNotice> matched = new ArrayList<>();
+        for (ChangeNotice notice : notices) {
+            if (type.equals(notice.getType())) {
+                matched.add(notice);
+            }
+        }
+        return matched;
+    }
+    
+    /**
+     * 按ID分批读取变更记录的当前名称，删除通知不读取；结果中没有的记录表示已删除
+     */
+    private static Map<Long, Object[]> loadRows(List<ChangeNotice> notices,
+                                                Function<Collection<Long>, List<Object[]>> finder) {
+        List<Long> ids = new ArrayList<>();
+        for (ChangeNotice notice : notices) {
+            if (!notice.isDeleted()) {
+                ids.add(notice.getId());
+            }
+        }
+        Map<Long, Object[]> rows = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            for (Object[] row : finder.apply(ids.subList(from, Math.min(ids.size(), from + BATCH_SIZE)))) {
+                rows.put(((Number) row[0]).longValue(), row);
+            }
+        }
+        return rows;
+    }
+    
+    private void write(UserNames user, Runnable action) {
+        user.lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            user.lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * 由查询结果行构建名称：主题行为 (id, user_id, name)，任务行为 (id, topic_id, user_id, title)
+     */
+    private static Name toName(String type, Object[] row) {
+        Long id = ((Number) row[0]).longValue();
+        if (ChangeNotice.TOPIC.equals(type)) {
+            return new Name(type, id, null, ((Number) row[1]).longValue(), (String) row[2]);
+        }
+        return new Name(type, id, ((Number) row[1]).longValue(), ((Number) row[2]).longValue(), (String) row[3]);
+    }
+    
+    /**
+     * 一个主题名称或任务标题，topicId 为任务所属的主题，主题本身为 null
+     */
+    private static final class Name {
+        
+        private final String type;
+        private final Long id;
+        private final Long topicId;
+        private final Long userId;
+        private final String name;
+        
+        Name(String type, Long id, Long topicId, Long userId, String name) {
+            this.type = type;
+            this.id = id;
+            this.topicId = topicId;
+            this.userId = userId;
+            this.name = name;
+        }
+        
+        /**
+         * 有序表的键：规范化的名称加上 ID，同名的记录按 ID 区分；分隔符 '\0' 使较短的名称排在前面
+         */
+        String key() {
+            return normalize(name) + '\0' + id;
+        }
+    }
+    
+    /**
+     * 一个用户的主题、任务名称有序表，读写由读写锁保护；另外记录主题下的任务，主题删除时一并移除
+     */
+    private static final class UserNames {
+        
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<Long, Name> topics = new HashMap<>();
+        private final Map<Long, Name> tasks = new HashMap<>();
+        private final Map<Long, Set<Long>> tasksByTopic = new HashMap<>();
+        private final NavigableMap<String, Name> topicNames = new TreeMap<>();
+        private final NavigableMap<String, Name> taskNames = new TreeMap<>();
+        
+        void put(Name name) {
+            remove(name.type, name.id);
+            if (name.name == null) {
+                return;
+            }
+            boolean topic = ChangeNotice.TOPIC.equals(name.type);
+            (topic ? topics : tasks).put(name.id, name);
+            (topic ? topicNames : taskNames).put(name.key(), name);
+            if (!topic) {
+                tasksByTopic.computeIfAbsent(name.topicId, id -> new LinkedHashSet<>()).add(name.id);
+            }
+        }
+        
+        void remove(String type, Long id) {
+            boolean topic = ChangeNotice.TOPIC.equals(type);
+            Name old = (topic ? topics : tasks).remove(id);
+            if (old == null) {
+                return;
+            }
+            (topic ? topicNames : taskNames).remove(old.key());
+            if (!topic) {
+                Set<Long> siblings = tasksByTopic.get(old.topicId);
+                if (siblings != null) {
+                    siblings.remove(id);
+                    if (siblings.isEmpty()) {
+                        tasksByTopic.remove(old.topicId);
+                    }
+                }
+            }
+        }
+        
+        void removeTopic(Long topicId) {
+            Set<Long> taskIds = tasksByTopic.get(topicId);
+            if (taskIds != null) {
+                for (Long taskId : new ArrayList<>(taskIds)) {
+                    remove(ChangeNotice.TASK, taskId);
+                }
+            }
+            remove(ChangeNotice.TOPIC, topicId);
+        }
+    }
+}
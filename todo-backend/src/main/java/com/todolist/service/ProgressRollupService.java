@@ -0,0 +1,284 @@
+package com.todolist.service;
+
+import com.todolist.dto.RollupRecomputeResult;
+import com.todolist.entity.Todo;
+import com.todolist.exception.BusinessException;
+import com.todolist.exception.ErrorCodes;
+import com.todolist.repository.TaskRepository;
+import com.todolist.repository.TopicRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * 进度汇总计数服务类
+ *
+ * 维护任务和主题上的 todoCount / completedCount / progressSum 汇总计数，
+ * 前端据此直接渲染进度条，无需拉取全部待办事项。
+ * 增量更新必须在调用方的事务内执行，与待办事项的写入一起提交或回滚
+ *
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+@Service
+public class ProgressRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProgressRollupService.class);
+
+    /**
+     * 按ID列表重算时每条语句包含的ID数量
+     */
+    private static final int ID_CHUNK_SIZE = 500;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private TopicRepository topicRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${rollup.recompute.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${rollup.recompute.parallelism:4}")
+    private int parallelism;
+
+    private final AtomicBoolean recomputing = new AtomicBoolean(false);
+
+    /**
+     * 新建待办事项后累加所属任务和主题的计数
+     *
+     * @param todo 已保存的待办事项
+     * @param taskId 所属任务ID
+     */
+    public void onTodoCreated(Todo todo, Long taskId) {
+        applyDelta(taskId, 1, todo.countsAsCompleted() ? 1 : 0, todo.progressContribution());
+        todo.snapshotRollup();
+    }
+
+    /**
+     * 批量新建待办事项后一次性累加所属任务和主题的计数
+     *
+     * @param todos 已保存的待办事项
+     * @param taskId 所属任务ID
+     */
+    public void onTodosCreated(List<Todo> todos, Long taskId) {
+        int completed = 0;
+        long progress = 0;
+        for (Todo todo : todos) {
+            completed += todo.countsAsCompleted() ? 1 : 0;
+            progress += todo.progressContribution();
+            todo.snapshotRollup();
+        }
+        applyDelta(taskId, todos.size(), completed, progress);
+    }
+
+    /**
+     * 更新待办事项后，按加载时快照与当前值的差额调整计数
+     *
+     * @param todo 已修改的待办事项
+     */
+    public void onTodoUpdated(Todo todo) {
+        onTodoChanged(todo.getTask().getId(), todo.getRollupCompleted(), todo.getRollupProgress(),
+            todo.countsAsCompleted(), todo.progressContribution());
+        todo.snapshotRollup();
+    }
+
+    /**
+     * 待办事项的完成状态或进度变化后，按新旧值的差额调整计数
+     * 用于不加载实体的部分更新
+     *
+     * @param taskId 所属任务ID
+     * @param wasCompleted 修改前是否计为已完成
+     * @param oldProgress 修改前的进度贡献（0-100）
+     * @param completed 修改后是否计为已完成
+     * @param progress 修改后的进度贡献（0-100）
+     */
+    public void onTodoChanged(Long taskId, boolean wasCompleted, int oldProgress, boolean completed, int progress) {
+        int completedDelta = (completed ? 1 : 0) - (wasCompleted ? 1 : 0);
+        int progressDelta = progress - oldProgress;
+        if (completedDelta != 0 || progressDelta != 0) {
+            applyDelta(taskId, 0, completedDelta, progressDelta);
+        }
+    }
+
+    /**
+     * 与 onTodoChanged 相同，但按待办ID定位所属任务和主题，
+     * 用于连任务ID都不查询的单语句更新
+     *
+     * @param todoId 待办事项ID
+     * @param wasCompleted 修改前是否计为已完成
+     * @param oldProgress 修改前的进度贡献（0-100）
+     * @param completed 修改后是否计为已完成
+     * @param progress 修改后的进度贡献（0-100）
+     */
+    public void onTodoChangedById(Long todoId, boolean wasCompleted, int oldProgress, boolean completed, int progress) {
+        int completedDelta = (completed ? 1 : 0) - (wasCompleted ? 1 : 0);
+        int progressDelta = progress - oldProgress;
+        if (completedDelta != 0 || progressDelta != 0) {
+            taskRepository.applyRollupDeltaByTodoId(todoId, 0, completedDelta, progressDelta);
+            topicRepository.applyRollupDeltaByTodoId(todoId, 0, completedDelta, progressDelta);
+        }
+    }
+
+    /**
+     * 删除待办事项时扣除其在任务和主题上的计数
+     *
+     * @param taskId 所属任务ID
+     * @param completed 是否计为已完成
+     * @param progress 进度贡献（0-100）
+     */
+    public void onTodoDeleted(Long taskId, boolean completed, int progress) {
+        applyDelta(taskId, -1, completed ? -1 : 0, -progress);
+    }
+
+    /**
+     * 恢复待办事项后把其计数加回任务和主题，与 onTodoDeleted 相反
+     *
+     * @param taskId 所属任务ID
+     * @param completed 是否计为已完成
+     * @param progress 进度贡献（0-100）
+     */
+    public void onTodoRestored(Long taskId, boolean completed, int progress) {
+        applyDelta(taskId, 1, completed ? 1 : 0, progress);
+    }
+
+    /**
+     * 删除任务前从所属主题中扣除该任务的全部计数
+     *
+     * @param taskId 将被删除的任务ID
+     */
+    public void onTaskDeleting(Long taskId) {
+        topicRepository.subtractTaskRollup(taskId);
+    }
+
+    /**
+     * 恢复任务后把该任务的全部计数加回所属主题
+     * 任务删除期间其下的待办不可修改，任务上的计数与删除时一致
+     *
+     * @param taskId 已恢复的任务ID
+     */
+    public void onTaskRestored(Long taskId) {
+        topicRepository.addTaskRollup(taskId);
+    }
+
+    /**
+     * 根据待办事项重新计算指定任务的汇总计数，用于批量写入之后的集合式修正
+     * 需在调用方的事务内执行，且待办事项已刷新到数据库
+     *
+     * @param taskIds 任务ID集合
+     */
+    public void recomputeForTasks(Collection<Long> taskIds) {
+        forEachChunk(taskIds, taskRepository::recomputeRollupsForIds);
+    }
+
+    /**
+     * 根据待办事项重新计算指定主题的汇总计数
+     * 需在调用方的事务内执行，且待办事项已刷新到数据库
+     *
+     * @param topicIds 主题ID集合
+     */
+    public void recomputeForTopics(Collection<Long> topicIds) {
+        forEachChunk(topicIds, topicRepository::recomputeRollupsForIds);
+    }
+
+    private void forEachChunk(Collection<Long> ids, Function<List<Long>, Integer> recompute) {
+        List<Long> list = new ArrayList<>(ids);
+        for (int from = 0; from < list.size(); from += ID_CHUNK_SIZE) {
+            recompute.apply(list.subList(from, Math.min(from + ID_CHUNK_SIZE, list.size())));
+        }
+    }
+
+    /**
+     * 以原子增量更新任务及其所属主题的计数
+     */
+    private void applyDelta(Long taskId, int todoDelta, int completedDelta, long progressDelta) {
+        taskRepository.applyRollupDelta(taskId, todoDelta, completedDelta, progressDelta);
+        topicRepository.applyRollupDeltaByTaskId(taskId, todoDelta, completedDelta, progressDelta);
+    }
+
+    /**
+     * 根据待办事项全量重算所有任务和主题的汇总计数
+     * 按主键区间切分，多个区间并行执行，每个区间是一条集合更新语句和一个独立的短事务，
+     * 不会长时间锁住整张表
+     *
+     * @return RollupRecomputeResult 重算结果统计
+     * @throws BusinessException 如果已有重算任务在执行
+     */
+    public RollupRecomputeResult recomputeAll() {
+        if (!recomputing.compareAndSet(false, true)) {
+            throw new BusinessException(ErrorCodes.JOB_ALREADY_RUNNING, "汇总计数重算正在执行中", 409);
+        }
+        long start = System.currentTimeMillis();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, parallelism));
+        try {
+            List<Future<Integer>> taskChunks = submitChunks(pool, taskRepository.findIdRange(),
+                taskRepository::recomputeRollupsInRange);
+            List<Future<Integer>> topicChunks = submitChunks(pool, topicRepository.findIdRange(),
+                topicRepository::recomputeRollupsInRange);
+            long tasksUpdated = sum(taskChunks);
+            long topicsUpdated = sum(topicChunks);
+            long elapsed = System.currentTimeMillis() - start;
+            logger.info("汇总计数重算完成: {} 个区间, 任务 {} 行, 主题 {} 行, 耗时 {} ms",
+                taskChunks.size() + topicChunks.size(), tasksUpdated, topicsUpdated, elapsed);
+            return new RollupRecomputeResult(taskChunks.size() + topicChunks.size(),
+                tasksUpdated, topicsUpdated, elapsed);
+        } finally {
+            pool.shutdownNow();
+            recomputing.set(false);
+        }
+    }
+
+    /**
+     * 将 [min(id), max(id)] 切分为固定大小的区间，每个区间在独立事务中执行
+     */
+    private List<Future<Integer>> submitChunks(ExecutorService pool, List<Object[]> idRange,
+                                               BiFunction<Long, Long, Integer> recompute) {
+        List<Future<Integer>> futures = new ArrayList<>();
+        if (idRange.isEmpty() || idRange.get(0)[0] == null) {
+            return futures;
+        }
+        long minId = ((Number) idRange.get(0)[0]).longValue();
+        long maxId = ((Number) idRange.get(0)[1]).longValue();
+        int step = Math.max(1, chunkSize);
+        for (long from = minId; from <= maxId; from += step) {
+            long fromId = from;
+            long toId = Math.min(from + step - 1, maxId);
+            futures.add(pool.submit(() -> transactionTemplate.execute(status -> recompute.apply(fromId, toId))));
+        }
+        return futures;
+    }
+
+    private long sum(List<Future<Integer>> futures) {
+        long total = 0;
+        for (Future<Integer> future : futures) {
+            try {
+                Integer updated = future.get();
+                total += updated != null ? updated : 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BusinessException(ErrorCodes.SYSTEM_ERROR, "汇总计数重算被中断", 500);
+            } catch (ExecutionException e) {
+                logger.error("汇总计数重算失败", e.getCause());
+                throw new BusinessException(ErrorCodes.DATABASE_ERROR, "汇总计数重算失败: " + e.getCause().getMessage(), 500);
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,315 @@
+package com.todolist.service;
+
+import com.todolist.dto.QueryPage;
+import com.todolist.dto.TaskDTO;
+import com.todolist.dto.TodoDTO;
+import com.todolist.exception.BusinessException;
+import com.todolist.exception.ErrorCodes;
+import com.todolist.util.CursorCodec;
+import com.todolist.util.IndexPlanner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 条件查询服务类
+ * 
+ * 按用户跨主题筛选、排序待办和任务，例如"进度低于 50 的待办"、"本周到期的高优先级任务"、"最近修改的待办"。
+ * 候选索引是 Todo、Task 实体上以 user_id 开头的复合索引，由 IndexPlanner 按条件和排序选择其中一个，
+ * 查询用 force index 固定为该索引、straight_join 固定从待办（任务）表开始连接，实际执行计划与返回的 index 一致。
+ * 条件或排序不能由索引覆盖时在结果中返回警告，strict 为 true 时直接拒绝。
+ * 
+ * 结果按 (排序字段, id) 键集分页，排序字段为空的记录不返回。待办结果叠加写回缓冲中尚未写入的状态，
+ * 缓冲中刚修改的待办可能按修改前的值被筛选，写回后（通常几毫秒）一致
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+@Service
+public class QueryService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(QueryService.class);
+    
+    /**
+     * 待办的候选索引，与 Todo 实体上的 @Index 保持一致
+     */
+    private static final List<IndexPlanner.Index> TODO_INDEXES = List.of(
+        new IndexPlanner.Index("idx_todos_user_completed_progress", "completed", "progress"),
+        new IndexPlanner.Index("idx_todos_user_progress", "progress"),
+        new IndexPlanner.Index("idx_todos_user_completed_updated", "completed", "updatedAt"),
+        new IndexPlanner.Index("idx_todos_user_updated", "updatedAt"));
+    
+    /**
+     * 任务的候选索引，与 Task 实体上的 @Index 保持一致
+     */
+    private static final List<IndexPlanner.Index> TASK_INDEXES = List.of(
+        new IndexPlanner.Index("idx_tasks_user_status_due", "status", "dueDate"),
+        new IndexPlanner.Index("idx_tasks_user_priority_due", "priority", "dueDate"),
+        new IndexPlanner.Index("idx_tasks_user_due", "dueDate"),
+        new IndexPlanner.Index("idx_tasks_user_updated", "updatedAt"));
+    
+    private static final Map<String, String> TODO_COLUMNS = Map.of(
+        "completed", "d.is_completed", "progress", "d.progress", "updatedAt", "d.updated_at");
+    
+    private static final Map<String, String> TASK_COLUMNS = Map.of(
+        "status", "k.status", "priority", "k.priority", "dueDate", "k.due_date", "updatedAt", "k.updated_at");
+    
+    private static final String TODO_SELECT =
+        "select straight_join d.id, d.title, d.content, d.is_completed, d.completed, d.progress, d.note, " +
+        "d.completed_at, d.created_at, d.updated_at, d.task_id, d.version " +
+        "from todos d force index (%s) join tasks k on k.id = d.task_id join topics p on p.id = k.topic_id " +
+        "where d.user_id = ? and d.deleted_at is null and k.deleted_at is null and p.deleted_at is null";
+    
+    private static final String TASK_SELECT =
+        "select straight_join k.id, k.title, k.description, k.status, k.priority, k.due_date, k.created_at, " +
+        "k.updated_at, k.topic_id, k.todo_count, k.completed_count, k.progress_sum, k.version " +
+        "from tasks k force index (%s) join topics p on p.id = k.topic_id " +
+        "where k.user_id = ? and k.deleted_at is null and p.deleted_at is null";
+    
+    private static final RowMapper<TodoDTO> TODO_ROW = (rs, rowNum) -> new TodoDTO(
+        rs.getLong("id"), rs.getString("title"), rs.getString("content"),
+        rs.getObject("is_completed", Boolean.class), rs.getObject("completed", Boolean.class),
+        rs.getObject("progress", Integer.class), rs.getString("note"),
+        rs.getObject("completed_at", LocalDateTime.class), rs.getObject("created_at", LocalDateTime.class),
+        rs.getObject("updated_at", LocalDateTime.class), rs.getLong("task_id"), rs.getLong("version"));
+    
+    private static final RowMapper<TaskDTO> TASK_ROW = (rs, rowNum) -> new TaskDTO(
+        rs.getLong("id"), rs.getString("title"), rs.getString("description"),
+        rs.getString("status"), rs.getString("priority"), rs.getObject("due_date", LocalDateTime.class),
+        rs.getObject("created_at", LocalDateTime.class), rs.getObject("updated_at", LocalDateTime.class),
+        rs.getLong("topic_id"), rs.getObject("todo_count", Integer.class),
+        rs.getObject("completed_count", Integer.class), rs.getObject("progress_sum", Long.class), rs.getLong("version"));
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private TodoWriteBehindBuffer todoWriteBehindBuffer;
+    
+    /**
+     * 按条件查询当前用户的待办
+     * 
+     * @param userId 用户ID
+     * @param completed 是否已完成，为空时不限
+     * @param progressMin 最低进度（含），为空时不限
+     * @param progressMax 最高进度（含），为空时不限
+     * @param updatedAfter 修改时间下限（含），为空时不限
+     * @param updatedBefore 修改时间上限（不含），为空时不限
+     * @param sort 排序字段：updatedAt（默认）、progress
+     * @param order 排序方向：asc、desc（默认）
+     * @param cursor 上一页返回的 nextCursor，为空时返回第一页
+     * @param limit 每页条数，为空时使用默认值
+     * @param strict 为 true 时拒绝不能完全使用索引的查询
+     * @return QueryPage<TodoDTO> 当前页数据、下一页游标、使用的索引和警告
+     * @throws BusinessException 条件无效时返回 400，strict 且不能完全使用索引时返回 400
+     */
+    public QueryPage<TodoDTO> queryTodos(Long userId, Boolean completed, Integer progressMin, Integer progressMax,
+                                         LocalDateTime updatedAfter, LocalDateTime updatedBefore,
+                                         String sort, String order, String cursor, Integer limit, boolean strict) {
+        if ((progressMin != null && (progressMin < 0 || progressMin > 100))
+                || (progressMax != null && (progressMax < 0 || progressMax > 100))) {
+            throw new BusinessException(ErrorCodes.QUERY_INVALID_CRITERIA, "进度条件必须在 0-100 之间", 400);
+        }
+        Criteria criteria = new Criteria(TODO_COLUMNS);
+        criteria.equal("completed", completed);
+        criteria.range("progress", progressMin, progressMax, true);
+        criteria.range("updatedAt", updatedAfter, updatedBefore, false);
+        String sortField = sortField(sort, "updatedAt", "updatedAt", "progress");
+        List<TodoDTO> rows = execute(TODO_SELECT, "d.id", criteria, TODO_INDEXES, userId, sortField,
+            ascending(order, false), cursor, limit, strict, TODO_ROW);
+        
+        int size = CursorCodec.normalizeLimit(limit);
+        QueryPage<TodoDTO> page = page(rows, size, sortField, todo ->
+            "progress".equals(sortField) ? todo.getProgress() : todo.getUpdatedAt(), TodoDTO::getId, criteria);
+        todoWriteBehindBuffer.overlay(page.getItems());
+        return page;
+    }
+    
+    /**
+     * 按条件查询当前用户的任务
+     * 
+     * @param userId 用户ID
+     * @param status 任务状态，为空时不限
+     * @param priority 任务优先级，为空时不限
+     * @param dueAfter 截止时间下限（含），为空时不限
+     * @param dueBefore 截止时间上限（不含），为空时不限
+     * @param updatedAfter 修改时间下限（含），为空时不限
+     * @param updatedBefore 修改时间上限（不含），为空时不限
+     * @param sort 排序字段：updatedAt（默认）、dueDate
+     * @param order 排序方向：asc、desc，为空时 dueDate 升序、updatedAt 降序
+     * @param cursor 上一页返回的 nextCursor，为空时返回第一页
+     * @param limit 每页条数，为空时使用默认值
+     * @param strict 为 true 时拒绝不能完全使用索引的查询
+     * @return QueryPage<TaskDTO> 当前页数据、下一页游标、使用的索引和警告
+     * @throws BusinessException 条件无效时返回 400，strict 且不能完全使用索引时返回 400
+     */
+    public QueryPage<TaskDTO> queryTasks(Long userId, String status, String priority,
+                                         LocalDateTime dueAfter, LocalDateTime dueBefore,
+                                         LocalDateTime updatedAfter, LocalDateTime updatedBefore,
+                                         String sort, String order, String cursor, Integer limit, boolean strict) {
+        Criteria criteria = new Criteria(TASK_COLUMNS);
+        criteria.equal("status", status);
+        criteria.equal("priority", priority);
+        criteria.range("dueDate", dueAfter, dueBefore, false);
+        criteria.range("updatedAt", updatedAfter, updatedBefore, false);
+        String sortField = sortField(sort, "updatedAt", "updatedAt", "dueDate");
+        List<TaskDTO> rows = execute(TASK_SELECT, "k.id", criteria, TASK_INDEXES, userId, sortField,
+            ascending(order, "dueDate".equals(sortField)), cursor, limit, strict, TASK_ROW);
+        
+        int size = CursorCodec.normalizeLimit(limit);
+        return page(rows, size, sortField, task ->
+            "dueDate".equals(sortField) ? task.getDueDate() : task.getUpdatedAt(), TaskDTO::getId, criteria);
+    }
+    
+    /**
+     * 选择索引并执行查询，多取一条用于判断是否还有下一页
+     */
+    private <T> List<T> execute(String select, String idColumn, Criteria criteria, List<IndexPlanner.Index> indexes,
+                                Long userId, String sortField, boolean asc, String cursor, Integer limit,
+                                boolean strict, RowMapper<T> mapper) {
+        IndexPlanner.Plan plan = IndexPlanner.plan(indexes, criteria.equalities, criteria.ranges, sortField);
+        if (strict && !plan.getWarnings().isEmpty()) {
+            throw new BusinessException(ErrorCodes.QUERY_NOT_INDEXED,
+                "查询不能完全使用索引: " + String.join("; ", plan.getWarnings()), 400, plan.getWarnings());
+        }
+        criteria.plan = plan;
+        
+        String sortColumn = criteria.columns.get(sortField);
+        String direction = asc ? "asc" : "desc";
+        StringBuilder sql = new StringBuilder(String.format(select, plan.getIndex().getName()));
+        List<Object> args = new ArrayList<>();
+        args.add(userId);
+        sql.append(criteria.sql);
+        args.addAll(criteria.args);
+        sql.append(" and ").append(sortColumn).append(" is not null");
+        if (cursor != null && !cursor.isEmpty()) {
+            CursorCodec.KeyCursor position = CursorCodec.decodeKey(cursor);
+            Object value = parseKey(position.getKey(), sortField, cursor);
+            String after = asc ? " > " : " < ";
+            sql.append(" and (").append(sortColumn).append(after).append("? or (")
+                .append(sortColumn).append(" = ? and ").append(idColumn).append(after).append("?))");
+            args.add(value);
+            args.add(value);
+            args.add(position.getId());
+        }
+        sql.append(" order by ").append(sortColumn).append(' ').append(direction)
+            .append(", ").append(idColumn).append(' ').append(direction).append(" limit ?");
+        args.add(CursorCodec.normalizeLimit(limit) + 1);
+        
+        long start = System.currentTimeMillis();
+        List<T> rows = jdbcTemplate.query(sql.toString(), mapper, args.toArray());
+        logger.debug("条件查询: 用户 {}, 索引 {}, 返回 {} 条, 耗时 {} ms, 警告 {}",
+            userId, plan.getIndex().getName(), rows.size(), System.currentTimeMillis() - start, plan.getWarnings());
+        return rows;
+    }
+    
+    private static <T> QueryPage<T> page(List<T> rows, int size, String sortField, Function<T, Object> sortValue,
+                                         Function<T, Long> id, Criteria criteria) {
+        boolean hasMore = rows.size() > size;
+        List<T> items = hasMore ? new ArrayList<>(rows.subList(0, size)) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            T last = items.get(items.size() - 1);
+            nextCursor = CursorCodec.encodeKey(sortField + ":" + sortValue.apply(last), id.apply(last));
+        }
+        return new QueryPage<>(items, nextCursor, hasMore, criteria.plan.getIndex().getName(), criteria.plan.getWarnings());
+    }
+    
+    private static String sortField(String sort, String defaultField, String... allowed) {
+        if (sort == null || sort.isEmpty()) {
+            return defaultField;
+        }
+        for (String field : allowed) {
+            if (field.equals(sort)) {
+                return field;
+            }
+        }
+        throw new BusinessException(ErrorCodes.QUERY_INVALID_CRITERIA,
+            "不支持的排序字段: " + sort + "，可选 " + String.join("、", allowed), 400);
+    }
+    
+    private static boolean ascending(String order, boolean defaultAscending) {
+        if (order == null || order.isEmpty()) {
+            return defaultAscending;
+        }
+        if ("asc".equalsIgnoreCase(order) || "desc".equalsIgnoreCase(order)) {
+            return "asc".equalsIgnoreCase(order);
+        }
+        throw new BusinessException(ErrorCodes.QUERY_INVALID_CRITERIA, "排序方向只能是 asc 或 desc", 400);
+    }
+    
+    /**
+     * 游标中的排序键 "字段:值"，字段必须与本次排序一致
+     */
+    private static Object parseKey(String key, String sortField, String cursor) {
+        String prefix = sortField + ":";
+        if (!key.startsWith(prefix)) {
+            throw new BusinessException(ErrorCodes.INVALID_CURSOR, "分页游标与排序字段不一致: " + cursor, 400);
+        }
+        String value = key.substring(prefix.length());
+        try {
+            return "progress".equals(sortField) ? Integer.valueOf(value) : LocalDateTime.parse(value);
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new BusinessException(ErrorCodes.INVALID_CURSOR, "无效的分页游标: " + cursor, 400);
+        }
+    }
+    
+    /**
+     * 查询条件：拼接后的 SQL 片段和参数，以及等值、范围条件涉及的字段（供索引选择）
+     */
+    private static final class Criteria {
+        
+        private final Map<String, String> columns;
+        private final StringBuilder sql = new StringBuilder();
+        private final List<Object> args = new ArrayList<>();
+        private final Set<String> equalities = new LinkedHashSet<>();
+        private final Set<String> ranges = new LinkedHashSet<>();
+        private IndexPlanner.Plan plan;
+        
+        Criteria(Map<String, String> columns) {
+            this.columns = columns;
+        }
+        
+        void equal(String field, Object value) {
+            if (value == null || (value instanceof String text && text.isEmpty())) {
+                return;
+            }
+            sql.append(" and ").append(columns.get(field)).append(" = ?");
+            args.add(value);
+            equalities.add(field);
+        }
+        
+        /**
+         * 范围条件，下限总是包含；upperInclusive 为 false 时上限不含，适用于时间区间
+         */
+        <V extends Comparable<V>> void range(String field, V lower, V upper, boolean upperInclusive) {
+            if (lower != null && upper != null && lower.compareTo(upper) > 0) {
+                throw new BusinessException(ErrorCodes.QUERY_INVALID_CRITERIA, field + " 的下限不能大于上限", 400);
+            }
+            String column = columns.get(field);
+            if (lower != null) {
+                sql.append(" and ").append(column).append(" >= ?");
+                args.add(lower);
+            }
+            if (upper != null) {
+                sql.append(" and ").append(column).append(upperInclusive ? " <= ?" : " < ?");
+                args.add(upper);
+            }
+            if (lower != null || upper != null) {
+                ranges.add(field);
+            }
+        }
+    }
+}
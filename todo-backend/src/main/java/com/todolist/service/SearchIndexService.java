@@ -0,0 +1,665 @@
+package com.todolist.service;
+
+import com.todolist.dto.ChangeNotice;
+import com.todolist.dto.SearchHit;
+import com.todolist.dto.SearchResult;
+import com.todolist.exception.BusinessException;
+import com.todolist.exception.ErrorCodes;
+import com.todolist.repository.TaskRepository;
+import com.todolist.repository.TodoRepository;
+import com.todolist.repository.TopicRepository;
+import com.todolist.util.SearchTokenizer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * 全文搜索索引服务类
+ * 
+ * 在内存中为每个用户维护一个倒排索引，覆盖主题的名称和描述、任务的标题和描述、待办的标题、内容和备注，
+ * 分词规则见 SearchTokenizer。查询取各词项倒排列表的交集（从最短的列表开始），
+ * 按 BM25 式的饱和词频乘以逆文档频率排序，标题中的命中权重更高，只为前 limit 条生成片段。
+ * 
+ * 索引不直接查询写入路径：ChangeEventService 把本实例提交的变更和中继收到的其他实例的变更交给本服务，
+ * 由单个后台线程按顺序重新读取对应记录并更新索引，搜索结果比写入晚几毫秒可见。
+ * 应用启动后按主键区间并行读取全部未删除的记录构建索引，构建完成前搜索返回 503，期间的变更排在构建之后处理。
+ * 索引常驻内存，大小约为被索引文本的数倍，可通过 search.enabled 关闭。
+ * 名称的前缀补全由 NameSuggestService 单独维护，不依赖本索引
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+@Service
+public class SearchIndexService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SearchIndexService.class);
+    
+    /**
+     * 标题中命中的词频权重，正文为 1
+     */
+    private static final int TITLE_WEIGHT = 3;
+    
+    /**
+     * 片段在命中位置前后各保留的字符数
+     */
+    private static final int SNIPPET_RADIUS = 30;
+    
+    /**
+     * 单次搜索最多返回的结果数
+     */
+    private static final int MAX_LIMIT = 100;
+    
+    /**
+     * 增量更新时每条 in 查询包含的ID数
+     */
+    private static final int BATCH_SIZE = 1000;
+    
+    @Autowired
+    private TopicRepository topicRepository;
+    
+    @Autowired
+    private TaskRepository taskRepository;
+    
+    @Autowired
+    private TodoRepository todoRepository;
+    
+    @Value("${search.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${search.rebuild.chunk-size:5000}")
+    private int chunkSize;
+    
+    @Value("${search.rebuild.parallelism:4}")
+    private int parallelism;
+    
+    private final ConcurrentHashMap<Long, UserIndex> indexes = new ConcurrentHashMap<>();
+    
+    /**
+     * 索引的唯一写入线程：启动构建和增量更新都在这里按提交顺序执行
+     */
+    private final ExecutorService updater = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private volatile boolean ready;
+    
+    /**
+     * 是否开启全文搜索
+     * 
+     * @return boolean 开启时返回 true
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * 应用启动完成后在后台构建索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (enabled) {
+            updater.execute(this::rebuild);
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        updater.shutdownNow();
+    }
+    
+    /**
+     * 记录变更后更新索引，由 ChangeEventService 在事务提交后调用，不阻塞调用方
+     * 
+     * @param userId 用户ID
+     * @param notices 变更通知
+     */
+    public void onChanges(Long userId, List<ChangeNotice> notices) {
+        if (!enabled) {
+            return;
+        }
+        List<ChangeNotice> copy = List.copyOf(notices);
+        updater.execute(() -> {
+            try {
+                apply(userId, copy);
+            } catch (RuntimeException e) {
+                // 该记录的索引保持旧状态，下次修改时恢复
+                logger.error("全文索引更新失败: 用户 {}", userId, e);
+            }
+        });
+    }
+    
+    /**
+     * 在当前用户的主题、任务和待办中搜索
+     * 
+     * @param userId 用户ID
+     * @param query 搜索关键词，多个词之间为"且"的关系
+     * @param limit 返回的结果数，1-100
+     * @return SearchResult 匹配总数和按相关度排序的结果
+     * @throws BusinessException 关键词为空时返回 400，搜索未开启或索引尚未构建完成时返回 503
+     */
+    public SearchResult search(Long userId, String query, int limit) {
+        requireReady();
+        List<String> terms = new ArrayList<>(SearchTokenizer.queryTerms(query));
+        if (terms.isEmpty()) {
+            throw new BusinessException(ErrorCodes.SEARCH_INVALID_QUERY, "搜索关键词不能为空", 400);
+        }
+        int size = Math.max(1, Math.min(limit, MAX_LIMIT));
+        UserIndex index = indexes.get(userId);
+        if (index == null) {
+            return new SearchResult(0, new ArrayList<>());
+        }
+        
+        long start = System.nanoTime();
+        index.lock.readLock().lock();
+        try {
+            List<Set<Doc>> postings = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Set<Doc> docs = index.postings.get(term);
+                if (docs == null) {
+                    return new SearchResult(0, new ArrayList<>());
+                }
+                postings.add(docs);
+            }
+            int docCount = index.size();
+            double[] idf = new double[terms.size()];
+            for (int i = 0; i < idf.length; i++) {
+                int df = postings.get(i).size();
+                idf[i] = Math.log(1 + (docCount - df + 0.5) / (df + 0.5));
+            }
+            Set<Doc> smallest = postings.stream().min(Comparator.comparingInt(Set::size)).get();
+            
+            Comparator<ScoredDoc> order = Comparator.<ScoredDoc>comparingDouble(s -> s.score)
+                .thenComparingLong(s -> s.doc.id);
+            PriorityQueue<ScoredDoc> top = new PriorityQueue<>(size + 1, order);
+            int total = 0;
+            candidates:
+            for (Doc doc : smallest) {
+                for (Set<Doc> docs : postings) {
+                    if (docs != smallest && !docs.contains(doc)) {
+                        continue candidates;
+                    }
+                }
+                total++;
+                double score = 0;
+                for (int i = 0; i < idf.length; i++) {
+                    String term = terms.get(i);
+                    int tf = TITLE_WEIGHT * SearchTokenizer.count(doc.title, term) + SearchTokenizer.count(doc.body, term);
+                    score += idf[i] * tf * 2.2 / (tf + 1.2);
+                }
+                if (top.size() < size) {
+                    top.offer(new ScoredDoc(doc, score));
+                } else if (score > top.peek().score) {
+                    top.poll();
+                    top.offer(new ScoredDoc(doc, score));
+                }
+            }
+            
+            List<SearchHit> hits = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                ScoredDoc scored = top.poll();
+                hits.add(0, toHit(index, scored, terms));
+            }
+            logger.debug("全文搜索: 用户 {}, 关键词 \"{}\", 匹配 {} 条, 耗时 {} us",
+                userId, query, total, (System.nanoTime() - start) / 1000);
+            return new SearchResult(total, hits);
+        } finally {
+            index.lock.readLock().unlock();
+        }
+    }
+    
+    private void requireReady() {
+        if (!enabled) {
+            throw new BusinessException(ErrorCodes.SEARCH_UNAVAILABLE, "全文搜索未开启", 503);
+        }
+        if (!ready) {
+            throw new BusinessException(ErrorCodes.SEARCH_UNAVAILABLE, "搜索索引正在构建，请稍后重试", 503);
+        }
+    }
+    
+    /**
+     * 全量构建索引：主题、任务、待办分别按主键区间切分，多个区间并行读取
+     */
+    private void rebuild() {
+        long start = System.currentTimeMillis();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, parallelism));
+        try {
+            List<Future<Integer>> chunks = new ArrayList<>();
+            chunks.addAll(submitChunks(pool, topicRepository.findIdRange(), (fromId, toId) ->
+                indexRows(topicRepository.findSearchRowsInRange(fromId, toId), 1, ChangeNotice.TOPIC)));
+            chunks.addAll(submitChunks(pool, taskRepository.findIdRange(), (fromId, toId) ->
+                indexRows(taskRepository.findSearchRowsInRange(fromId, toId), 2, ChangeNotice.TASK)));
+            chunks.addAll(submitChunks(pool, todoRepository.findIdRange(), (fromId, toId) ->
+                indexRows(todoRepository.findSearchRowsInRange(fromId, toId), 2, ChangeNotice.TODO)));
+            long documents = 0;
+            for (Future<Integer> chunk : chunks) {
+                documents += chunk.get();
+            }
+            ready = true;
+            logger.info("全文索引构建完成: 用户 {} 个, 记录 {} 条, {} 个区间, 耗时 {} ms",
+                indexes.size(), documents, chunks.size(), System.currentTimeMillis() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.error("全文索引构建失败，搜索不可用", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+    
+    /**
+     * 将 [min(id), max(id)] 切分为固定大小的区间并提交到线程池
+     */
+    private List<Future<Integer>> submitChunks(ExecutorService pool, List<Object[]> idRange,
+                                               BiFunction<Long, Long, Integer> load) {
+        List<Future<Integer>> futures = new ArrayList<>();
+        if (idRange.isEmpty() || idRange.get(0)[0] == null) {
+            return futures;
+        }
+        long minId = ((Number) idRange.get(0)[0]).longValue();
+        long maxId = ((Number) idRange.get(0)[1]).longValue();
+        int step = Math.max(1, chunkSize);
+        for (long from = minId; from <= maxId; from += step) {
+            long fromId = from;
+            long toId = Math.min(from + step - 1, maxId);
+            futures.add(pool.submit(() -> load.apply(fromId, toId)));
+        }
+        return futures;
+    }
+    
+    /**
+     * 把一批查询结果行加入索引，同一用户的行在一次写锁内加入
+     * 
+     * @param userColumn 所属用户ID所在的列
+     */
+    private int indexRows(List<Object[]> rows, int userColumn, String type) {
+        Map<Long, List<Doc>> byUser = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            byUser.computeIfAbsent(((Number) row[userColumn]).longValue(), id -> new ArrayList<>()).add(toDoc(type, row));
+        }
+        byUser.forEach((userId, docs) -> {
+            UserIndex index = indexes.computeIfAbsent(userId, id -> new UserIndex());
+            index.lock.writeLock().lock();
+            try {
+                docs.forEach(index::put);
+            } finally {
+                index.lock.writeLock().unlock();
+            }
+        });
+        return rows.size();
+    }
+    
+    /**
+     * 按变更通知重新读取记录并更新索引：先处理待办，再处理任务，最后处理主题。
+     * 任务的版本号为空且同一批没有它的待办变更时，说明其下待办被批量修改，重新读取该任务的全部待办；
+     * 任务或主题从无到有（新建或恢复）时，同时读取其下的记录
+     */
+    private void apply(Long userId, List<ChangeNotice> notices) {
+        UserIndex index = indexes.computeIfAbsent(userId, id -> new UserIndex());
+        List<Long> todoIds = new ArrayList<>();
+        for (ChangeNotice notice : notices) {
+            if (ChangeNotice.TODO.equals(notice.getType())) {
+                todoIds.add(notice.getId());
+            }
+        }
+        
+        Set<Long> touchedTaskIds = new HashSet<>();
+        if (!todoIds.isEmpty()) {
+            Map<Long, Object[]> rows = new HashMap<>();
+            for (Object[] row : todoRepository.findSearchRowsByIdIn(todoIds)) {
+                rows.put(((Number) row[0]).longValue(), row);
+            }
+            index.lock.writeLock().lock();
+            try {
+                for (Long todoId : todoIds) {
+                    Object[] row = rows.get(todoId);
+                    Doc old = index.todos.get(todoId);
+                    if (old != null) {
+                        touchedTaskIds.add(old.parentId);
+                    }
+                    if (row == null) {
+                        index.remove(ChangeNotice.TODO, todoId);
+                    } else {
+                        Doc doc = toDoc(ChangeNotice.TODO, row);
+                        touchedTaskIds.add(doc.parentId);
+                        index.put(doc);
+                    }
+                }
+            } finally {
+                index.lock.writeLock().unlock();
+            }
+        }
+        
+        Set<Long> reindexTaskIds = new LinkedHashSet<>();
+        List<ChangeNotice> taskNotices = ofType(notices, ChangeNotice.TASK);
+        if (!taskNotices.isEmpty()) {
+            Map<Long, Object[]> rows = loadRows(taskNotices, taskRepository::findSearchRowsByIdIn);
+            write(index, () -> {
+                for (ChangeNotice notice : taskNotices) {
+                    Long taskId = notice.getId();
+                    Object[] row = rows.get(taskId);
+                    if (row == null) {
+                        index.removeTask(taskId);
+                        continue;
+                    }
+                    boolean known = index.tasks.containsKey(taskId);
+                    index.put(toDoc(ChangeNotice.TASK, row));
+                    if (!known || (notice.getVersion() == null && !touchedTaskIds.contains(taskId))) {
+                        reindexTaskIds.add(taskId);
+                    }
+                }
+            });
+        }
+        
+        List<ChangeNotice> topicNotices = ofType(notices, ChangeNotice.TOPIC);
+        if (!topicNotices.isEmpty()) {
+            Map<Long, Object[]> rows = loadRows(topicNotices, topicRepository::findSearchRowsByIdIn);
+            List<Long> newTopicIds = new ArrayList<>();
+            write(index, () -> {
+                for (ChangeNotice notice : topicNotices) {
+                    Long topicId = notice.getId();
+                    Object[] row = rows.get(topicId);
+                    if (row == null) {
+                        index.removeTopic(topicId);
+                        continue;
+                    }
+                    if (!index.topics.containsKey(topicId)) {
+                        newTopicIds.add(topicId);
+                    }
+                    index.put(toDoc(ChangeNotice.TOPIC, row));
+                }
+            });
+            for (Long topicId : newTopicIds) {
+                List<Object[]> taskRows = taskRepository.findSearchRowsByTopicId(topicId);
+                write(index, () -> {
+                    for (Object[] taskRow : taskRows) {
+                        Doc task = toDoc(ChangeNotice.TASK, taskRow);
+                        index.put(task);
+                        reindexTaskIds.add(task.id);
+                    }
+                });
+            }
+        }
+        reindexTodos(index, reindexTaskIds);
+    }
+    
+    private static List<ChangeNotice> ofType(List<ChangeNotice> notices, String type) {
+        List<ChangeNotice> matched = new ArrayList<>();
+        for (ChangeNotice notice : notices) {
+            if (type.equals(notice.getType())) {
+                matched.add(notice);
+            }
+        }
+        return matched;
+    }
+    
+    /**
+     * 按ID分批读取变更记录的当前索引行，删除通知不读取；结果中没有的记录表示已删除
+     */
+    private static Map<Long, Object[]> loadRows(List<ChangeNotice> notices,
+                                                Function<Collection<Long>, List<Object[]>> finder) {
+        List<Long> ids = new ArrayList<>();
+        for (ChangeNotice notice : notices) {
+            if (!notice.isDeleted()) {
+                ids.add(notice.getId());
+            }
+        }
+        Map<Long, Object[]> rows = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            for (Object[] row : finder.apply(ids.subList(from, Math.min(ids.size(), from + BATCH_SIZE)))) {
+                rows.put(((Number) row[0]).longValue(), row);
+            }
+        }
+        return rows;
+    }
+    
+    /**
+     * 用数据库中的当前内容替换这些任务下全部待办的索引，按批读取
+     */
+    private void reindexTodos(UserIndex index, Collection<Long> taskIds) {
+        List<Long> ids = new ArrayList<>(taskIds);
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(ids.size(), from + BATCH_SIZE));
+            List<Object[]> rows = todoRepository.findSearchRowsByTaskIdIn(batch);
+            write(index, () -> {
+                Set<Long> stale = new HashSet<>();
+                for (Long taskId : batch) {
+                    stale.addAll(index.todosByTask.getOrDefault(taskId, Set.of()));
+                }
+                for (Object[] row : rows) {
+                    Doc doc = toDoc(ChangeNotice.TODO, row);
+                    stale.remove(doc.id);
+                    index.put(doc);
+                }
+                for (Long todoId : stale) {
+                    index.remove(ChangeNotice.TODO, todoId);
+                }
+            });
+        }
+    }
+    
+    private void write(UserIndex index, Runnable action) {
+        index.lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            index.lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * 由查询结果行构建索引文档：主题行为 (id, user_id, name, description)，
+     * 任务行为 (id, topic_id, user_id, title, description)，待办行为 (id, task_id, user_id, title, content, note)
+     */
+    private static Doc toDoc(String type, Object[] row) {
+        Long id = ((Number) row[0]).longValue();
+        if (ChangeNotice.TOPIC.equals(type)) {
+            return new Doc(type, id, null, (String) row[2], (String) row[3]);
+        }
+        Long parentId = ((Number) row[1]).longValue();
+        if (ChangeNotice.TASK.equals(type)) {
+            return new Doc(type, id, parentId, (String) row[3], (String) row[4]);
+        }
+        String title = (String) row[3];
+        String content = (String) row[4];
+        String note = (String) row[5];
+        // 导入的待办内容与标题相同，不重复计入正文
+        String body = content == null || content.equals(title) ? note
+            : note == null || note.isBlank() ? content : content + " " + note;
+        return new Doc(type, id, parentId, title, body);
+    }
+    
+    private static SearchHit toHit(UserIndex index, ScoredDoc scored, List<String> terms) {
+        Doc doc = scored.doc;
+        Long taskId = null;
+        Long topicId = null;
+        if (ChangeNotice.TODO.equals(doc.type)) {
+            taskId = doc.parentId;
+            Doc task = index.tasks.get(taskId);
+            topicId = task != null ? task.parentId : null;
+        } else if (ChangeNotice.TASK.equals(doc.type)) {
+            topicId = doc.parentId;
+        }
+        double score = Math.round(scored.score * 1000) / 1000.0;
+        return new SearchHit(doc.type, doc.id, topicId, taskId, doc.title, snippet(doc.body, terms), score);
+    }
+    
+    /**
+     * 正文中第一个命中位置前后的片段，没有命中时取正文开头
+     */
+    private static String snippet(String body, List<String> terms) {
+        if (body == null || body.isBlank()) {
+            return null;
+        }
+        int hit = -1;
+        int hitLength = 0;
+        for (String term : terms) {
+            int position = SearchTokenizer.indexOf(body, term, 0);
+            if (position >= 0 && (hit < 0 || position < hit)) {
+                hit = position;
+                hitLength = term.length();
+            }
+        }
+        int from = hit < 0 ? 0 : Math.max(0, hit - SNIPPET_RADIUS);
+        int to = hit < 0 ? Math.min(body.length(), 2 * SNIPPET_RADIUS) : Math.min(body.length(), hit + hitLength + SNIPPET_RADIUS);
+        if (from > 0 && Character.isLowSurrogate(body.charAt(from))) {
+            from--;
+        }
+        if (to < body.length() && Character.isLowSurrogate(body.charAt(to))) {
+            to++;
+        }
+        return (from > 0 ? "…" : "") + body.substring(from, to) + (to < body.length() ? "…" : "");
+    }
+    
+    /**
+     * 一条被索引的主题、任务或待办，title 和 body 为建索引时的文本
+     */
+    private static final class Doc {
+        
+        private final String type;
+        private final Long id;
+        private final Long parentId;
+        private final String title;
+        private final String body;
+        
+        Doc(String type, Long id, Long parentId, String title, String body) {
+            this.type = type;
+            this.id = id;
+            this.parentId = parentId;
+            this.title = title;
+            this.body = body;
+        }
+        
+        Set<String> terms() {
+            Set<String> terms = new HashSet<>();
+            SearchTokenizer.indexTerms(title, terms);
+            SearchTokenizer.indexTerms(body, terms);
+            return terms;
+        }
+    }
+    
+    private record ScoredDoc(Doc doc, double score) {}
+    
+    /**
+     * 一个用户的倒排索引，读写由读写锁保护；另外记录任务、主题的下级，删除时一并移除
+     */
+    private static final class UserIndex {
+        
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<Long, Doc> topics = new HashMap<>();
+        private final Map<Long, Doc> tasks = new HashMap<>();
+        private final Map<Long, Doc> todos = new HashMap<>();
+        private final Map<Long, Set<Long>> tasksByTopic = new HashMap<>();
+        private final Map<Long, Set<Long>> todosByTask = new HashMap<>();
+        private final Map<String, Set<Doc>> postings = new HashMap<>();
+        
+        int size() {
+            return topics.size() + tasks.size() + todos.size();
+        }
+        
+        void put(Doc doc) {
+            Doc old = docs(doc.type).put(doc.id, doc);
+            if (old != null) {
+                unlink(old);
+            }
+            for (String term : doc.terms()) {
+                postings.computeIfAbsent(term, t -> new HashSet<>()).add(doc);
+            }
+            Map<Long, Set<Long>> children = children(doc.type);
+            if (children != null) {
+                children.computeIfAbsent(doc.parentId, id -> new LinkedHashSet<>()).add(doc.id);
+            }
+        }
+        
+        void remove(String type, Long id) {
+            Doc old = docs(type).remove(id);
+            if (old != null) {
+                unlink(old);
+            }
+        }
+        
+        void removeTask(Long taskId) {
+            Set<Long> todoIds = todosByTask.remove(taskId);
+            if (todoIds != null) {
+                for (Long todoId : todoIds) {
+                    Doc old = todos.remove(todoId);
+                    if (old != null) {
+                        unpost(old);
+                    }
+                }
+            }
+            remove(ChangeNotice.TASK, taskId);
+        }
+        
+        void removeTopic(Long topicId) {
+            Set<Long> taskIds = tasksByTopic.get(topicId);
+            if (taskIds != null) {
+                for (Long taskId : new ArrayList<>(taskIds)) {
+                    removeTask(taskId);
+                }
+            }
+            tasksByTopic.remove(topicId);
+            remove(ChangeNotice.TOPIC, topicId);
+        }
+        
+        private void unlink(Doc old) {
+            unpost(old);
+            Map<Long, Set<Long>> children = children(old.type);
+            if (children != null) {
+                Set<Long> siblings = children.get(old.parentId);
+                if (siblings != null) {
+                    siblings.remove(old.id);
+                    if (siblings.isEmpty()) {
+                        children.remove(old.parentId);
+                    }
+                }
+            }
+        }
+        
+        private void unpost(Doc old) {
+            for (String term : old.terms()) {
+                Set<Doc> docs = postings.get(term);
+                if (docs != null) {
+                    docs.remove(old);
+                    if (docs.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+        }
+        
+        private Map<Long, Doc> docs(String type) {
+            return ChangeNotice.TOPIC.equals(type) ? topics : ChangeNotice.TASK.equals(type) ? tasks : todos;
+        }
+        
+        private Map<Long, Set<Long>> children(String type) {
+            return ChangeNotice.TASK.equals(type) ? tasksByTopic : ChangeNotice.TODO.equals(type) ? todosByTask : null;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.todolist.service;
+
+import com.todolist.repository.TaskRepository;
+import com.todolist.repository.TodoRepository;
+import com.todolist.repository.TopicRepository;
+import com.todolist.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+/**
+ * 软删除清理服务类
+ * 
+ * 用户删除主题、任务或待办时只写入 deleted_at 墓碑标记，保留期内可以恢复。
+ * 本服务在低峰期定时把超过保留期的墓碑记录连同其子记录物理删除：
+ * 每条删除语句最多删除 chunk-size 行并单独提交，行锁只持有一个短事务；
+ * 分片之间按 max-rows-per-second 休眠限速，每次运行最多删除 max-rows-per-run 行，剩余的留给下一次。
+ * 物理删除前先抬高相关用户的同步序号下限，还没收到这些删除的增量同步客户端会被要求全量同步
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+@Service
+public class SoftDeletePurgeService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SoftDeletePurgeService.class);
+    
+    @Autowired
+    private TopicRepository topicRepository;
+    
+    @Autowired
+    private TaskRepository taskRepository;
+    
+    @Autowired
+    private TodoRepository todoRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Value("${soft-delete.retention-days:7}")
+    private int retentionDays;
+    
+    @Value("${soft-delete.purge.chunk-size:500}")
+    private int chunkSize;
+    
+    @Value("${soft-delete.purge.max-rows-per-second:2000}")
+    private int maxRowsPerSecond;
+    
+    @Value("${soft-delete.purge.max-rows-per-run:200000}")
+    private long maxRowsPerRun;
+    
+    /**
+     * 可恢复的最早删除时间，早于该时间删除的记录已过保留期
+     * 
+     * @return LocalDateTime 保留期起点
+     */
+    public LocalDateTime getRetentionCutoff() {
+        return LocalDateTime.now().minusDays(retentionDays);
+    }
+    
+    /**
+     * 物理删除超过保留期的墓碑记录
+     * 先删单独删除的待办，再删已删除的任务及其待办，最后删已删除的主题及其任务、待办，
+     * 始终先删子记录再删父记录
+     */
+    @Scheduled(cron = "${soft-delete.purge.cron:0 */10 1-5 * * *}")
+    public void purgeExpired() {
+        LocalDateTime cutoff = getRetentionCutoff();
+        PurgeRun run = new PurgeRun();
+        
+        transactionTemplate.executeWithoutResult(status -> {
+            userRepository.raiseSyncFloorForTopicsDeletedBefore(cutoff);
+            userRepository.raiseSyncFloorForTasksDeletedBefore(cutoff);
+            userRepository.raiseSyncFloorForTodosDeletedBefore(cutoff);
+        });
+        
+        run.drain(() -> todoRepository.purgeDeletedBefore(cutoff, chunkSize));
+        
+        List<Long> taskIds;
+        while (run.hasBudget() && !(taskIds = taskRepository.findIdsDeletedBefore(cutoff, chunkSize)).isEmpty()) {
+            purgeTasks(run, taskIds);
+        }
+        
+        List<Long> topicIds;
+        while (run.hasBudget() && !(topicIds = topicRepository.findIdsDeletedBefore(cutoff, chunkSize)).isEmpty()) {
+            for (Long topicId : topicIds) {
+                // 逐个任务按 task_id 索引删除待办，避免按主题删除时的子查询扫描整张待办表
+                while (run.hasBudget() && !(taskIds = taskRepository.findIdsByTopicId(topicId, chunkSize)).isEmpty()) {
+                    purgeTasks(run, taskIds);
+                }
+                if (!run.hasBudget()) {
+                    break;
+                }
+                run.execute(() -> topicRepository.purgeById(topicId));
+            }
+        }
+        
+        if (run.rows > 0) {
+            logger.info("软删除清理完成: 删除 {} 行, 截止时间 {}, 耗时 {} ms",
+                run.rows, cutoff, System.currentTimeMillis() - run.start);
+        }
+    }
+    
+    /**
+     * 逐个物理删除任务：先分片删除其全部待办，再删除任务本身
+     */
+    private void purgeTasks(PurgeRun run, List<Long> taskIds) {
+        for (Long taskId : taskIds) {
+            run.drain(() -> todoRepository.purgeByTaskId(taskId, chunkSize));
+            if (!run.hasBudget()) {
+                return;
+            }
+            run.execute(() -> taskRepository.purgeById(taskId));
+        }
+    }
+    
+    /**
+     * 单次清理的计数与限速状态
+     */
+    private class PurgeRun {
+        
+        private final long start = System.currentTimeMillis();
+        private long rows;
+        
+        boolean hasBudget() {
+            return rows < maxRowsPerRun && !Thread.currentThread().isInterrupted();
+        }
+        
+        /**
+         * 重复执行分片删除语句，直到某一片不足 chunkSize 行（已删完）或用完本次预算
+         */
+        void drain(IntSupplier statement) {
+            int deleted = chunkSize;
+            while (deleted >= chunkSize && hasBudget()) {
+                deleted = execute(statement);
+            }
+        }
+        
+        /**
+         * 在独立的短事务中执行一条删除语句，然后按吞吐上限休眠
+         */
+        int execute(IntSupplier statement) {
+            Integer deleted = transactionTemplate.execute(status -> statement.getAsInt());
+            rows += deleted;
+            long minElapsed = rows * 1000 / Math.max(1, maxRowsPerSecond);
+            long pause = minElapsed - (System.currentTimeMillis() - start);
+            if (pause > 0) {
+                try {
+                    Thread.sleep(pause);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return deleted;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.todolist.service;
+
+import com.todolist.dto.SyncResult;
+import com.todolist.exception.BusinessException;
+import com.todolist.exception.ErrorCodes;
+import com.todolist.repository.TaskRepository;
+import com.todolist.repository.TodoRepository;
+import com.todolist.repository.TopicRepository;
+import com.todolist.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.List;
+
+/**
+ * 增量同步服务类
+ * 
+ * 每个用户有一个单调递增的同步序号（users.change_seq），主题、任务、待办各自记录最近一次被同步观察到变化时的序号。
+ * 写入路径不维护序号：所有写入都会递增记录的 version，同步时把 version 与 synced_version 不同的记录
+ * 统一标记为新的序号，再返回序号大于客户端游标的记录。这样写入不需要额外加锁或查询所属用户，
+ * 同步序号的分配集中在同步请求内，由用户行的行锁串行化；待办是否有修改由覆盖索引判断，没有变化的轮询只读索引。
+ * 
+ * 删除是软删除，墓碑记录同样带有序号，作为删除列表返回；墓碑被清理任务物理删除前会抬高用户的同步序号下限，
+ * 游标低于下限的客户端改为全量同步
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+@Service
+public class SyncService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SyncService.class);
+    
+    /**
+     * 每条标记语句包含的待办ID数量，首次同步大工作区时分批标记
+     */
+    private static final int STAMP_BATCH_SIZE = 1000;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private TopicRepository topicRepository;
+    
+    @Autowired
+    private TaskRepository taskRepository;
+    
+    @Autowired
+    private TodoRepository todoRepository;
+    
+    /**
+     * 返回用户自同步序号 since 之后新建、修改和删除的主题、任务、待办
+     * 
+     * 使用读已提交隔离级别：标记序号的更新语句与随后的查询各自读取最新提交的数据，
+     * 返回的内容不会比记录下的 synced_version 更旧；标记之后提交的修改 version 会再次不同，由下一次同步返回
+     * 
+     * @param userId 用户ID
+     * @param since 客户端上次同步得到的序号，0 表示首次同步
+     * @return SyncResult 同步结果；since 为 0、低于序号下限或大于当前序号时返回全量数据
+     * @throws BusinessException 如果用户不存在
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public SyncResult sync(Long userId, long since) {
+        List<Object[]> state = userRepository.findSyncStateByIdForUpdate(userId);
+        if (state.isEmpty()) {
+            throw new BusinessException(ErrorCodes.USER_NOT_FOUND, "用户不存在", 404);
+        }
+        long seq = ((Number) state.get(0)[0]).longValue();
+        long floor = ((Number) state.get(0)[1]).longValue();
+        
+        // 先标记下级再标记上级：两条语句之间新提交的上级和下级只会晚一次同步出现，而不会出现下级先于上级返回
+        long next = seq + 1;
+        int stamped = 0;
+        List<Long> todoIds = todoRepository.findUnsyncedIdsByUserId(userId);
+        for (int i = 0; i < todoIds.size(); i += STAMP_BATCH_SIZE) {
+            List<Long> batch = todoIds.subList(i, Math.min(i + STAMP_BATCH_SIZE, todoIds.size()));
+            stamped += todoRepository.stampChangesByIdIn(batch, next);
+        }
+        stamped += taskRepository.stampChangesByUserId(userId, next);
+        stamped += topicRepository.stampChangesByUserId(userId, next);
+        if (stamped > 0) {
+            userRepository.updateChangeSeq(userId, next);
+            seq = next;
+        }
+        
+        boolean fullResync = since <= 0 || since < floor || since > seq;
+        long from = fullResync ? 0 : since;
+        SyncResult result = new SyncResult(seq, fullResync);
+        result.setTopics(topicRepository.findChangedByUserId(userId, from));
+        result.setTasks(taskRepository.findChangedByUserId(userId, from));
+        result.setTodos(todoRepository.findChangedByUserId(userId, from));
+        if (!fullResync) {
+            result.setDeletedTopicIds(topicRepository.findDeletedIdsChangedByUserId(userId, from));
+            result.setDeletedTaskIds(taskRepository.findDeletedIdsChangedByUserId(userId, from));
+            result.setDeletedTodoIds(todoRepository.findDeletedIdsChangedByUserId(userId, from));
+        }
+        
+        logger.debug("增量同步: 用户 {}, since {}, seq {}, 全量 {}, 新标记 {} 条, 返回主题 {} 任务 {} 待办 {}",
+            userId, since, seq, fullResync, stamped,
+            result.getTopics().size(), result.getTasks().size(), result.getTodos().size());
+        return result;
+    }
+}
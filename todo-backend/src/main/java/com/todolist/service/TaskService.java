@@ -1,13 +1,30 @@
 package com.todolist.service;
 
+import com.todolist.dto.BulkOperationResult;
+import com.todolist.dto.CursorPage;
+import com.todolist.dto.TaskDTO;
 import com.todolist.entity.Task;
 import com.todolist.entity.Topic;
+import com.todolist.exception.BusinessException;
+import com.todolist.exception.ErrorCodes;
 import com.todolist.repository.TaskRepository;
+import com.todolist.repository.TodoRepository;
 import com.todolist.repository.TopicRepository;
+import com.todolist.util.CursorCodec;
+import com.todolist.util.ETags;
+import com.todolist.util.PartialUpdate;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * 任务服务类
@@ -22,30 +39,124 @@ import java.util.Optional;
 @Service
 public class TaskService {
     
+    /**
+     * 名称列的最大长度（VARCHAR(255)）
+     */
+    private static final int MAX_NAME_LENGTH = 255;
+    
     @Autowired
     private TaskRepository taskRepository;
     
     @Autowired
     private TopicRepository topicRepository;
     
+    @Autowired
+    private TodoRepository todoRepository;
+    
+    @Autowired
+    private ChangeEventService changeEventService;
+    
+    @Autowired
+    private ProgressRollupService progressRollupService;
+    
+    @Autowired
+    private SoftDeletePurgeService softDeletePurgeService;
+    
+    @Autowired
+    private TodoWriteBehindBuffer todoWriteBehindBuffer;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
     /**
      * 根据主题ID获取该主题下的所有任务
+     * 结果由查询直接投影为 DTO，不经过实体加载
      * 
      * @param topicId 主题ID
-     * @return List<Task> 该主题下的任务列表
+     * @return List<TaskDTO> 该主题下的任务列表
      */
-    public List<Task> getTasksByTopicId(Long topicId) {
-        return taskRepository.findByTopicId(topicId);
+    public List<TaskDTO> getTasksByTopicId(Long topicId) {
+        return taskRepository.findDTOsByTopicId(topicId);
+    }
+    
+    /**
+     * 按游标分页获取主题下的任务，按创建时间升序
+     * 
+     * @param topicId 主题ID
+     * @param cursor 上一页返回的 nextCursor，为空时返回第一页
+     * @param limit 每页条数，为空时使用默认值
+     * @return CursorPage<TaskDTO> 当前页数据及下一页游标
+     */
+    public CursorPage<TaskDTO> getTasksPageByTopicId(Long topicId, String cursor, Integer limit) {
+        int size = CursorCodec.normalizeLimit(limit);
+        Limit fetchLimit = Limit.of(size + 1);
+        List<TaskDTO> rows;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = taskRepository.findPageByTopicId(topicId, fetchLimit);
+        } else {
+            CursorCodec.Cursor position = CursorCodec.decode(cursor);
+            rows = taskRepository.findPageByTopicIdAfter(topicId, position.getCreatedAt(), position.getId(), fetchLimit);
+        }
+        return CursorPage.of(rows, size, TaskDTO::getCreatedAt, TaskDTO::getId);
+    }
+    
+    /**
+     * 主题下任务列表（或其中一页）的 ETag
+     * 只执行一条聚合查询读取任务的数量、最大ID和版本号之和，不查询任务数据
+     * 
+     * @param topicId 主题ID
+     * @param cursor 分页游标，非分页查询时为 null
+     * @param limit 每页条数，非分页查询时为 null
+     * @return String 弱 ETag
+     */
+    public String getTasksETag(Long topicId, String cursor, Integer limit) {
+        Object[] summary = taskRepository.findVersionSummaryByTopicId(topicId).get(0);
+        return ETags.weak("tasks", topicId, summary, cursor, limit);
+    }
+    
+    /**
+     * 任务（及其待办）的 ETag
+     * 任务的版本号随任务信息和汇总计数的修改递增。只返回任务时 ETag 就是版本号（强 ETag，可用于 If-Match）；
+     * 包含待办时加上待办的版本汇总和写回缓冲中尚未写回的修改
+     * 
+     * @param id 任务ID
+     * @param includeTodos 响应是否包含待办事项
+     * @return String 弱 ETag，任务不存在时返回 null
+     */
+    public String getTaskETag(Long id, boolean includeTodos) {
+        Optional<Long> version = taskRepository.findVersionById(id);
+        if (version.isEmpty()) {
+            return null;
+        }
+        if (!includeTodos) {
+            return ETags.strong(version.get());
+        }
+        Object[] todos = todoRepository.findVersionSummaryByTaskId(id).get(0);
+        return ETags.weak("task", id, version.get(), todos, todoWriteBehindBuffer.pendingSequence(Set.of(id)));
     }
     
     /**
      * 根据ID获取特定任务
      * 
      * @param id 任务ID
-     * @return Optional<Task> 任务信息，如果不存在则返回空
+     * @return Optional<Task> 任务信息，如果不存在（或任务、所属主题已删除）则返回空
      */
     public Optional<Task> getTaskById(Long id) {
-        return taskRepository.findById(id);
+        return taskRepository.findActiveById(id);
+    }
+    
+    /**
+     * 根据ID获取任务，并通过单条 fetch join 查询同时加载其待办事项
+     * 
+     * @param id 任务ID
+     * @return Optional<Task> 已初始化待办集合的任务，如果不存在则返回空
+     */
+    public Optional<Task> getTaskWithTodos(Long id) {
+        todoWriteBehindBuffer.flush();
+        return taskRepository.findWithTodosById(id);
     }
     
     /**
@@ -56,34 +167,187 @@ public class TaskService {
      * @return Task 创建成功的任务信息（包含生成的ID）
      * @throws RuntimeException 如果主题不存在则抛出异常
      */
+    @Transactional
     public Task createTask(Task task, Long topicId) {
         Topic topic = topicRepository.findById(topicId)
             .orElseThrow(() -> new RuntimeException("主题不存在，ID: " + topicId));
         task.setTopic(topic);
-        return taskRepository.save(task);
+        task.setUserId(topic.getUser().getId());
+        Task savedTask = taskRepository.save(task);
+        changeEventService.taskChanged(savedTask.getId(), savedTask.getVersion(), false, false);
+        return savedTask;
     }
     
     /**
      * 更新任务信息
+     * 保存时按读取时的版本号做乐观锁校验；指定期望版本时，版本不符或读取后被并发修改都返回 412
      * 
-     * @param task 要更新的任务信息
-     * @return Task 更新后的任务信息
+     * @param task 要更新的任务信息（通过 getTaskById 获取后修改）
+     * @param expectedVersion If-Match 中期望的版本号，为 null 时不校验
+     * @return Task 更新后的任务信息（版本号已递增）
+     * @throws BusinessException 版本号与期望值不符时抛出
      */
-    public Task updateTask(Task task) {
-        return taskRepository.save(task);
+    public Task updateTask(Task task, Long expectedVersion) {
+        ETags.requireVersion(task.getVersion(), expectedVersion);
+        try {
+            return transactionTemplate.execute(status -> {
+                Task savedTask = taskRepository.save(task);
+                changeEventService.taskChanged(savedTask.getId(), savedTask.getVersion(), false, false);
+                return savedTask;
+            });
+        } catch (ObjectOptimisticLockingFailureException e) {
+            if (expectedVersion != null) {
+                throw ETags.preconditionFailed();
+            }
+            throw e;
+        }
     }
     
     /**
-     * 删除任务
+     * 部分更新任务，只写入请求中提供（非 null）的字段，执行一条 UPDATE 语句
+     * 
+     * @param id 任务ID
+     * @param patch 要修改的字段，为 null 的字段保持不变
+     * @param expectedVersion If-Match 中期望的版本号，为 null 时不校验
+     * @return Long 修改后的版本号
+     * @throws BusinessException 字段不合法、没有可更新的字段、任务不存在或版本号不符时抛出
+     */
+    @Transactional
+    public Long patchTask(Long id, TaskDTO patch, Long expectedVersion) {
+        String title = patch.getTitle();
+        if (title != null && (title.trim().isEmpty() || title.length() > MAX_NAME_LENGTH)) {
+            throw new BusinessException(ErrorCodes.TASK_VALIDATION_FAILED,
+                "任务标题不能为空且不能超过 " + MAX_NAME_LENGTH + " 个字符", 400);
+        }
+        // title 与 name 两列保持同步
+        PartialUpdate<Task> update = PartialUpdate.of(entityManager, Task.class)
+            .requireActive("topic")
+            .set("title", title)
+            .set("name", title)
+            .set("description", patch.getDescription())
+            .set("status", patch.getStatus())
+            .set("priority", patch.getPriority())
+            .set("dueDate", patch.getDueDate())
+            .expectVersion(expectedVersion);
+        if (update.isEmpty()) {
+            throw new BusinessException(ErrorCodes.TASK_VALIDATION_FAILED, "没有需要更新的字段", 400);
+        }
+        if (update.executeById(id) == 0) {
+            if (expectedVersion != null && taskRepository.findVersionById(id).isPresent()) {
+                throw ETags.preconditionFailed();
+            }
+            throw new BusinessException(ErrorCodes.TASK_NOT_FOUND, "任务不存在", 404);
+        }
+        // 本事务的 UPDATE 已锁定该行，读到的就是这次修改后的版本号
+        Long version = expectedVersion != null
+            ? expectedVersion + 1
+            : taskRepository.findVersionById(id).orElse(null);
+        changeEventService.taskChanged(id, version, false, false);
+        return version;
+    }
+    
+    /**
+     * 删除任务及其所有待办
+     * 只为任务写入墓碑标记（一条单行更新），其下的待办随之不可见；
+     * 同一事务内从所属主题的汇总计数中扣除该任务的计数
      * 
      * @param id 要删除的任务ID
-     * @return boolean 删除是否成功
+     * @param expectedVersion If-Match 中期望的版本号，为 null 时不校验
+     * @return boolean 删除是否成功，任务不存在时返回 false
+     * @throws BusinessException 版本号与期望值不符时抛出
+     */
+    @Transactional
+    public boolean deleteTask(Long id, Long expectedVersion) {
+        if (taskRepository.findTopicIdById(id).isEmpty()) {
+            return false;
+        }
+        if (taskRepository.softDeleteById(id, LocalDateTime.now(), expectedVersion) == 0) {
+            if (expectedVersion != null && taskRepository.findVersionById(id).isPresent()) {
+                throw ETags.preconditionFailed();
+            }
+            return false;
+        }
+        progressRollupService.onTaskDeleting(id);
+        changeEventService.taskChanged(id, taskRepository.findVersionIncludingDeletedById(id).orElse(null), true, true);
+        return true;
+    }
+    
+    /**
+     * 恢复保留期内被删除的任务，并把其计数加回所属主题
+     * 
+     * @param id 任务ID
+     * @throws BusinessException 如果任务不在回收站中、已超过保留期或所属主题已删除
+     */
+    @Transactional
+    public void restoreTask(Long id) {
+        if (taskRepository.restoreById(id, softDeletePurgeService.getRetentionCutoff()) == 0) {
+            throw new BusinessException(ErrorCodes.TASK_NOT_FOUND, "任务不在回收站中、已超过保留期限或所属主题已删除", 404);
+        }
+        progressRollupService.onTaskRestored(id);
+        // 客户端收到任务的删除后会丢弃其下的缓存，恢复后需要重新同步全部待办
+        todoRepository.markUnsyncedByTaskId(id);
+        changeEventService.taskChanged(id, taskRepository.findVersionById(id).orElse(null), false, true);
+    }
+    
+    /**
+     * 将任务下的所有待办标记为已完成（进度100）
+     * 一条集合更新语句完成，随后按任务和主题重算汇总计数
+     * 
+     * @param id 任务ID
+     * @return BulkOperationResult 实际被修改的待办数量
+     * @throws BusinessException 如果任务不存在
+     */
+    @Transactional
+    public BulkOperationResult completeAllTodos(Long id) {
+        Long topicId = requireTopicId(id);
+        int affected = todoRepository.completeAllByTaskId(id, LocalDateTime.now());
+        return afterBulkChange(id, topicId, affected);
+    }
+    
+    /**
+     * 将任务下的所有待办重置为未完成（进度0）
+     * 一条集合更新语句完成，随后按任务和主题重算汇总计数
+     * 
+     * @param id 任务ID
+     * @return BulkOperationResult 实际被修改的待办数量
+     * @throws BusinessException 如果任务不存在
+     */
+    @Transactional
+    public BulkOperationResult resetTodos(Long id) {
+        Long topicId = requireTopicId(id);
+        int affected = todoRepository.resetAllByTaskId(id, LocalDateTime.now());
+        return afterBulkChange(id, topicId, affected);
+    }
+    
+    /**
+     * 删除任务下所有已完成的待办
+     * 一条集合更新语句为这些待办写入墓碑标记，随后按任务和主题重算汇总计数
+     * 
+     * @param id 任务ID
+     * @return BulkOperationResult 被删除的待办数量
+     * @throws BusinessException 如果任务不存在
+     */
+    @Transactional
+    public BulkOperationResult deleteCompletedTodos(Long id) {
+        Long topicId = requireTopicId(id);
+        int affected = todoRepository.softDeleteCompletedByTaskId(id, LocalDateTime.now());
+        return afterBulkChange(id, topicId, affected);
+    }
+    
+    private Long requireTopicId(Long taskId) {
+        return taskRepository.findTopicIdById(taskId)
+            .orElseThrow(() -> new BusinessException(ErrorCodes.TASK_NOT_FOUND, "任务不存在", 404));
+    }
+    
+    /**
+     * 集合操作后按待办重算该任务及其主题的汇总计数，没有行受影响时跳过
      */
-    public boolean deleteTask(Long id) {
-        if (taskRepository.existsById(id)) {
-            taskRepository.deleteById(id);
-            return true;
+    private BulkOperationResult afterBulkChange(Long taskId, Long topicId, int affected) {
+        if (affected > 0) {
+            progressRollupService.recomputeForTasks(List.of(taskId));
+            progressRollupService.recomputeForTopics(List.of(topicId));
+            changeEventService.todosChanged(taskId);
         }
-        return false;
+        return new BulkOperationResult(taskId, affected);
     }
-}
\ No newline at end of file
+}
@@ -1,13 +1,40 @@
 package com.todolist.service;
 
+import com.todolist.dto.BatchItemError;
+import com.todolist.dto.CursorPage;
+import com.todolist.dto.TodoProgressDTO;
+import com.todolist.dto.TodoDTO;
 import com.todolist.entity.Todo;
 import com.todolist.entity.Task;
 import com.todolist.repository.TodoRepository;
 import com.todolist.repository.TaskRepository;
+import com.todolist.exception.BusinessException;
+import com.todolist.exception.ErrorCodes;
+import com.todolist.util.CursorCodec;
+import com.todolist.util.ETags;
+import com.todolist.util.PartialUpdate;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * 待办事项服务类
@@ -22,44 +49,276 @@ import java.util.Optional;
 @Service
 public class TodoService {
     
+    /**
+     * 批量查询时单次允许的最大任务数量
+     */
+    public static final int MAX_BATCH_TASK_IDS = 500;
+    
+    /**
+     * 批量创建时单次允许的最大待办数量
+     */
+    public static final int MAX_BATCH_CREATE = 1000;
+    
+    /**
+     * 标题和内容列的最大长度（VARCHAR(255)）
+     */
+    private static final int MAX_TEXT_LENGTH = 255;
+    
+    /**
+     * 进度原子增减语句
+     * 
+     * MySQL 单表 UPDATE 的赋值从左到右执行：progress 最先赋值，其后的完成状态列读到的已是新进度。
+     * progress 的赋值同时通过 LAST_INSERT_ID(expr) 把 (修改前完成状态, 修改前进度, 新进度) 编码为
+     * ((1 + 完成 * 1000 + 原进度) * 1000 + 新进度)，驱动在 UPDATE 的 OK 包中把它作为生成的键返回，
+     * 不需要再执行 SELECT；编码值最小为 1000，不会与"无生成键"的 0 混淆。
+     * 原进度先截断到 0-100 再加增量，与汇总计数使用的进度贡献一致，越界的历史数据不会造成计数漂移
+     */
+    private static final String INCREMENT_PROGRESS_SQL =
+        "update todos set " +
+        "progress = mod(last_insert_id((1 + if(coalesce(is_completed, completed, false), 1000, 0) " +
+        "+ least(100, greatest(0, coalesce(progress, 0)))) * 1000 " +
+        "+ least(100, greatest(0, least(100, greatest(0, coalesce(progress, 0))) + ?))), 1000), " +
+        "completed_at = if(progress >= 100 and not coalesce(is_completed, completed, false), now(), completed_at), " +
+        "completed = if(progress >= 100, true, completed), " +
+        "is_completed = if(progress >= 100, true, is_completed), " +
+        "updated_at = now(), version = version + 1 " +
+        "where id = ? and deleted_at is null and exists (select 1 from tasks k join topics p on p.id = k.topic_id " +
+        "where k.id = todos.task_id and k.deleted_at is null and p.deleted_at is null)";
+    
     @Autowired
     private TodoRepository todoRepository;
     
+    @Autowired
+    private ChangeEventService changeEventService;
+    
     @Autowired
     private TaskRepository taskRepository;
     
+    @Autowired
+    private ProgressRollupService progressRollupService;
+    
+    @Autowired
+    private SoftDeletePurgeService softDeletePurgeService;
+    
+    @Autowired
+    private TodoWriteBehindBuffer todoWriteBehindBuffer;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
     /**
      * 根据任务ID获取该任务下的所有待办事项
+     * 结果由查询直接投影为 DTO，不经过实体加载
      * 
      * @param taskId 任务ID
-     * @return List<Todo> 该任务下的待办事项列表
+     * @return List<TodoDTO> 该任务下的待办事项列表
      */
-    public List<Todo> getTodosByTaskId(Long taskId) {
-        return todoRepository.findByTaskId(taskId);
+    public List<TodoDTO> getTodosByTaskId(Long taskId) {
+        return todoWriteBehindBuffer.overlay(todoRepository.findDTOsByTaskId(taskId));
+    }
+    
+    /**
+     * 批量获取多个任务下的待办事项，按任务ID分组
+     * 只执行一条 IN 查询，替代逐个任务请求
+     * 
+     * @param taskIds 任务ID集合
+     * @return Map<Long, List<TodoDTO>> 任务ID到待办列表的映射，按请求顺序排列，没有待办的任务对应空列表
+     * @throws BusinessException 如果任务ID为空或超过上限
+     */
+    public Map<Long, List<TodoDTO>> getTodosByTaskIds(Collection<Long> taskIds) {
+        if (taskIds == null || taskIds.isEmpty()) {
+            throw new BusinessException(ErrorCodes.TODO_VALIDATION_FAILED, "taskIds 不能为空", 400);
+        }
+        Set<Long> distinctIds = new LinkedHashSet<>(taskIds);
+        if (distinctIds.size() > MAX_BATCH_TASK_IDS) {
+            throw new BusinessException(ErrorCodes.TODO_VALIDATION_FAILED,
+                "单次最多查询 " + MAX_BATCH_TASK_IDS + " 个任务的待办事项", 400);
+        }
+        
+        Map<Long, List<TodoDTO>> grouped = new LinkedHashMap<>();
+        for (Long taskId : distinctIds) {
+            grouped.put(taskId, new ArrayList<>());
+        }
+        for (TodoDTO todo : todoWriteBehindBuffer.overlay(todoRepository.findDTOsByTaskIdIn(distinctIds))) {
+            grouped.get(todo.getTaskId()).add(todo);
+        }
+        return grouped;
+    }
+    
+    /**
+     * 按游标分页获取任务下的待办事项，按创建时间升序
+     * 
+     * @param taskId 任务ID
+     * @param cursor 上一页返回的 nextCursor，为空时返回第一页
+     * @param limit 每页条数，为空时使用默认值
+     * @return CursorPage<TodoDTO> 当前页数据及下一页游标
+     */
+    public CursorPage<TodoDTO> getTodosPageByTaskId(Long taskId, String cursor, Integer limit) {
+        int size = CursorCodec.normalizeLimit(limit);
+        Limit fetchLimit = Limit.of(size + 1);
+        List<TodoDTO> rows;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = todoRepository.findPageByTaskId(taskId, fetchLimit);
+        } else {
+            CursorCodec.Cursor position = CursorCodec.decode(cursor);
+            rows = todoRepository.findPageByTaskIdAfter(taskId, position.getCreatedAt(), position.getId(), fetchLimit);
+        }
+        return CursorPage.of(todoWriteBehindBuffer.overlay(rows), size, TodoDTO::getCreatedAt, TodoDTO::getId);
+    }
+    
+    /**
+     * 任务下待办列表（或其中一页）的 ETag
+     * 执行一条按 task_id 索引的聚合查询读取待办的数量、最大ID和版本号之和，并计入写回缓冲中尚未写回的修改
+     * 
+     * @param taskId 任务ID
+     * @param cursor 分页游标，非分页查询时为 null
+     * @param limit 每页条数，非分页查询时为 null
+     * @return String 弱 ETag
+     */
+    public String getTodosETag(Long taskId, String cursor, Integer limit) {
+        Object[] summary = todoRepository.findVersionSummaryByTaskId(taskId).get(0);
+        return ETags.weak("todos", taskId, summary, cursor, limit,
+            todoWriteBehindBuffer.pendingSequence(Set.of(taskId)));
+    }
+    
+    /**
+     * 批量查询多个任务下待办的 ETag
+     * 
+     * @param taskIds 任务ID集合
+     * @return String 弱 ETag，任务ID为空或超过上限时返回 null，由查询方法报告参数错误
+     */
+    public String getTodosETag(Collection<Long> taskIds) {
+        if (taskIds == null || taskIds.isEmpty()) {
+            return null;
+        }
+        Set<Long> distinctIds = new LinkedHashSet<>(taskIds);
+        if (distinctIds.size() > MAX_BATCH_TASK_IDS) {
+            return null;
+        }
+        Object[] summary = todoRepository.findVersionSummaryByTaskIdIn(distinctIds).get(0);
+        return ETags.weak("todos", distinctIds, summary, todoWriteBehindBuffer.pendingSequence(distinctIds));
+    }
+    
+    /**
+     * 待办事项的 ETag（即版本号，可用于 If-Match），按主键读取版本号。
+     * 写回缓冲中有尚未写回的修改时返回计入其序号的弱 ETag，它与数据库中的版本号都不相同，不能用于 If-Match
+     * 
+     * @param id 待办事项ID
+     * @return String 强 ETag，有尚未写回的修改时为弱 ETag，待办不存在时返回 null
+     */
+    public String getTodoETag(Long id) {
+        long pending = todoWriteBehindBuffer.pendingSequence(id);
+        return todoRepository.findVersionById(id)
+            .map(version -> pending == 0 ? ETags.strong(version) : ETags.weak("todo", id, version, pending))
+            .orElse(null);
     }
     
     /**
      * 根据ID获取特定待办事项
+     * 开启写回缓冲时返回的实体已脱离持久化上下文，并带有尚未写回的修改
      * 
      * @param id 待办事项ID
-     * @return Optional<Todo> 待办事项信息，如果不存在则返回空
+     * @return Optional<Todo> 待办事项信息，如果不存在（或待办、所属任务、主题已删除）则返回空
      */
     public Optional<Todo> getTodoById(Long id) {
-        return todoRepository.findById(id);
+        Optional<Todo> todo = todoRepository.findActiveById(id);
+        if (todoWriteBehindBuffer.isEnabled()) {
+            todo.ifPresent(t -> {
+                // 脱离后对实体的修改不会被 Hibernate 自动写回，只经由缓冲写入
+                entityManager.detach(t);
+                todoWriteBehindBuffer.overlay(t);
+            });
+        }
+        return todo;
     }
     
     /**
      * 在指定任务下创建新待办事项
+     * 同一事务内累加任务和主题的汇总计数
      * 
      * @param todo 要创建的待办事项信息
      * @param taskId 任务ID
      * @return Todo 创建成功的待办事项信息（包含生成的ID）
      * @throws RuntimeException 如果任务不存在则抛出异常
      */
+    @Transactional
     public Todo createTodo(Todo todo, Long taskId) {
-        Task task = taskRepository.findById(taskId)
+        Task task = taskRepository.findActiveById(taskId)
             .orElseThrow(() -> new RuntimeException("任务不存在，ID: " + taskId));
         
+        String error = prepareNewTodo(todo);
+        if (error != null) {
+            throw new BusinessException(ErrorCodes.TODO_VALIDATION_FAILED, error, 400);
+        }
+        
+        todo.setTask(task);
+        todo.setUserId(task.getUserId());
+        Todo savedTodo = todoRepository.save(todo);
+        progressRollupService.onTodoCreated(savedTodo, taskId);
+        changeEventService.todoChanged(savedTodo.getId(), savedTodo.getVersion(), false, true);
+        return savedTodo;
+    }
+    
+    /**
+     * 在指定任务下批量创建待办事项
+     * 每一项使用与 createTodo 相同的默认值规则；先校验全部数据，任一项不合法则整批不写入，
+     * 并在错误详情中逐项指出问题。全部合法时在一个事务内批量插入，汇总计数只更新一次
+     * 
+     * @param todos 要创建的待办事项列表
+     * @param taskId 任务ID
+     * @return List<Todo> 创建成功的待办事项（顺序与请求一致）
+     * @throws BusinessException 如果任务不存在、数量超限或存在不合法的项
+     */
+    @Transactional
+    public List<Todo> createTodos(List<Todo> todos, Long taskId) {
+        if (todos == null || todos.isEmpty()) {
+            throw new BusinessException(ErrorCodes.TODO_VALIDATION_FAILED, "待办事项列表不能为空", 400);
+        }
+        if (todos.size() > MAX_BATCH_CREATE) {
+            throw new BusinessException(ErrorCodes.TODO_VALIDATION_FAILED,
+                "单次最多创建 " + MAX_BATCH_CREATE + " 个待办事项", 400);
+        }
+        Task task = taskRepository.findActiveById(taskId)
+            .orElseThrow(() -> new BusinessException(ErrorCodes.TASK_NOT_FOUND, "任务不存在，ID: " + taskId, 404));
+        
+        List<BatchItemError> errors = new ArrayList<>();
+        for (int i = 0; i < todos.size(); i++) {
+            Todo todo = todos.get(i);
+            String error = todo == null ? "待办事项不能为空" : prepareNewTodo(todo);
+            if (error != null) {
+                errors.add(new BatchItemError(i, error));
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new BusinessException(ErrorCodes.TODO_VALIDATION_FAILED,
+                "有 " + errors.size() + " 个待办事项未通过校验", 400, errors);
+        }
+        
+        for (Todo todo : todos) {
+            todo.setId(null);
+            todo.setTask(task);
+            todo.setUserId(task.getUserId());
+        }
+        List<Todo> savedTodos = todoRepository.saveAll(todos);
+        progressRollupService.onTodosCreated(savedTodos, taskId);
+        changeEventService.todosChanged(taskId);
+        return savedTodos;
+    }
+    
+    /**
+     * 为新建的待办事项补全默认值并校验
+     * createTodo、createTodos 以及导入共用同一套规则
+     * 
+     * @param todo 待创建的待办事项
+     * @return String 校验失败的原因，通过校验时返回 null
+     */
+    static String prepareNewTodo(Todo todo) {
         // 确保 completed 和 isCompleted 字段同步
         if (todo.getIsCompleted() == null) {
             todo.setIsCompleted(false);
@@ -83,31 +342,226 @@ public class TodoService {
             todo.setProgress(0);
         }
         
-        todo.setTask(task);
-        return todoRepository.save(todo);
+        if (todo.getTitle() == null || todo.getTitle().trim().isEmpty()) {
+            return "标题和内容不能同时为空";
+        }
+        if (todo.getTitle().length() > MAX_TEXT_LENGTH || todo.getContent().length() > MAX_TEXT_LENGTH) {
+            return "标题和内容不能超过 " + MAX_TEXT_LENGTH + " 个字符";
+        }
+        return null;
     }
     
     /**
      * 更新待办事项信息
+     * 开启写回缓冲时只把最新状态放入缓冲并立即返回，短时间内的多次修改合并为一次批量写入；
+     * 否则直接保存，同一事务内按完成状态和进度的变化调整汇总计数。
+     * 指定期望版本（If-Match）时不经过缓冲：先写回缓冲中的修改，再按版本号条件保存，
+     * 版本不符或读取后被并发修改都返回 412。经缓冲写入时返回的版本号是写回之前的值
      * 
-     * @param todo 要更新的待办事项信息
+     * @param todo 要更新的待办事项信息（通过 getTodoById 获取后修改）
+     * @param expectedVersion If-Match 中期望的版本号，为 null 时不校验
      * @return Todo 更新后的待办事项信息
+     * @throws BusinessException 内容为空、超长或版本号与期望值不符时抛出
      */
-    public Todo updateTodo(Todo todo) {
-        return todoRepository.save(todo);
+    public Todo updateTodo(Todo todo, Long expectedVersion) {
+        // 缓冲中的修改在稍后的批量写入时才会触发列约束，先按新建时的规则校验，避免坏数据进入写回
+        if (todo.getContent() == null) {
+            throw new BusinessException(ErrorCodes.TODO_VALIDATION_FAILED, "内容不能为空", 400);
+        }
+        requireText(todo.getTitle(), "标题");
+        requireText(todo.getContent(), "内容");
+        if (expectedVersion == null && todoWriteBehindBuffer.offer(todo)) {
+            // 变更通知在写回事务内发出，与写入同时记录到发件箱
+            return todo;
+        }
+        todoWriteBehindBuffer.flush();
+        ETags.requireVersion(todo.getVersion(), expectedVersion);
+        try {
+            return transactionTemplate.execute(status -> {
+                Todo savedTodo = todoRepository.save(todo);
+                progressRollupService.onTodoUpdated(todo);
+                changeEventService.todoChanged(savedTodo.getId(), savedTodo.getVersion(), false, true);
+                return savedTodo;
+            });
+        } catch (ObjectOptimisticLockingFailureException e) {
+            if (expectedVersion != null) {
+                throw ETags.preconditionFailed();
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * 部分更新待办事项，只写入请求中提供（非 null）的字段
+     * 只修改标题、内容、备注时只执行一条 UPDATE；修改进度或完成状态时先加锁读取原值，
+     * 再在同一事务内按差额调整任务和主题的汇总计数
+     * 
+     * @param id 待办事项ID
+     * @param patch 要修改的字段，为 null 的字段保持不变
+     * @param expectedVersion If-Match 中期望的版本号，为 null 时不校验
+     * @return Long 修改后的版本号
+     * @throws BusinessException 字段不合法、没有可更新的字段、待办事项不存在或版本号不符时抛出
+     */
+    @Transactional
+    public Long patchTodo(Long id, TodoDTO patch, Long expectedVersion) {
+        requireText(patch.getTitle(), "标题");
+        requireText(patch.getContent(), "内容");
+        Integer progress = patch.getProgress();
+        if (progress != null && (progress < 0 || progress > 100)) {
+            throw new BusinessException(ErrorCodes.TODO_VALIDATION_FAILED, "进度必须在0-100之间", 400);
+        }
+        // isCompleted 与 completed 两列保持同步，优先取 isCompleted；
+        // 未给出完成标记而进度达到100时与 Todo.setProgress 一致，自动标记为已完成
+        Boolean completed = patch.getIsCompleted() != null ? patch.getIsCompleted() : patch.getCompleted();
+        if (completed == null && progress != null && progress >= 100) {
+            completed = true;
+        }
+        
+        // 所属任务或主题已删除的待办同样视为不存在
+        PartialUpdate<Todo> update = PartialUpdate.of(entityManager, Todo.class)
+            .requireActive("task")
+            .requireActive("task.topic")
+            .set("title", patch.getTitle())
+            .set("content", patch.getContent())
+            .set("note", patch.getNote())
+            .set("progress", progress)
+            .set("isCompleted", completed)
+            .set("completed", completed)
+            .set("completedAt", patch.getCompletedAt())
+            .expectVersion(expectedVersion);
+        if (update.isEmpty()) {
+            throw new BusinessException(ErrorCodes.TODO_VALIDATION_FAILED, "没有需要更新的字段", 400);
+        }
+        
+        if (progress == null && completed == null) {
+            if (update.executeById(id) == 0) {
+                if (expectedVersion != null && todoRepository.findVersionById(id).isPresent()) {
+                    throw ETags.preconditionFailed();
+                }
+                throw new BusinessException(ErrorCodes.TODO_NOT_FOUND, "待办事项不存在", 404);
+            }
+            // 本事务的 UPDATE 已锁定该行，读到的就是这次修改后的版本号
+            Long version = expectedVersion != null
+                ? expectedVersion + 1
+                : todoRepository.findVersionById(id).orElse(null);
+            changeEventService.todoChanged(id, version, false, false);
+            return version;
+        }
+        
+        List<Object[]> state = todoRepository.findRollupStateByIdForUpdate(id);
+        if (state.isEmpty()) {
+            throw new BusinessException(ErrorCodes.TODO_NOT_FOUND, "待办事项不存在", 404);
+        }
+        Object[] row = state.get(0);
+        ETags.requireVersion((Long) row[4], expectedVersion);
+        boolean wasCompleted = Boolean.TRUE.equals(row[2] != null ? row[2] : row[3]);
+        int oldProgress = Todo.clampProgress((Integer) row[1]);
+        boolean nowCompleted = completed != null ? completed : wasCompleted;
+        // 完成时间与批量完成/取消完成一致：变为已完成时记录当前时间，取消完成时清空
+        if (patch.getCompletedAt() == null && nowCompleted != wasCompleted) {
+            if (nowCompleted) {
+                update.set("completedAt", LocalDateTime.now());
+            } else {
+                update.clear("completedAt");
+            }
+        }
+        update.executeById(id);
+        progressRollupService.onTodoChanged((Long) row[0], wasCompleted, oldProgress,
+            nowCompleted, progress != null ? progress : oldProgress);
+        Long version = (Long) row[4] + 1;
+        changeEventService.todoChanged(id, version, false, true);
+        return version;
+    }
+    
+    /**
+     * 原子地增减待办事项进度，结果截断到 0-100
+     * 一条 UPDATE 完成读取、计算和写入，并发请求不会互相覆盖；进度达到100时标记为已完成。
+     * 新进度由 UPDATE 的返回结果得到，同一事务内按差额调整任务和主题的汇总计数
+     * 
+     * @param id 待办事项ID
+     * @param delta 进度增量，可以为负数
+     * @return TodoProgressDTO 修改后的进度和完成状态
+     * @throws BusinessException 如果待办事项不存在
+     */
+    @Transactional
+    public TodoProgressDTO incrementProgress(Long id, int delta) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        int updated = jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INCREMENT_PROGRESS_SQL,
+                Statement.RETURN_GENERATED_KEYS);
+            statement.setInt(1, delta);
+            statement.setLong(2, id);
+            return statement;
+        }, keyHolder);
+        if (updated == 0 || keyHolder.getKey() == null) {
+            throw new BusinessException(ErrorCodes.TODO_NOT_FOUND, "待办事项不存在", 404);
+        }
+        
+        long encoded = keyHolder.getKey().longValue();
+        int progress = (int) (encoded % 1000);
+        long before = encoded / 1000 - 1;
+        int oldProgress = (int) (before % 1000);
+        boolean wasCompleted = before >= 1000;
+        boolean completed = wasCompleted || progress >= 100;
+        progressRollupService.onTodoChangedById(id, wasCompleted, oldProgress, completed, progress);
+        // 本事务的 UPDATE 已锁定该行，读到的就是这次修改后的版本号
+        changeEventService.todoChanged(id, todoRepository.findVersionById(id).orElse(null), false, true);
+        return new TodoProgressDTO(id, progress, completed);
+    }
+    
+    private static void requireText(String value, String label) {
+        if (value == null) {
+            return;
+        }
+        if (value.trim().isEmpty()) {
+            throw new BusinessException(ErrorCodes.TODO_VALIDATION_FAILED, label + "不能为空", 400);
+        }
+        if (value.length() > MAX_TEXT_LENGTH) {
+            throw new BusinessException(ErrorCodes.TODO_VALIDATION_FAILED,
+                label + "不能超过 " + MAX_TEXT_LENGTH + " 个字符", 400);
+        }
     }
     
     /**
      * 删除待办事项
+     * 加锁读取完成状态和进度后写入墓碑标记（单行更新），
+     * 同一事务内扣除其在任务和主题上的汇总计数
      * 
      * @param id 要删除的待办事项ID
-     * @return boolean 删除是否成功
+     * @param expectedVersion If-Match 中期望的版本号，为 null 时不校验
+     * @return boolean 删除是否成功，待办不存在时返回 false
+     * @throws BusinessException 版本号与期望值不符时抛出
+     */
+    @Transactional
+    public boolean deleteTodo(Long id, Long expectedVersion) {
+        List<Object[]> state = todoRepository.findRollupStateByIdForUpdate(id);
+        if (state.isEmpty()) {
+            return false;
+        }
+        Object[] row = state.get(0);
+        ETags.requireVersion((Long) row[4], expectedVersion);
+        todoRepository.softDeleteById(id, LocalDateTime.now());
+        progressRollupService.onTodoDeleted((Long) row[0],
+            Boolean.TRUE.equals(row[2] != null ? row[2] : row[3]), Todo.clampProgress((Integer) row[1]));
+        changeEventService.todoChanged(id, (Long) row[4] + 1, true, true);
+        return true;
+    }
+    
+    /**
+     * 恢复保留期内被删除的待办事项，并把其计数加回任务和主题
+     * 
+     * @param id 待办事项ID
+     * @throws BusinessException 如果待办事项不在回收站中、已超过保留期或所属任务、主题已删除
      */
-    public boolean deleteTodo(Long id) {
-        if (todoRepository.existsById(id)) {
-            todoRepository.deleteById(id);
-            return true;
+    @Transactional
+    public void restoreTodo(Long id) {
+        if (todoRepository.restoreById(id, softDeletePurgeService.getRetentionCutoff()) == 0) {
+            throw new BusinessException(ErrorCodes.TODO_NOT_FOUND,
+                "待办事项不在回收站中、已超过保留期限或所属任务已删除", 404);
         }
-        return false;
+        Object[] row = todoRepository.findRollupStateByIdForUpdate(id).get(0);
+        progressRollupService.onTodoRestored((Long) row[0],
+            Boolean.TRUE.equals(row[2] != null ? row[2] : row[3]), Todo.clampProgress((Integer) row[1]));
+        changeEventService.todoChanged(id, (Long) row[4], false, true);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,366 @@
+package com.todolist.service;
+
+import com.todolist.dto.TodoDTO;
+import com.todolist.entity.Todo;
+import com.todolist.repository.TaskRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 待办事项写回缓冲服务类
+ * 
+ * 进度滑块、备注编辑等操作会在短时间内对同一个待办连续发出多次 PUT。
+ * 开启 todo.write-behind.enabled 后，PUT 只把待办的最新状态放入按ID索引的 ConcurrentHashMap
+ * （按桶加锁，不同待办的写入互不阻塞）并立即返回；同一待办在一个刷新周期内的多次修改只保留最后一次，
+ * 由定时任务以 JDBC 批量更新写入数据库，随后按受影响的任务和主题重算汇总计数，并在同一事务内发出变更通知。
+ * 
+ * 读取待办时用缓冲中的状态覆盖查询结果，保证读到自己的写入，ETag 计入缓冲中修改的序号；其他写入路径和聚合读取在执行前先同步刷新，
+ * 不会被稍后的写回覆盖。写回占用一个独立的数据库连接，刷新必须在调用方开启事务之前进行
+ * （由控制器在调用事务方法前刷新），否则持有连接的请求再等待新连接，并发时会耗尽连接池。
+ * 应用关闭时同步刷新剩余的修改
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+@Service
+public class TodoWriteBehindBuffer {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TodoWriteBehindBuffer.class);
+    
+    /**
+     * 写回语句，已删除的待办不会被写回
+     */
+    private static final String FLUSH_SQL =
+        "update todos set title = ?, content = ?, progress = ?, is_completed = ?, completed = ?, " +
+        "note = ?, completed_at = ?, updated_at = ?, version = version + 1 where id = ? and deleted_at is null";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private TaskRepository taskRepository;
+    
+    @Autowired
+    private ProgressRollupService progressRollupService;
+    
+    @Autowired
+    private ChangeEventService changeEventService;
+    
+    private final TransactionTemplate transactionTemplate;
+    
+    @Value("${todo.write-behind.enabled:false}")
+    private boolean enabled;
+    
+    @Value("${todo.write-behind.batch-size:500}")
+    private int batchSize;
+    
+    private final ConcurrentHashMap<Long, PendingTodo> pending = new ConcurrentHashMap<>();
+    
+    /**
+     * 每次放入修改时递增，计入 ETag 以区分缓冲中的不同状态
+     */
+    private final AtomicLong sequence = new AtomicLong();
+    
+    private final Object flushLock = new Object();
+    
+    /**
+     * 放入修改时持有读锁，关闭时持有写锁：关闭之后的 offer 一定看到 closed，之前放入的修改一定被最后一次写回看到
+     */
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    
+    private boolean closed;
+    
+    /**
+     * 写回使用独立事务：调用方的事务回滚不会撤销已经从缓冲中移除的修改
+     */
+    public TodoWriteBehindBuffer(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+    
+    /**
+     * 是否开启写回缓冲
+     * 
+     * @return 开启时返回 true
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * 放入待办的最新状态，覆盖同一待办尚未写回的修改
+     * 
+     * @param todo 已修改的待办事项（须包含所属任务）
+     * @return 未开启缓冲或应用正在关闭时返回 false，调用方应直接写入数据库
+     */
+    public boolean offer(Todo todo) {
+        if (!enabled) {
+            return false;
+        }
+        closeLock.readLock().lock();
+        try {
+            if (closed) {
+                return false;
+            }
+            todo.setUpdatedAt(LocalDateTime.now());
+            pending.put(todo.getId(), new PendingTodo(todo, sequence.incrementAndGet()));
+            return true;
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * 指定待办尚未写回的修改的序号，用于把缓冲中的状态计入 ETag，不触发写回
+     * 
+     * @param todoId 待办事项ID
+     * @return 没有尚未写回的修改时返回 0
+     */
+    public long pendingSequence(Long todoId) {
+        PendingTodo state = pending.isEmpty() ? null : pending.get(todoId);
+        return state != null ? state.sequence : 0;
+    }
+    
+    /**
+     * 指定任务下尚未写回的修改的最大序号，用于把缓冲中的状态计入列表的 ETag，不触发写回。
+     * 写回提交后序号归 0，而数据库中的版本号已经递增，ETag 同样会变化
+     * 
+     * @param taskIds 任务ID集合
+     * @return 这些任务下没有尚未写回的修改时返回 0
+     */
+    public long pendingSequence(Collection<Long> taskIds) {
+        long max = 0;
+        if (pending.isEmpty()) {
+            return max;
+        }
+        for (PendingTodo state : pending.values()) {
+            if (state.sequence > max && taskIds.contains(state.taskId)) {
+                max = state.sequence;
+            }
+        }
+        return max;
+    }
+    
+    /**
+     * 缓冲中是否有尚未写回的修改
+     * 
+     * @return 有尚未写回的修改时返回 true
+     */
+    public boolean hasPending() {
+        return !pending.isEmpty();
+    }
+    
+    /**
+     * 用缓冲中尚未写回的状态覆盖待办实体
+     * 
+     * @param todo 从数据库读取的待办事项，调用方需保证其已脱离持久化上下文
+     * @return 是否存在尚未写回的修改
+     */
+    public boolean overlay(Todo todo) {
+        PendingTodo state = pending.isEmpty() ? null : pending.get(todo.getId());
+        if (state == null) {
+            return false;
+        }
+        todo.setTitle(state.title);
+        todo.setContent(state.content);
+        todo.setProgress(state.progress);
+        todo.setIsCompleted(state.isCompleted);
+        todo.setCompleted(state.completed);
+        todo.setNote(state.note);
+        todo.setCompletedAt(state.completedAt);
+        todo.setUpdatedAt(state.updatedAt);
+        return true;
+    }
+    
+    /**
+     * 用缓冲中尚未写回的状态覆盖查询得到的待办列表
+     * 
+     * @param todos 从数据库读取的待办列表
+     * @return List<TodoDTO> 原列表（就地修改）
+     */
+    public List<TodoDTO> overlay(List<TodoDTO> todos) {
+        if (pending.isEmpty()) {
+            return todos;
+        }
+        for (TodoDTO todo : todos) {
+            PendingTodo state = pending.get(todo.getId());
+            if (state != null) {
+                todo.setTitle(state.title);
+                todo.setContent(state.content);
+                todo.setProgress(state.progress);
+                todo.setIsCompleted(state.isCompleted);
+                todo.setCompleted(state.completed);
+                todo.setNote(state.note);
+                todo.setCompletedAt(state.completedAt);
+                todo.setUpdatedAt(state.updatedAt);
+            }
+        }
+        return todos;
+    }
+    
+    /**
+     * 定时写回缓冲中的修改
+     */
+    @Scheduled(fixedDelayString = "${todo.write-behind.flush-interval-ms:200}")
+    public void flushScheduled() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // 写回失败的修改仍留在缓冲中，下个周期重试
+            logger.error("待办写回失败, 待写回 {} 条", pending.size(), e);
+        }
+    }
+    
+    /**
+     * 同步写回缓冲中的全部修改，缓冲为空时立即返回
+     * 在一个独立事务内批量更新待办并重算受影响任务和主题的汇总计数，提交后才从缓冲中移除，
+     * 写回期间再次修改的待办保留在缓冲中等待下一次写回。
+     * 批量写入违反列约束时改为逐条写回，写不进去的修改记录日志后丢弃，不会阻塞其他待办的写回；
+     * 连接失败等其他错误时修改全部留在缓冲中，由下一次写回重试
+     * 
+     * @return int 写回的待办数量
+     * @throws IllegalStateException 如果在已开启的事务内调用
+     */
+    public int flush() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("写回缓冲必须在开启事务之前刷新");
+        }
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        synchronized (flushLock) {
+            List<PendingTodo> batch = new ArrayList<>(pending.values());
+            if (batch.isEmpty()) {
+                return 0;
+            }
+            try {
+                write(batch);
+            } catch (DataIntegrityViolationException e) {
+                logger.warn("待办批量写回违反列约束, 改为逐条写回: {}", e.getMessage());
+                return flushEach(batch);
+            }
+            for (PendingTodo state : batch) {
+                pending.remove(state.id, state);
+            }
+            logger.debug("待办写回完成: {} 条", batch.size());
+            return batch.size();
+        }
+    }
+    
+    /**
+     * 逐条写回，每条使用独立事务；违反列约束的修改从缓冲中丢弃
+     */
+    private int flushEach(List<PendingTodo> batch) {
+        int written = 0;
+        for (PendingTodo state : batch) {
+            try {
+                write(List.of(state));
+                written++;
+            } catch (DataIntegrityViolationException e) {
+                logger.error("待办 {} 写回失败, 已丢弃该修改: {}", state.id, e.getMessage());
+            }
+            pending.remove(state.id, state);
+        }
+        return written;
+    }
+    
+    /**
+     * 在一个独立事务内写入待办，重算受影响任务和主题的汇总计数并发出变更通知
+     */
+    private void write(List<PendingTodo> batch) {
+        Set<Long> taskIds = new LinkedHashSet<>();
+        for (PendingTodo state : batch) {
+            taskIds.add(state.taskId);
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(FLUSH_SQL, batch, batchSize, (statement, state) -> {
+                statement.setString(1, state.title);
+                statement.setString(2, state.content);
+                statement.setObject(3, state.progress, Types.INTEGER);
+                statement.setObject(4, state.isCompleted, Types.BOOLEAN);
+                statement.setObject(5, state.completed, Types.BOOLEAN);
+                statement.setString(6, state.note);
+                statement.setTimestamp(7, state.completedAt != null ? Timestamp.valueOf(state.completedAt) : null);
+                statement.setTimestamp(8, Timestamp.valueOf(state.updatedAt));
+                statement.setLong(9, state.id);
+            });
+            progressRollupService.recomputeForTasks(taskIds);
+            progressRollupService.recomputeForTopics(taskRepository.findTopicIdsByIdIn(taskIds));
+            changeEventService.todosWritten(batch.stream().map(state -> state.id).toList());
+        });
+    }
+    
+    /**
+     * 应用关闭时停止接收新的修改，并同步写回剩余的修改
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        closeLock.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        int flushed = flush();
+        if (flushed > 0) {
+            logger.info("应用关闭前写回待办 {} 条", flushed);
+        }
+    }
+    
+    /**
+     * 一个待办尚未写回的最新状态，创建后不再修改
+     */
+    private static final class PendingTodo {
+        
+        private final Long id;
+        private final Long taskId;
+        private final String title;
+        private final String content;
+        private final Integer progress;
+        private final Boolean isCompleted;
+        private final Boolean completed;
+        private final String note;
+        private final LocalDateTime completedAt;
+        private final LocalDateTime updatedAt;
+        private final long sequence;
+        
+        PendingTodo(Todo todo, long sequence) {
+            this.id = todo.getId();
+            this.taskId = todo.getTask().getId();
+            this.title = todo.getTitle();
+            this.content = todo.getContent();
+            this.progress = todo.getProgress();
+            // 与 @PreUpdate 一致：两列同步，都为空时视为未完成
+            this.isCompleted = todo.countsAsCompleted();
+            this.completed = this.isCompleted;
+            this.note = todo.getNote();
+            this.completedAt = todo.getCompletedAt();
+            this.updatedAt = todo.getUpdatedAt();
+            this.sequence = sequence;
+        }
+    }
+}
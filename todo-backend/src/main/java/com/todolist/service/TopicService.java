@@ -1,11 +1,28 @@
 package com.todolist.service;
 
+import com.todolist.dto.CursorPage;
+import com.todolist.dto.TopicDTO;
 import com.todolist.entity.Topic;
 import com.todolist.entity.User;
+import com.todolist.exception.BusinessException;
+import com.todolist.exception.ErrorCodes;
+import com.todolist.repository.TaskRepository;
+import com.todolist.repository.TodoRepository;
 import com.todolist.repository.TopicRepository;
 import com.todolist.repository.UserRepository;
+import com.todolist.util.CursorCodec;
+import com.todolist.util.ETags;
+import com.todolist.util.PartialUpdate;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,21 +39,115 @@ import java.util.Optional;
 @Service
 public class TopicService {
     
+    /**
+     * 名称列的最大长度（VARCHAR(255)）
+     */
+    private static final int MAX_NAME_LENGTH = 255;
+    
     @Autowired
     private TopicRepository topicRepository;
     
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private TaskRepository taskRepository;
+    
+    @Autowired
+    private TodoRepository todoRepository;
+    
+    @Autowired
+    private ChangeEventService changeEventService;
+    
+    @Autowired
+    private SoftDeletePurgeService softDeletePurgeService;
+    
+    @Autowired
+    private TodoWriteBehindBuffer todoWriteBehindBuffer;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
     /**
      * 根据用户ID获取该用户的所有主题
      * 按创建时间倒序排列
      * 
+     * 结果由查询直接投影为 DTO，不经过实体加载
+     * 
+     * @param userId 用户ID
+     * @return List<TopicDTO> 该用户的主题列表
+     */
+    public List<TopicDTO> getTopicsByUserId(Long userId) {
+        return topicRepository.findDTOsByUserId(userId);
+    }
+    
+    /**
+     * 按游标分页获取用户的主题，按创建时间倒序
+     * 
+     * @param userId 用户ID
+     * @param cursor 上一页返回的 nextCursor，为空时返回第一页
+     * @param limit 每页条数，为空时使用默认值
+     * @return CursorPage<TopicDTO> 当前页数据及下一页游标
+     */
+    public CursorPage<TopicDTO> getTopicsPageByUserId(Long userId, String cursor, Integer limit) {
+        int size = CursorCodec.normalizeLimit(limit);
+        Limit fetchLimit = Limit.of(size + 1);
+        List<TopicDTO> rows;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = topicRepository.findPageByUserId(userId, fetchLimit);
+        } else {
+            CursorCodec.Cursor position = CursorCodec.decode(cursor);
+            rows = topicRepository.findPageByUserIdAfter(userId, position.getCreatedAt(), position.getId(), fetchLimit);
+        }
+        return CursorPage.of(rows, size, TopicDTO::getCreatedAt, TopicDTO::getId);
+    }
+    
+    /**
+     * 用户主题列表（或其中一页）的 ETag
+     * 只执行一条聚合查询读取主题的数量、最大ID和版本号之和，不查询主题数据
+     * 
      * @param userId 用户ID
-     * @return List<Topic> 该用户的主题列表
+     * @param cursor 分页游标，非分页查询时为 null
+     * @param limit 每页条数，非分页查询时为 null
+     * @return String 弱 ETag
+     */
+    public String getTopicsETag(Long userId, String cursor, Integer limit) {
+        Object[] summary = topicRepository.findVersionSummaryByUserId(userId).get(0);
+        return ETags.weak("topics", userId, summary, cursor, limit);
+    }
+    
+    /**
+     * 主题（及其任务树）的 ETag
+     * 主题的版本号随主题信息和汇总计数的修改递增。只返回主题时 ETag 就是版本号（强 ETag，可用于 If-Match）；
+     * 包含任务时加上任务的版本汇总，包含待办时再加上待办的版本汇总和写回缓冲中尚未写回的修改
+     * 
+     * @param id 主题ID
+     * @param includeTasks 响应是否包含任务列表
+     * @param includeTodos 响应是否包含每个任务的待办事项
+     * @return String 弱 ETag，主题不存在时返回 null
      */
-    public List<Topic> getTopicsByUserId(Long userId) {
-        return topicRepository.findByUserIdOrderByCreatedAtDesc(userId);
+    public String getTopicETag(Long id, boolean includeTasks, boolean includeTodos) {
+        Optional<Long> version = topicRepository.findVersionById(id);
+        if (version.isEmpty()) {
+            return null;
+        }
+        if (!includeTasks) {
+            return ETags.strong(version.get());
+        }
+        Object[] tasks = taskRepository.findVersionSummaryByTopicId(id).get(0);
+        Object[] todos = null;
+        long pending = 0;
+        if (includeTodos) {
+            todos = todoRepository.findVersionSummaryByTopicId(id).get(0);
+            if (todoWriteBehindBuffer.hasPending()) {
+                pending = todoWriteBehindBuffer.pendingSequence(
+                    new HashSet<>(taskRepository.findIdsByTopicId(id, Integer.MAX_VALUE)));
+            }
+        }
+        return ETags.weak("topic", id, version.get(), tasks, todos, pending);
     }
     
     /**
@@ -49,6 +160,25 @@ public class TopicService {
         return topicRepository.findById(id);
     }
     
+    /**
+     * 获取主题及其关联数据树
+     * 每一层只执行一条 fetch join 查询：主题+任务一条，需要时任务+待办再一条，
+     * 避免逐个任务加载待办事项造成的 N+1 查询
+     * 
+     * @param id 主题ID
+     * @param includeTodos 是否同时加载每个任务下的待办事项
+     * @return Optional<Topic> 已初始化任务（及待办）集合的主题，如果不存在则返回空
+     */
+    @Transactional(readOnly = true)
+    public Optional<Topic> getTopicTree(Long id, boolean includeTodos) {
+        Optional<Topic> topic = topicRepository.findWithTasksById(id);
+        if (topic.isPresent() && includeTodos) {
+            // 同一持久化上下文中的任务实例会被这次查询填充 todos 集合
+            taskRepository.findWithTodosByTopicId(id);
+        }
+        return topic;
+    }
+    
     /**
      * 为指定用户创建新主题
      * 
@@ -57,34 +187,114 @@ public class TopicService {
      * @return Topic 创建成功的主题信息（包含生成的ID）
      * @throws RuntimeException 如果用户不存在则抛出异常
      */
+    @Transactional
     public Topic createTopic(Topic topic, Long userId) {
         User user = userRepository.findById(userId)
             .orElseThrow(() -> new RuntimeException("用户不存在，ID: " + userId));
         topic.setUser(user);
-        return topicRepository.save(topic);
+        Topic savedTopic = topicRepository.save(topic);
+        changeEventService.topicChanged(savedTopic.getId(), savedTopic.getVersion(), false);
+        return savedTopic;
     }
     
     /**
      * 更新主题信息
+     * 保存时按读取时的版本号做乐观锁校验；指定期望版本时，版本不符或读取后被并发修改都返回 412
+     * 
+     * @param topic 要更新的主题信息（通过 getTopicById 获取后修改）
+     * @param expectedVersion If-Match 中期望的版本号，为 null 时不校验
+     * @return Topic 更新后的主题信息（版本号已递增）
+     * @throws BusinessException 版本号与期望值不符时抛出
+     */
+    public Topic updateTopic(Topic topic, Long expectedVersion) {
+        ETags.requireVersion(topic.getVersion(), expectedVersion);
+        try {
+            return transactionTemplate.execute(status -> {
+                Topic savedTopic = topicRepository.save(topic);
+                changeEventService.topicChanged(savedTopic.getId(), savedTopic.getVersion(), false);
+                return savedTopic;
+            });
+        } catch (ObjectOptimisticLockingFailureException e) {
+            if (expectedVersion != null) {
+                throw ETags.preconditionFailed();
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * 部分更新主题，只写入请求中提供（非 null）的字段，执行一条 UPDATE 语句
      * 
-     * @param topic 要更新的主题信息
-     * @return Topic 更新后的主题信息
+     * @param id 主题ID
+     * @param patch 要修改的字段，为 null 的字段保持不变
+     * @param expectedVersion If-Match 中期望的版本号，为 null 时不校验
+     * @return Long 修改后的版本号
+     * @throws BusinessException 字段不合法、没有可更新的字段、主题不存在或版本号不符时抛出
      */
-    public Topic updateTopic(Topic topic) {
-        return topicRepository.save(topic);
+    @Transactional
+    public Long patchTopic(Long id, TopicDTO patch, Long expectedVersion) {
+        String name = patch.getName();
+        if (name != null && (name.trim().isEmpty() || name.length() > MAX_NAME_LENGTH)) {
+            throw new BusinessException(ErrorCodes.TOPIC_VALIDATION_FAILED,
+                "主题名称不能为空且不能超过 " + MAX_NAME_LENGTH + " 个字符", 400);
+        }
+        PartialUpdate<Topic> update = PartialUpdate.of(entityManager, Topic.class)
+            .set("name", name)
+            .set("description", patch.getDescription())
+            .expectVersion(expectedVersion);
+        if (update.isEmpty()) {
+            throw new BusinessException(ErrorCodes.TOPIC_VALIDATION_FAILED, "没有需要更新的字段", 400);
+        }
+        if (update.executeById(id) == 0) {
+            if (expectedVersion != null && topicRepository.findVersionById(id).isPresent()) {
+                throw ETags.preconditionFailed();
+            }
+            throw new BusinessException(ErrorCodes.TOPIC_NOT_FOUND, "主题不存在", 404);
+        }
+        // 本事务的 UPDATE 已锁定该行，读到的就是这次修改后的版本号
+        Long version = expectedVersion != null
+            ? expectedVersion + 1
+            : topicRepository.findVersionById(id).orElse(null);
+        changeEventService.topicChanged(id, version, false);
+        return version;
     }
     
     /**
-     * 删除主题
+     * 删除主题及其所有任务和待办
+     * 只为主题写入墓碑标记（一条单行更新），其下的任务和待办随之不可见，
+     * 不锁定子记录；超过保留期后由 SoftDeletePurgeService 在低峰期分批物理删除
      * 
      * @param id 要删除的主题ID
-     * @return boolean 删除是否成功
+     * @param expectedVersion If-Match 中期望的版本号，为 null 时不校验
+     * @return boolean 删除是否成功，主题不存在时返回 false
+     * @throws BusinessException 版本号与期望值不符时抛出
      */
-    public boolean deleteTopic(Long id) {
-        if (topicRepository.existsById(id)) {
-            topicRepository.deleteById(id);
+    @Transactional
+    public boolean deleteTopic(Long id, Long expectedVersion) {
+        if (topicRepository.softDeleteById(id, LocalDateTime.now(), expectedVersion) > 0) {
+            changeEventService.topicChanged(id, topicRepository.findVersionIncludingDeletedById(id).orElse(null), true);
             return true;
         }
+        if (expectedVersion != null && topicRepository.findVersionById(id).isPresent()) {
+            throw ETags.preconditionFailed();
+        }
         return false;
     }
+    
+    /**
+     * 恢复保留期内被删除的主题，其下的任务和待办随之恢复可见
+     * 
+     * @param id 主题ID
+     * @throws BusinessException 如果主题不在回收站中或已超过保留期
+     */
+    @Transactional
+    public void restoreTopic(Long id) {
+        if (topicRepository.restoreById(id, softDeletePurgeService.getRetentionCutoff()) == 0) {
+            throw new BusinessException(ErrorCodes.TOPIC_NOT_FOUND, "主题不在回收站中或已超过保留期限", 404);
+        }
+        // 客户端收到主题的删除后会丢弃其下的缓存，恢复后需要重新同步全部下级
+        taskRepository.markUnsyncedByTopicId(id);
+        todoRepository.markUnsyncedByTopicId(id);
+        changeEventService.topicChanged(id, topicRepository.findVersionById(id).orElse(null), false);
+    }
 }
\ No newline at end of file
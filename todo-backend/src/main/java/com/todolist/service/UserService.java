@@ -3,10 +3,12 @@ package com.todolist.service;
 import com.todolist.entity.User;
 import com.todolist.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import java.util.List;
 import java.util.Optional;
 import com.todolist.dto.*;
+import com.todolist.util.CursorCodec;
 import com.todolist.util.JwtUtil;
 import com.todolist.exception.BusinessException;
 import com.todolist.exception.ErrorCodes;
@@ -44,6 +46,26 @@ public class UserService {
         return userRepository.findAll();
     }
     
+    /**
+     * 按游标分页获取用户，按创建时间升序
+     * 
+     * @param cursor 上一页返回的 nextCursor，为空时返回第一页
+     * @param limit 每页条数，为空时使用默认值
+     * @return CursorPage<User> 当前页数据及下一页游标
+     */
+    public CursorPage<User> getUsersPage(String cursor, Integer limit) {
+        int size = CursorCodec.normalizeLimit(limit);
+        Limit fetchLimit = Limit.of(size + 1);
+        List<User> rows;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = userRepository.findPage(fetchLimit);
+        } else {
+            CursorCodec.Cursor position = CursorCodec.decode(cursor);
+            rows = userRepository.findPageAfter(position.getCreatedAt(), position.getId(), fetchLimit);
+        }
+        return CursorPage.of(rows, size, User::getCreatedAt, User::getId);
+    }
+    
     /**
      * 根据ID获取用户
      * 
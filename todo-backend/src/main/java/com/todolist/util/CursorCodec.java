@@ -0,0 +1,140 @@
+package com.todolist.util;
+
+import com.todolist.exception.BusinessException;
+import com.todolist.exception.ErrorCodes;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 分页游标编解码工具类
+ * 
+ * 游标是 (created_at, id) 排序键的不透明编码，客户端只需原样回传
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+public final class CursorCodec {
+    
+    /**
+     * 默认每页条数
+     */
+    public static final int DEFAULT_LIMIT = 50;
+    
+    /**
+     * 每页最大条数
+     */
+    public static final int MAX_LIMIT = 200;
+    
+    private CursorCodec() {}
+    
+    /**
+     * 编码游标
+     * 
+     * @param createdAt 最后一条记录的创建时间
+     * @param id 最后一条记录的ID
+     * @return 游标字符串
+     */
+    public static String encode(LocalDateTime createdAt, Long id) {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * 解码游标
+     * 
+     * @param cursor 游标字符串
+     * @return Cursor 排序键
+     * @throws BusinessException 游标格式无效时抛出
+     */
+    public static Cursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf('|');
+            LocalDateTime createdAt = LocalDateTime.parse(raw.substring(0, sep));
+            Long id = Long.valueOf(raw.substring(sep + 1));
+            return new Cursor(createdAt, id);
+        } catch (IllegalArgumentException | DateTimeParseException | StringIndexOutOfBoundsException e) {
+            throw new BusinessException(ErrorCodes.INVALID_CURSOR, "无效的分页游标: " + cursor, 400);
+        }
+    }
+    
+    /**
+     * 编码任意排序键的游标，用于按创建时间以外的字段排序的键集分页
+     * 
+     * @param key 最后一条记录的排序键，应包含排序字段名，避免换了排序后误用旧游标
+     * @param id 最后一条记录的ID
+     * @return 游标字符串
+     */
+    public static String encodeKey(String key, Long id) {
+        String raw = key + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * 解码 encodeKey 生成的游标
+     * 
+     * @param cursor 游标字符串
+     * @return KeyCursor 排序键和ID
+     * @throws BusinessException 游标格式无效时抛出
+     */
+    public static KeyCursor decodeKey(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf('|');
+            return new KeyCursor(raw.substring(0, sep), Long.valueOf(raw.substring(sep + 1)));
+        } catch (IllegalArgumentException | StringIndexOutOfBoundsException e) {
+            throw new BusinessException(ErrorCodes.INVALID_CURSOR, "无效的分页游标: " + cursor, 400);
+        }
+    }
+    
+    /**
+     * 规范化每页条数，限制在 1 到 MAX_LIMIT 之间
+     * 
+     * @param limit 请求的每页条数，可为空
+     * @return 实际使用的每页条数
+     */
+    public static int normalizeLimit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+    
+    /**
+     * 游标排序键
+     */
+    public static final class Cursor {
+        
+        private final LocalDateTime createdAt;
+        private final Long id;
+        
+        public Cursor(LocalDateTime createdAt, Long id) {
+            this.createdAt = createdAt;
+            this.id = id;
+        }
+        
+        public LocalDateTime getCreatedAt() { return createdAt; }
+        public Long getId() { return id; }
+    }
+    
+    /**
+     * 任意排序键的游标
+     */
+    public static final class KeyCursor {
+        
+        private final String key;
+        private final Long id;
+        
+        public KeyCursor(String key, Long id) {
+            this.key = key;
+            this.id = id;
+        }
+        
+        public String getKey() { return key; }
+        public Long getId() { return id; }
+    }
+}
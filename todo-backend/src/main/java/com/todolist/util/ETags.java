@@ -0,0 +1,124 @@
+package com.todolist.util;
+
+import com.todolist.exception.BusinessException;
+import com.todolist.exception.ErrorCodes;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * ETag 工具类
+ * 
+ * 查询接口先用一条只读版本号的查询得到校验值，与请求的 If-None-Match 相同时直接返回 304，
+ * 不再查询数据、构建 DTO 和序列化响应体。
+ * 校验值取自记录的 version 列而不是 updated_at：updated_at 只精确到秒，同一秒内的两次修改无法区分。
+ * 单个资源的 ETag 就是带引号的版本号（强 ETag），写请求通过 If-Match 回传它进行条件更新，
+ * 版本不符时返回 412
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+public final class ETags {
+    
+    /**
+     * 响应允许浏览器缓存，但每次使用前必须携带 If-None-Match 重新校验
+     */
+    private static final String CACHE_CONTROL = "private, no-cache";
+    
+    private ETags() {}
+    
+    /**
+     * 单个资源的强 ETag，即带引号的版本号
+     * 
+     * @param version 记录的版本号
+     * @return 强 ETag，形如 "3"
+     */
+    public static String strong(Long version) {
+        return "\"" + version + "\"";
+    }
+    
+    /**
+     * 由校验值各组成部分生成弱 ETag
+     * 
+     * @param parts 校验值的组成部分，如版本号、查询参数，可以包含数组
+     * @return 弱 ETag，形如 W/"..."
+     */
+    public static String weak(Object... parts) {
+        String raw = Arrays.deepToString(parts);
+        return "W/\"" + DigestUtils.md5DigestAsHex(raw.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+    
+    /**
+     * 比较请求的 If-None-Match 与当前 ETag，并在响应中写入 ETag 和 Cache-Control
+     * 
+     * @param request 当前请求
+     * @param etag 当前 ETag，为 null 时（资源不存在）不做比较
+     * @return 未修改时返回 true，此时响应已设置为 304，调用方应直接返回 null
+     */
+    public static boolean checkNotModified(WebRequest request, String etag) {
+        if (etag == null) {
+            return false;
+        }
+        if (request instanceof NativeWebRequest nativeRequest) {
+            HttpServletResponse response = nativeRequest.getNativeResponse(HttpServletResponse.class);
+            if (response != null) {
+                response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+            }
+        }
+        return request.checkNotModified(etag);
+    }
+    
+    /**
+     * 解析 If-Match 请求头中期望的版本号
+     * 
+     * @param ifMatch If-Match 请求头，可以为空
+     * @return 期望的版本号；未提供或为 * 时返回 null，表示不做版本校验
+     * @throws BusinessException 不是单个资源的强 ETag（如弱 ETag、列表的 ETag、多个 ETag）时抛出，
+     *         它不可能与当前版本匹配
+     */
+    public static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if ("*".equals(value)) {
+            return null;
+        }
+        if (value.length() > 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            try {
+                return Long.valueOf(value.substring(1, value.length() - 1));
+            } catch (NumberFormatException e) {
+                // 不是版本号，按不匹配处理
+            }
+        }
+        throw preconditionFailed();
+    }
+    
+    /**
+     * 校验记录的当前版本号与期望的版本号一致
+     * 
+     * @param current 当前版本号
+     * @param expected 期望的版本号，为 null 时不校验
+     * @throws BusinessException 版本号不一致时抛出（412）
+     */
+    public static void requireVersion(Long current, Long expected) {
+        if (expected != null && !expected.equals(current)) {
+            throw preconditionFailed();
+        }
+    }
+    
+    /**
+     * If-Match 条件不成立的异常
+     * 
+     * @return BusinessException 状态码为 412 的业务异常
+     */
+    public static BusinessException preconditionFailed() {
+        return new BusinessException(ErrorCodes.PRECONDITION_FAILED, "数据已被修改，请重新获取后再提交", 412);
+    }
+}
@@ -0,0 +1,105 @@
+package com.todolist.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 条件查询的索引选择工具类
+ * 
+ * 每个候选索引以 user_id 开头，之后的列用查询字段名描述。B+ 树索引能直接定位的只有：
+ * 索引列的一段前缀全部是等值条件，紧随其后的一列可以是范围条件，排序字段正好是这一列时结果已按索引有序。
+ * 按这条规则为每个索引计算能用上的条件和排序，选用上最多的一个；用不上的条件只能在扫描结果中逐行过滤，
+ * 用不上的排序需要把全部匹配记录取出排序后再分页，两者都作为警告返回
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+public final class IndexPlanner {
+    
+    private IndexPlanner() {}
+    
+    /**
+     * 为查询选择索引
+     * 
+     * @param indexes 候选索引，得分相同时取靠前的
+     * @param equalities 等值条件的字段
+     * @param ranges 范围条件的字段
+     * @param sort 排序字段
+     * @return Plan 选用的索引和警告
+     */
+    public static Plan plan(List<Index> indexes, Set<String> equalities, Set<String> ranges, String sort) {
+        Plan best = null;
+        int bestScore = -1;
+        for (Index index : indexes) {
+            List<String> columns = index.getColumns();
+            int prefix = 0;
+            while (prefix < columns.size() && equalities.contains(columns.get(prefix))) {
+                prefix++;
+            }
+            String next = prefix < columns.size() ? columns.get(prefix) : null;
+            boolean rangeServed = next != null && ranges.contains(next);
+            boolean sortServed = next != null && next.equals(sort) && (ranges.isEmpty() || ranges.equals(Set.of(next)));
+            
+            Set<String> residual = new LinkedHashSet<>(equalities);
+            residual.removeAll(columns.subList(0, prefix));
+            for (String range : ranges) {
+                if (!(rangeServed && range.equals(next))) {
+                    residual.add(range);
+                }
+            }
+            int served = equalities.size() + ranges.size() - residual.size();
+            int score = 2 * served + (sortServed ? 1 : 0);
+            if (score > bestScore) {
+                List<String> warnings = new ArrayList<>();
+                if (!residual.isEmpty()) {
+                    warnings.add("筛选条件 " + String.join("、", residual) + " 不在索引 " + index.getName()
+                        + " 的可用前缀上，只能在扫描结果中逐行过滤");
+                }
+                if (!sortServed) {
+                    warnings.add("排序字段 " + sort + " 不能由索引 " + index.getName()
+                        + " 提供，需要对全部匹配记录排序后再分页");
+                }
+                best = new Plan(index, warnings);
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+    
+    /**
+     * 候选索引：名称和 user_id 之后的列（查询字段名）
+     */
+    public static final class Index {
+        
+        private final String name;
+        private final List<String> columns;
+        
+        public Index(String name, String... columns) {
+            this.name = name;
+            this.columns = List.of(columns);
+        }
+        
+        public String getName() { return name; }
+        public List<String> getColumns() { return columns; }
+    }
+    
+    /**
+     * 选用的索引，以及它不能覆盖的条件和排序
+     */
+    public static final class Plan {
+        
+        private final Index index;
+        private final List<String> warnings;
+        
+        public Plan(Index index, List<String> warnings) {
+            this.index = index;
+            this.warnings = warnings;
+        }
+        
+        public Index getIndex() { return index; }
+        public List<String> getWarnings() { return warnings; }
+    }
+}
@@ -0,0 +1,238 @@
+package com.todolist.util;
+
+import com.todolist.exception.BusinessException;
+import com.todolist.exception.ErrorCodes;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Markdown 流式解析器
+ * 
+ * 按 MARKDOWN_FORMAT.md 规范逐行解析 `#` 专题、`##` 任务、`-` 待办及其进度、备注子项，
+ * 每解析完一个节点立即回调 Handler，内存中只保留当前正在解析的节点，不缓存整个文件。
+ * 回调顺序保证父节点先于子节点
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+public final class MarkdownStreamParser {
+    
+    /**
+     * 待办进度子项，例如 "进度：30%"，兼容半角冒号
+     */
+    private static final Pattern PROGRESS = Pattern.compile("^进度\\s*[：:]\\s*(\\d+)\\s*%");
+    
+    /**
+     * 待办备注子项，例如 "备注：内容"，兼容半角冒号
+     */
+    private static final Pattern NOTE = Pattern.compile("^备注\\s*[：:]\\s*(.*)$");
+    
+    /**
+     * 解析事件回调
+     */
+    public interface Handler {
+        
+        /**
+         * 解析到一个专题
+         * 
+         * @param name 专题名称
+         * @param description 专题描述，没有时为 null
+         */
+        void onTopic(String name, String description);
+        
+        /**
+         * 解析到当前专题下的一个任务
+         * 
+         * @param title 任务标题
+         * @param description 任务描述，没有时为 null
+         */
+        void onTask(String title, String description);
+        
+        /**
+         * 解析到当前任务下的一个待办事项
+         * 
+         * @param title 待办标题
+         * @param progress 进度百分比 0-100
+         * @param completed 是否已完成（进度为100或带 [x] 标记）
+         * @param note 备注，没有时为 null
+         */
+        void onTodo(String title, int progress, boolean completed, String note);
+    }
+    
+    private final Handler handler;
+    
+    private int lineNumber;
+    private boolean inTopic;
+    private boolean inTask;
+    
+    private String topicName;
+    private StringBuilder topicDescription;
+    private String taskTitle;
+    private StringBuilder taskDescription;
+    
+    private String todoTitle;
+    private int todoProgress;
+    private boolean todoCompleted;
+    private String todoNote;
+    
+    public MarkdownStreamParser(Handler handler) {
+        this.handler = handler;
+    }
+    
+    /**
+     * 从字符流逐行解析，读完后回调所有剩余节点
+     * 
+     * @param reader 输入字符流，由调用方负责关闭
+     * @throws IOException 读取失败时抛出
+     * @throws BusinessException 格式不符合规范时抛出，错误信息包含行号
+     */
+    public void parse(Reader reader) throws IOException {
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        String line;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            if (lineNumber == 1 && line.startsWith("\uFEFF")) {
+                line = line.substring(1);
+            }
+            parseLine(line);
+        }
+        flushTodo();
+        flushTask();
+        flushTopic();
+        if (!inTopic) {
+            throw new BusinessException(ErrorCodes.IMPORT_INVALID_FORMAT, "文件中没有找到专题（# 开头的行）", 400);
+        }
+    }
+    
+    private void parseLine(String line) {
+        String text = line.trim();
+        if (text.isEmpty()) {
+            return;
+        }
+        boolean indented = Character.isWhitespace(line.charAt(0));
+        
+        if (!indented && text.startsWith("# ")) {
+            flushTodo();
+            flushTask();
+            flushTopic();
+            topicName = requireTitle(text.substring(2), "专题名称");
+            topicDescription = new StringBuilder();
+            inTopic = true;
+            inTask = false;
+        } else if (!indented && text.startsWith("## ")) {
+            if (!inTopic) {
+                throw error("任务必须位于专题（# 标题）之下");
+            }
+            flushTodo();
+            flushTask();
+            flushTopic();
+            taskTitle = requireTitle(text.substring(3), "任务标题");
+            taskDescription = new StringBuilder();
+            inTask = true;
+        } else if (indented && text.startsWith("- ") && todoTitle != null) {
+            parseTodoDetail(text.substring(2).trim());
+        } else if (text.startsWith("- ")) {
+            if (!inTask) {
+                throw error("待办事项必须位于任务（## 标题）之下");
+            }
+            flushTodo();
+            flushTask();
+            startTodo(text.substring(2).trim());
+        } else if (taskTitle != null) {
+            append(taskDescription, text);
+        } else if (topicName != null && !inTask) {
+            append(topicDescription, text);
+        }
+        // 其余位置的文本（如待办列表之后的段落）不属于任何节点，忽略
+    }
+    
+    private void startTodo(String text) {
+        boolean checked = false;
+        if (text.startsWith("[x]") || text.startsWith("[X]")) {
+            checked = true;
+            text = text.substring(3).trim();
+        } else if (text.startsWith("[ ]")) {
+            text = text.substring(3).trim();
+        }
+        todoTitle = requireTitle(text, "待办标题");
+        todoProgress = checked ? 100 : 0;
+        todoCompleted = checked;
+        todoNote = null;
+    }
+    
+    private void parseTodoDetail(String text) {
+        Matcher progress = PROGRESS.matcher(text);
+        if (progress.find()) {
+            int value;
+            try {
+                value = Integer.parseInt(progress.group(1));
+            } catch (NumberFormatException e) {
+                value = Integer.MAX_VALUE;
+            }
+            if (value > 100) {
+                throw error("进度必须在0-100之间");
+            }
+            todoProgress = value;
+            todoCompleted = todoCompleted || value >= 100;
+            return;
+        }
+        Matcher note = NOTE.matcher(text);
+        if (note.find()) {
+            String value = note.group(1).trim();
+            todoNote = value.isEmpty() ? null : value;
+        }
+        // 截止日期、优先级等扩展子项暂不支持，忽略
+    }
+    
+    private void flushTopic() {
+        if (topicName != null) {
+            handler.onTopic(topicName, toDescription(topicDescription));
+            topicName = null;
+            topicDescription = null;
+        }
+    }
+    
+    private void flushTask() {
+        flushTopic();
+        if (taskTitle != null) {
+            handler.onTask(taskTitle, toDescription(taskDescription));
+            taskTitle = null;
+            taskDescription = null;
+        }
+    }
+    
+    private void flushTodo() {
+        if (todoTitle != null) {
+            handler.onTodo(todoTitle, todoProgress, todoCompleted, todoNote);
+            todoTitle = null;
+        }
+    }
+    
+    private String requireTitle(String title, String label) {
+        String value = title.trim();
+        if (value.isEmpty()) {
+            throw error(label + "不能为空");
+        }
+        return value;
+    }
+    
+    private static void append(StringBuilder description, String text) {
+        if (description.length() > 0) {
+            description.append('\n');
+        }
+        description.append(text);
+    }
+    
+    private static String toDescription(StringBuilder description) {
+        return description == null || description.length() == 0 ? null : description.toString();
+    }
+    
+    private BusinessException error(String message) {
+        return new BusinessException(ErrorCodes.IMPORT_INVALID_FORMAT, "第 " + lineNumber + " 行: " + message, 400);
+    }
+}
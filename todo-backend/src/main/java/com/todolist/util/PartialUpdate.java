@@ -0,0 +1,129 @@
+package com.todolist.util;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按主键的部分更新语句构建工具类
+ *
+ * 只为调用方提供了值（非 null）的字段生成 SET 子句，并自动更新 updatedAt、递增 version，
+ * 最终执行一条 UPDATE ... WHERE id = ? 语句，不加载实体。
+ * 批量更新语句绕过持久化上下文和 @PreUpdate 回调，字段间的同步由调用方负责
+ *
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+public final class PartialUpdate<T> {
+
+    private final EntityManager entityManager;
+    private final CriteriaBuilder builder;
+    private final CriteriaUpdate<T> update;
+    private final Root<T> root;
+    private final List<Predicate> conditions = new ArrayList<>();
+    private int fieldCount;
+
+    private PartialUpdate(EntityManager entityManager, Class<T> entityType) {
+        this.entityManager = entityManager;
+        this.builder = entityManager.getCriteriaBuilder();
+        this.update = builder.createCriteriaUpdate(entityType);
+        this.root = update.from(entityType);
+    }
+
+    /**
+     * 创建指定实体类型的部分更新
+     *
+     * @param entityManager 当前事务的 EntityManager
+     * @param entityType 实体类型
+     * @return PartialUpdate<T> 部分更新构建器
+     */
+    public static <T> PartialUpdate<T> of(EntityManager entityManager, Class<T> entityType) {
+        return new PartialUpdate<>(entityManager, entityType);
+    }
+
+    /**
+     * 值不为 null 时更新该字段
+     *
+     * @param attribute 实体属性名
+     * @param value 新值，为 null 时忽略
+     * @return PartialUpdate<T> 当前构建器
+     */
+    public PartialUpdate<T> set(String attribute, Object value) {
+        if (value != null) {
+            update.set(attribute, value);
+            fieldCount++;
+        }
+        return this;
+    }
+
+    /**
+     * 把该字段更新为 null
+     *
+     * @param attribute 实体属性名
+     * @return PartialUpdate<T> 当前构建器
+     */
+    public PartialUpdate<T> clear(String attribute) {
+        update.set(root.get(attribute), (Object) null);
+        fieldCount++;
+        return this;
+    }
+
+    /**
+     * 要求关联的上级记录未被删除（deletedAt 为空），上级已删除时不更新任何行
+     * 实体自身的墓碑条件由 @SQLRestriction 自动附加，这里只需列出上级
+     * 
+     * @param association 关联路径，多级用点分隔，如 "task.topic"
+     * @return PartialUpdate<T> 当前构建器
+     */
+    public PartialUpdate<T> requireActive(String association) {
+        Path<?> path = root;
+        for (String attribute : association.split("\\.")) {
+            path = path.get(attribute);
+        }
+        conditions.add(builder.isNull(path.get("deletedAt")));
+        return this;
+    }
+    
+    /**
+     * 要求记录的当前版本号等于期望值（If-Match 条件更新），版本不符时不更新任何行
+     * 
+     * @param version 期望的版本号，为 null 时不附加条件
+     * @return PartialUpdate<T> 当前构建器
+     */
+    public PartialUpdate<T> expectVersion(Long version) {
+        if (version != null) {
+            conditions.add(builder.equal(root.get("version"), version));
+        }
+        return this;
+    }
+    
+    /**
+     * 是否没有任何需要更新的字段
+     *
+     * @return 没有字段时返回 true
+     */
+    public boolean isEmpty() {
+        return fieldCount == 0;
+    }
+
+    /**
+     * 执行更新，同时把 updatedAt 设置为当前时间并递增 version
+     *
+     * @param id 实体主键
+     * @return 更新的行数，记录不存在时为 0
+     */
+    public int executeById(Long id) {
+        update.set("updatedAt", LocalDateTime.now());
+        update.set(root.<Long>get("version"), builder.sum(root.<Long>get("version"), 1L));
+        conditions.add(builder.equal(root.get("id"), id));
+        update.where(conditions.toArray(new Predicate[0]));
+        return entityManager.createQuery(update).executeUpdate();
+    }
+}
@@ -0,0 +1,140 @@
+package com.todolist.util;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 全文搜索分词工具类
+ * 
+ * 中文没有空格分隔，不引入词典分词：连续的中日韩字符切分为单字和相邻两字（二元组），
+ * 建索引时两者都写入，查询时两个字以上只用二元组（更有区分度），单个字才用单字。
+ * 字母和数字按连续片段切分为小写的词，其余字符（空白、标点、符号）作为分隔符。
+ * 例如 "学习Spring Boot笔记" 建索引得到 学、习、学习、spring、boot、笔、记、笔记
+ * 
+ * @author todolist
+ * @version 1.0
+ * @since 2025-09-12
+ */
+public final class SearchTokenizer {
+    
+    private SearchTokenizer() {}
+    
+    /**
+     * 建索引用的词项：中日韩字符的单字和二元组，以及小写的字母数字词
+     * 
+     * @param text 文本，可以为 null
+     * @param terms 输出的词项集合
+     */
+    public static void indexTerms(String text, Set<String> terms) {
+        tokenize(text, terms, true);
+    }
+    
+    /**
+     * 查询用的词项：中日韩字符两个字以上取二元组，单个字取单字；字母数字词取小写
+     * 
+     * @param query 查询文本，可以为 null
+     * @return 词项集合，按在查询中出现的顺序，没有可用字符时为空
+     */
+    public static Set<String> queryTerms(String query) {
+        Set<String> terms = new LinkedHashSet<>();
+        tokenize(query, terms, false);
+        return terms;
+    }
+    
+    /**
+     * 词项在文本中出现的次数，字母数字词不区分大小写
+     * 
+     * @param text 文本，可以为 null
+     * @param term 词项
+     * @return 出现次数
+     */
+    public static int count(String text, String term) {
+        if (text == null || text.length() < term.length()) {
+            return 0;
+        }
+        boolean cjk = isCjk(term.codePointAt(0));
+        int count = 0;
+        for (int from = indexOf(text, term, 0, cjk); from >= 0; from = indexOf(text, term, from + term.length(), cjk)) {
+            count++;
+        }
+        return count;
+    }
+    
+    /**
+     * 词项在文本中第一次出现的位置，字母数字词不区分大小写
+     * 
+     * @param text 文本
+     * @param term 词项
+     * @param from 起始位置
+     * @return 位置，没有出现时为 -1
+     */
+    public static int indexOf(String text, String term, int from) {
+        return indexOf(text, term, from, isCjk(term.codePointAt(0)));
+    }
+    
+    private static int indexOf(String text, String term, int from, boolean cjk) {
+        if (cjk) {
+            return text.indexOf(term, from);
+        }
+        for (int i = Math.max(0, from); i <= text.length() - term.length(); i++) {
+            if (text.regionMatches(true, i, term, 0, term.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    private static void tokenize(String text, Set<String> terms, boolean forIndex) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            int cp = text.codePointAt(i);
+            if (isCjk(cp)) {
+                int start = i;
+                while (i < length && isCjk(text.codePointAt(i))) {
+                    i += Character.charCount(text.codePointAt(i));
+                }
+                cjkTerms(text.substring(start, i), terms, forIndex);
+            } else if (Character.isLetterOrDigit(cp)) {
+                int start = i;
+                while (i < length) {
+                    int next = text.codePointAt(i);
+                    if (isCjk(next) || !Character.isLetterOrDigit(next)) {
+                        break;
+                    }
+                    i += Character.charCount(next);
+                }
+                terms.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+            } else {
+                i += Character.charCount(cp);
+            }
+        }
+    }
+    
+    /**
+     * 一段连续中日韩字符的单字和二元组
+     */
+    private static void cjkTerms(String run, Set<String> terms, boolean forIndex) {
+        int[] cps = run.codePoints().toArray();
+        if (forIndex || cps.length == 1) {
+            for (int cp : cps) {
+                terms.add(new String(Character.toChars(cp)));
+            }
+        }
+        for (int j = 0; j + 1 < cps.length; j++) {
+            terms.add(new String(cps, j, 2));
+        }
+    }
+    
+    private static boolean isCjk(int cp) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HAN
+            || script == Character.UnicodeScript.HIRAGANA
+            || script == Character.UnicodeScript.KATAKANA
+            || script == Character.UnicodeScript.HANGUL;
+    }
+}
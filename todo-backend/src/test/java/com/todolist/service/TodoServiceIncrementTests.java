@@ -0,0 +1,106 @@
+package com.todolist.service;
+
+import com.todolist.dto.TodoProgressDTO;
+import com.todolist.entity.Todo;
+import com.todolist.exception.BusinessException;
+import com.todolist.exception.ErrorCodes;
+import com.todolist.repository.TodoRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TodoServiceIncrementTests {
+
+	private static final Long TODO_ID = 1L;
+
+	@Mock
+	private TodoRepository todoRepository;
+
+	@Mock
+	private JdbcTemplate jdbcTemplate;
+
+	@Mock
+	private ProgressRollupService progressRollupService;
+
+	@Mock
+	private ChangeEventService changeEventService;
+
+	@InjectMocks
+	private TodoService todoService;
+
+	/**
+	 * 模拟增减语句的执行结果：LAST_INSERT_ID 编码的 (修改前完成状态, 修改前进度, 新进度)
+	 */
+	private void updated(boolean wasCompleted, int oldProgress, int progress) {
+		long encoded = (1 + (wasCompleted ? 1000 : 0) + oldProgress) * 1000L + progress;
+		when(jdbcTemplate.update(any(PreparedStatementCreator.class), any(KeyHolder.class))).thenAnswer(invocation -> {
+			KeyHolder keyHolder = invocation.getArgument(1);
+			keyHolder.getKeyList().add(Map.of("GENERATED_KEY", encoded));
+			return 1;
+		});
+		when(todoRepository.findVersionById(TODO_ID)).thenReturn(Optional.of(5L));
+	}
+
+	@Test
+	void completesWhenReachingHundred() {
+		updated(false, 90, 100);
+		TodoProgressDTO result = todoService.incrementProgress(TODO_ID, 30);
+		assertEquals(100, result.getProgress());
+		assertTrue(result.getCompleted());
+		verify(progressRollupService).onTodoChangedById(TODO_ID, false, 90, true, 100);
+		verify(changeEventService).todoChanged(TODO_ID, 5L, false, true);
+	}
+
+	@Test
+	void decrementsToZero() {
+		updated(false, 20, 0);
+		TodoProgressDTO result = todoService.incrementProgress(TODO_ID, -50);
+		assertEquals(0, result.getProgress());
+		assertFalse(result.getCompleted());
+		verify(progressRollupService).onTodoChangedById(TODO_ID, false, 20, false, 0);
+	}
+
+	@Test
+	void decrementKeepsCompletedTodoCompleted() {
+		updated(true, 100, 90);
+		TodoProgressDTO result = todoService.incrementProgress(TODO_ID, -10);
+		assertEquals(90, result.getProgress());
+		assertTrue(result.getCompleted());
+		verify(progressRollupService).onTodoChangedById(TODO_ID, true, 100, true, 90);
+	}
+
+	@Test
+	void missingTodoIsNotFound() {
+		when(jdbcTemplate.update(any(PreparedStatementCreator.class), any(KeyHolder.class))).thenReturn(0);
+		BusinessException e = assertThrows(BusinessException.class, () -> todoService.incrementProgress(TODO_ID, 10));
+		assertEquals(ErrorCodes.TODO_NOT_FOUND, e.getErrorCode());
+		assertEquals(404, e.getHttpStatus());
+		verifyNoInteractions(progressRollupService, changeEventService);
+	}
+
+	@Test
+	void clampProgressTreatsNullAsZero() {
+		assertEquals(0, Todo.clampProgress(null));
+		assertEquals(0, Todo.clampProgress(-5));
+		assertEquals(55, Todo.clampProgress(55));
+		assertEquals(100, Todo.clampProgress(250));
+	}
+}
@@ -0,0 +1,49 @@
+package com.todolist.util;
+
+import com.todolist.exception.BusinessException;
+import com.todolist.exception.ErrorCodes;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CursorCodecTests {
+
+	@Test
+	void roundTripsCreatedAtCursor() {
+		LocalDateTime createdAt = LocalDateTime.of(2025, 9, 12, 8, 30, 15, 123000000);
+		CursorCodec.Cursor cursor = CursorCodec.decode(CursorCodec.encode(createdAt, 42L));
+		assertEquals(createdAt, cursor.getCreatedAt());
+		assertEquals(42L, cursor.getId());
+	}
+
+	@Test
+	void roundTripsKeyContainingSeparator() {
+		CursorCodec.KeyCursor cursor = CursorCodec.decodeKey(CursorCodec.encodeKey("progress|30", 7L));
+		assertEquals("progress|30", cursor.getKey());
+		assertEquals(7L, cursor.getId());
+	}
+
+	@Test
+	void rejectsMalformedCursors() {
+		String noSeparator = Base64.getUrlEncoder().encodeToString("abc".getBytes(StandardCharsets.UTF_8));
+		String badDate = Base64.getUrlEncoder().encodeToString("yesterday|1".getBytes(StandardCharsets.UTF_8));
+		for (String cursor : new String[] {"not base64!", noSeparator, badDate}) {
+			BusinessException e = assertThrows(BusinessException.class, () -> CursorCodec.decode(cursor));
+			assertEquals(ErrorCodes.INVALID_CURSOR, e.getErrorCode());
+			assertEquals(400, e.getHttpStatus());
+		}
+		assertThrows(BusinessException.class, () -> CursorCodec.decodeKey(noSeparator));
+	}
+
+	@Test
+	void normalizesLimit() {
+		assertEquals(CursorCodec.DEFAULT_LIMIT, CursorCodec.normalizeLimit(null));
+		assertEquals(1, CursorCodec.normalizeLimit(0));
+		assertEquals(CursorCodec.MAX_LIMIT, CursorCodec.normalizeLimit(10000));
+	}
+}
@@ -0,0 +1,48 @@
+package com.todolist.util;
+
+import com.todolist.exception.BusinessException;
+import com.todolist.exception.ErrorCodes;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ETagsTests {
+
+	@Test
+	void missingOrWildcardIfMatchSkipsCheck() {
+		assertNull(ETags.parseIfMatch(null));
+		assertNull(ETags.parseIfMatch(" "));
+		assertNull(ETags.parseIfMatch("*"));
+	}
+
+	@Test
+	void parsesStrongETag() {
+		assertEquals(3L, ETags.parseIfMatch(ETags.strong(3L)));
+		assertEquals(12L, ETags.parseIfMatch(" \"12\" "));
+	}
+
+	@Test
+	void rejectsETagsThatCannotMatchAVersion() {
+		for (String ifMatch : new String[] {"W/\"3\"", "\"abc\"", "\"1\", \"2\"", "\"\"", "3", ETags.weak("todo", 1L, 3L)}) {
+			BusinessException e = assertThrows(BusinessException.class, () -> ETags.parseIfMatch(ifMatch));
+			assertEquals(ErrorCodes.PRECONDITION_FAILED, e.getErrorCode());
+			assertEquals(412, e.getHttpStatus());
+		}
+	}
+
+	@Test
+	void requireVersionComparesOnlyWhenExpected() {
+		ETags.requireVersion(5L, null);
+		ETags.requireVersion(5L, 5L);
+		assertThrows(BusinessException.class, () -> ETags.requireVersion(5L, 4L));
+	}
+
+	@Test
+	void weakETagDependsOnEveryPart() {
+		assertEquals(ETags.weak("todos", 1L, 2L), ETags.weak("todos", 1L, 2L));
+		assertNotEquals(ETags.weak("todos", 1L, 2L), ETags.weak("todos", 1L, 3L));
+	}
+}
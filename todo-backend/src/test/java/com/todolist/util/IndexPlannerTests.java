@@ -0,0 +1,55 @@
+package com.todolist.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndexPlannerTests {
+
+	private static final List<IndexPlanner.Index> INDEXES = List.of(
+		new IndexPlanner.Index("idx_completed_progress", "completed", "progress"),
+		new IndexPlanner.Index("idx_progress", "progress"),
+		new IndexPlanner.Index("idx_completed_updated", "completed", "updatedAt"),
+		new IndexPlanner.Index("idx_updated", "updatedAt"));
+
+	@Test
+	void usesEqualityPrefixFollowedByRangeAndSort() {
+		IndexPlanner.Plan plan = IndexPlanner.plan(INDEXES, Set.of("completed"), Set.of("progress"), "progress");
+		assertEquals("idx_completed_progress", plan.getIndex().getName());
+		assertTrue(plan.getWarnings().isEmpty());
+	}
+
+	@Test
+	void prefersIndexThatAlsoServesSort() {
+		IndexPlanner.Plan plan = IndexPlanner.plan(INDEXES, Set.of("completed"), Set.of(), "updatedAt");
+		assertEquals("idx_completed_updated", plan.getIndex().getName());
+		assertTrue(plan.getWarnings().isEmpty());
+	}
+
+	@Test
+	void warnsWhenSortIsNotServed() {
+		IndexPlanner.Plan plan = IndexPlanner.plan(INDEXES, Set.of(), Set.of("progress"), "updatedAt");
+		assertEquals("idx_progress", plan.getIndex().getName());
+		assertEquals(1, plan.getWarnings().size());
+		assertTrue(plan.getWarnings().get(0).startsWith("排序字段 updatedAt"));
+	}
+
+	@Test
+	void warnsAboutResidualFilters() {
+		IndexPlanner.Plan plan = IndexPlanner.plan(INDEXES, Set.of("completed"), Set.of("progress", "updatedAt"), "progress");
+		assertEquals("idx_completed_progress", plan.getIndex().getName());
+		assertEquals(2, plan.getWarnings().size());
+		assertTrue(plan.getWarnings().get(0).startsWith("筛选条件 updatedAt"));
+	}
+
+	@Test
+	void keepsFirstIndexOnTie() {
+		IndexPlanner.Plan plan = IndexPlanner.plan(INDEXES, Set.of(), Set.of(), "createdAt");
+		assertEquals("idx_completed_progress", plan.getIndex().getName());
+		assertEquals(1, plan.getWarnings().size());
+	}
+}
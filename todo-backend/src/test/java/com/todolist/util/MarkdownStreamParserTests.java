@@ -0,0 +1,113 @@
+package com.todolist.util;
+
+import com.todolist.exception.BusinessException;
+import com.todolist.exception.ErrorCodes;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MarkdownStreamParserTests {
+
+	private static List<String> parse(String markdown) throws IOException {
+		List<String> events = new ArrayList<>();
+		new MarkdownStreamParser(new MarkdownStreamParser.Handler() {
+			@Override
+			public void onTopic(String name, String description) {
+				events.add("topic " + name + " " + description);
+			}
+
+			@Override
+			public void onTask(String title, String description) {
+				events.add("task " + title + " " + description);
+			}
+
+			@Override
+			public void onTodo(String title, int progress, boolean completed, String note) {
+				events.add("todo " + title + " " + progress + " " + completed + " " + note);
+			}
+		}).parse(new StringReader(markdown));
+		return events;
+	}
+
+	private static BusinessException parseError(String markdown) {
+		BusinessException e = assertThrows(BusinessException.class, () -> parse(markdown));
+		assertEquals(ErrorCodes.IMPORT_INVALID_FORMAT, e.getErrorCode());
+		assertEquals(400, e.getHttpStatus());
+		return e;
+	}
+
+	@Test
+	void parsesNodesParentFirst() throws IOException {
+		List<String> events = parse(String.join("\n",
+			"# 学习计划",
+			"专题描述",
+			"",
+			"## 任务1",
+			"任务描述",
+			"- 待办a",
+			"  - 进度：30%",
+			"  - 备注：先看文档",
+			"- 待办b",
+			"## 任务2",
+			"- 待办c"));
+		assertEquals(List.of(
+			"topic 学习计划 专题描述",
+			"task 任务1 任务描述",
+			"todo 待办a 30 false 先看文档",
+			"todo 待办b 0 false null",
+			"task 任务2 null",
+			"todo 待办c 0 false null"), events);
+	}
+
+	@Test
+	void stripsByteOrderMark() throws IOException {
+		List<String> events = parse("\uFEFF# 学习计划\n## 任务1\n- 待办a\n");
+		assertEquals("topic 学习计划 null", events.get(0));
+	}
+
+	@Test
+	void checkedTodoIsCompleted() throws IOException {
+		List<String> events = parse("# 主题\n## 任务\n- [x] 已完成\n- [X] 大写\n- [ ] 未完成\n  - 进度: 100 %\n");
+		assertEquals(List.of(
+			"topic 主题 null",
+			"task 任务 null",
+			"todo 已完成 100 true null",
+			"todo 大写 100 true null",
+			"todo 未完成 100 true null"), events);
+	}
+
+	@Test
+	void taskOutsideTopicReportsLineNumber() {
+		BusinessException e = parseError("\n\n## 任务\n");
+		assertEquals("第 3 行: 任务必须位于专题（# 标题）之下", e.getMessage());
+	}
+
+	@Test
+	void todoOutsideTaskReportsLineNumber() {
+		BusinessException e = parseError("# 主题\n描述\n- 待办\n");
+		assertEquals("第 3 行: 待办事项必须位于任务（## 标题）之下", e.getMessage());
+	}
+
+	@Test
+	void progressOverHundredReportsLineNumber() {
+		BusinessException e = parseError("# 主题\n## 任务\n- 待办\n  - 进度：101%\n");
+		assertEquals("第 4 行: 进度必须在0-100之间", e.getMessage());
+	}
+
+	@Test
+	void emptyTitleReportsLineNumber() {
+		BusinessException e = parseError("# 主题\n## 任务\n- [x] \n");
+		assertEquals("第 3 行: 待办标题不能为空", e.getMessage());
+	}
+
+	@Test
+	void fileWithoutTopicIsRejected() {
+		parseError("普通文本\n");
+	}
+}
@@ -0,0 +1,59 @@
+package com.todolist.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchTokenizerTests {
+
+	private static Set<String> indexTerms(String text) {
+		Set<String> terms = new LinkedHashSet<>();
+		SearchTokenizer.indexTerms(text, terms);
+		return terms;
+	}
+
+	@Test
+	void indexesCjkUnigramsAndBigrams() {
+		assertEquals(List.of("学", "习", "计", "划", "学习", "习计", "计划"),
+			List.copyOf(indexTerms("学习计划")));
+	}
+
+	@Test
+	void queryUsesBigramsOnlyForMultiCharacterRuns() {
+		assertEquals(List.of("学习", "习计", "计划"), List.copyOf(SearchTokenizer.queryTerms("学习计划")));
+		assertEquals(List.of("学"), List.copyOf(SearchTokenizer.queryTerms("学")));
+	}
+
+	@Test
+	void splitsMixedScripts() {
+		assertEquals(Set.of("学", "习", "学习", "spring", "boot", "笔", "记", "笔记"),
+			indexTerms("学习Spring Boot笔记"));
+		assertEquals(List.of("java", "入门", "2025"), List.copyOf(SearchTokenizer.queryTerms("Java入门2025")));
+	}
+
+	@Test
+	void treatsKanaAndHangulAsCjk() {
+		assertEquals(List.of("カタ", "タカ", "カナ"), List.copyOf(SearchTokenizer.queryTerms("カタカナ")));
+		assertEquals(List.of("한국", "국어"), List.copyOf(SearchTokenizer.queryTerms("한국어")));
+	}
+
+	@Test
+	void punctuationAndNullProduceNoTerms() {
+		assertTrue(SearchTokenizer.queryTerms(null).isEmpty());
+		assertTrue(SearchTokenizer.queryTerms("，。!? -").isEmpty());
+		assertEquals(List.of("a", "b"), List.copyOf(SearchTokenizer.queryTerms("a,b")));
+	}
+
+	@Test
+	void countsWordsCaseInsensitively() {
+		assertEquals(3, SearchTokenizer.count("Spring spring SPRING", "spring"));
+		assertEquals(2, SearchTokenizer.count("学习学习", "学习"));
+		assertEquals(0, SearchTokenizer.count(null, "spring"));
+		assertEquals(2, SearchTokenizer.indexOf("学习Spring", "spring", 0));
+	}
+}